@@ -29,8 +29,7 @@ public class SimpleApplicationContext extends AbstractApplicationContext {
 		
 		ClassTree tree = app.getClassTree();
 		
-		// TODO: could probably optimise with dfs instead of getAll
-		Collection<ClassNode> parents = tree.getAllParents(m.owner);
+		Collection<ClassNode> parents = tree.getAncestors(m.owner);
 		for(ClassNode cn : parents) {
 			if(app.isLibraryClass(cn.getName())) {
 				for(MethodNode cnM : cn.getMethods()) {
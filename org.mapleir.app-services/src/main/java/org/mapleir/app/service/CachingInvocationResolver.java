@@ -0,0 +1,184 @@
+package org.mapleir.app.service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.mapleir.asm.ClassNode;
+import org.mapleir.asm.FieldNode;
+import org.mapleir.asm.MethodNode;
+
+/**
+ * An {@link InvocationResolver} that remembers the targets it resolved for
+ * each call site signature, so that the call graph builders and passes that
+ * resolve the same popular methods over and over only pay for it once.
+ *
+ * <p> Call sites are interned, and each holds on to what was resolved for
+ * it. The sites belong to a generation of the cache. A new generation,
+ * with no sites, is started when the {@link ClassTree} changes or when
+ * {@link #invalidate()} is called, which the renaming passes do once they
+ * have changed the names of classes or methods. A resolution that races
+ * with an invalidation only ever stores its answer in the old generation,
+ * so it can never be returned later, and the old sites are dropped with
+ * their generation.
+ *
+ * <p> Sets of targets are returned unmodifiable.
+ */
+public class CachingInvocationResolver implements InvocationResolver {
+
+	private final InvocationResolver delegate;
+	private final ApplicationClassSource app;
+	private final AtomicReference<Generation> generation;
+
+	public CachingInvocationResolver(ApplicationClassSource app, InvocationResolver delegate) {
+		this.app = app;
+		this.delegate = delegate;
+		generation = new AtomicReference<>(new Generation(app.getClassTree().getModCount()));
+	}
+
+	public InvocationResolver getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public MethodNode resolveStaticCall(String owner, String name, String desc) {
+		Generation gen = checkTree();
+		CallSite site = gen.intern(owner, name, desc, false);
+		Result<MethodNode> res = site.staticCall;
+		if(res == null) {
+			site.staticCall = res = new Result<>(delegate.resolveStaticCall(owner, name, desc));
+		}
+		return res.value;
+	}
+
+	@Override
+	public MethodNode resolveVirtualInitCall(String owner, String desc) {
+		Generation gen = checkTree();
+		CallSite site = gen.intern(owner, "<init>", desc, false);
+		Result<MethodNode> res = site.initCall;
+		if(res == null) {
+			site.initCall = res = new Result<>(delegate.resolveVirtualInitCall(owner, desc));
+		}
+		return res.value;
+	}
+
+	@Override
+	public Set<MethodNode> resolveVirtualCalls(String owner, String name, String desc, boolean strict) {
+		Generation gen = checkTree();
+		CallSite site = gen.intern(owner, name, desc, strict);
+		Result<Set<MethodNode>> res = site.virtualCalls;
+		if(res == null) {
+			/* failures aren't cached, the exception is thrown again
+			 * every time. */
+			Set<MethodNode> targets = Collections.unmodifiableSet(delegate.resolveVirtualCalls(owner, name, desc, strict));
+			site.virtualCalls = res = new Result<>(targets);
+		}
+		return res.value;
+	}
+
+	@Override
+	public FieldNode findStaticField(String owner, String name, String desc) {
+		return delegate.findStaticField(owner, name, desc);
+	}
+
+	@Override
+	public FieldNode findVirtualField(String owner, String name, String desc) {
+		return delegate.findVirtualField(owner, name, desc);
+	}
+
+	@Override
+	public Set<MethodNode> getHierarchyMethodChain(ClassNode cn, String name, String desc, boolean exact) {
+		return delegate.getHierarchyMethodChain(cn, name, desc, exact);
+	}
+
+	@Override
+	public void invalidate() {
+		/* the delegate first, so that nothing resolved in the new
+		 * generation comes from its old state. */
+		delegate.invalidate();
+		generation.set(new Generation(app.getClassTree().getModCount()));
+	}
+
+	private Generation checkTree() {
+		int modCount = app.getClassTree().getModCount();
+		for(;;) {
+			Generation gen = generation.get();
+			if(gen.modCount == modCount) {
+				return gen;
+			}
+			Generation next = new Generation(modCount);
+			if(generation.compareAndSet(gen, next)) {
+				return next;
+			}
+		}
+	}
+
+	private static final class Generation {
+		final int modCount;
+		final Map<CallSite, CallSite> sites;
+
+		Generation(int modCount) {
+			this.modCount = modCount;
+			sites = new ConcurrentHashMap<>();
+		}
+
+		CallSite intern(String owner, String name, String desc, boolean strict) {
+			CallSite key = new CallSite(owner, name, desc, strict);
+			CallSite site = sites.get(key);
+			if(site == null) {
+				site = sites.computeIfAbsent(key, k -> k);
+			}
+			return site;
+		}
+	}
+
+	/* null can be a resolved answer, so it's boxed. */
+	private static final class Result<T> {
+		final T value;
+
+		Result(T value) {
+			this.value = value;
+		}
+	}
+
+	private static final class CallSite {
+		final String owner;
+		final String name;
+		final String desc;
+		final boolean strict;
+		final int hash;
+		/* what was last resolved for this site. static and init calls are
+		 * always interned with strict = false. */
+		volatile Result<MethodNode> staticCall;
+		volatile Result<MethodNode> initCall;
+		volatile Result<Set<MethodNode>> virtualCalls;
+
+		CallSite(String owner, String name, String desc, boolean strict) {
+			this.owner = owner;
+			this.name = name;
+			this.desc = desc;
+			this.strict = strict;
+			hash = ((Objects.hashCode(owner) * 31 + name.hashCode()) * 31 + desc.hashCode()) * 2 + (strict ? 1 : 0);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) {
+				return true;
+			} else if(!(o instanceof CallSite)) {
+				return false;
+			}
+			CallSite other = (CallSite) o;
+			return hash == other.hash && strict == other.strict && Objects.equals(owner, other.owner)
+					&& name.equals(other.name) && desc.equals(other.desc);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,319 @@
+package org.mapleir.app.service;
+
+import java.util.*;
+
+import org.mapleir.asm.ClassNode;
+
+/**
+ * The reflexive transitive closure of a {@link ClassTree}, i.e. the ancestors
+ * and descendants of every class, so that subtype checks and closure
+ * enumeration don't need a traversal of the tree.
+ *
+ * <p> Every class is given a dense id and its ancestors and descendants are
+ * stored as sorted arrays of ids. Class hierarchies are shallow, so these are
+ * much smaller than a bitset over all classes would be, and a subtype check
+ * is a binary search over a handful of ids.
+ *
+ * <p> The tree keeps the index up to date: a class added to the tree after
+ * the index was built is given the next id and its ancestors are computed
+ * from those of its direct supertypes, while the descendant table is only
+ * recomputed the next time it is asked for. Removing an indexed class
+ * throws the whole index away and it is rebuilt on the next query.
+ *
+ * <p> Queries read an immutable {@link Snapshot} of the tables, which is
+ * replaced whenever the index changes. The tables are only built and grown
+ * while holding the tree's monitor, which the tree also holds while it is
+ * modified, so queries may be made from several threads at once.
+ */
+public class ClassClosureIndex {
+	private static final int[] EMPTY = new int[0];
+
+	private final ClassTree tree;
+	/* null if the index has to be rebuilt. */
+	private volatile Snapshot snapshot;
+	/* the tables being built, if the tree adds a class meanwhile. */
+	private Builder building;
+
+	public ClassClosureIndex(ClassTree tree) {
+		this.tree = tree;
+	}
+
+	/**
+	 * Indexes every class currently in the tree.
+	 */
+	public void build() {
+		synchronized(tree) {
+			Builder b = building = new Builder(tree.size());
+			try {
+				for(ClassNode cn : new ArrayList<>(tree.vertices())) {
+					b.index(cn);
+				}
+				for(int i = 0; i < b.size; i++) {
+					b.computeAncestors(i);
+				}
+			} finally {
+				building = null;
+			}
+			snapshot = b.publish();
+		}
+	}
+
+	/**
+	 * @param sub The subtype.
+	 * @param sup The supertype.
+	 * @return Whether <code>sup</code> is <code>sub</code> or one of its
+	 * ancestors, or null if either class isn't in the tree.
+	 */
+	public Boolean isSubtypeOf(ClassNode sub, ClassNode sup) {
+		Snapshot s = validate();
+		int i = s.getId(sub), j = s.getId(sup);
+		if(i == -1 || j == -1) {
+			return null;
+		}
+		return Arrays.binarySearch(s.ancestors[i], j) >= 0;
+	}
+
+	/**
+	 * @param cn A class in the tree.
+	 * @return The class and all of its supertypes, in no particular order, or
+	 * null if the class isn't in the tree.
+	 */
+	public List<ClassNode> getAncestors(ClassNode cn) {
+		Snapshot s = validate();
+		int i = s.getId(cn);
+		return i == -1 ? null : s.new NodeList(s.ancestors[i]);
+	}
+
+	/**
+	 * @param cn A class in the tree.
+	 * @return The class and all of its subtypes, in no particular order, or
+	 * null if the class isn't in the tree.
+	 */
+	public List<ClassNode> getDescendants(ClassNode cn) {
+		Snapshot s = validate();
+		int i = s.getId(cn);
+		return i == -1 ? null : s.new NodeList(s.getDescendants()[i]);
+	}
+
+	/**
+	 * Called by the tree, holding its monitor, once a class and the edges to
+	 * its direct supertypes have been added.
+	 */
+	void vertexAdded(ClassNode cn) {
+		if(building != null) {
+			if(building.getId(cn) == -1) {
+				building.computeAncestors(building.index(cn));
+			}
+			return;
+		}
+		Snapshot s = snapshot;
+		if(s == null || s.getId(cn) != -1) {
+			return;
+		}
+		Builder b = new Builder(s);
+		b.computeAncestors(b.index(cn));
+		snapshot = b.publish();
+	}
+
+	/**
+	 * Called by the tree, holding its monitor, before a class is removed.
+	 */
+	void vertexRemoved(ClassNode cn) {
+		Snapshot s = snapshot;
+		if(s != null && s.getId(cn) != -1) {
+			snapshot = null;
+		}
+	}
+
+	private Snapshot validate() {
+		Snapshot s = snapshot;
+		if(s == null) {
+			synchronized(tree) {
+				if((s = snapshot) == null) {
+					build();
+					s = snapshot;
+				}
+			}
+		}
+		return s;
+	}
+
+	private static int[] sortedUnique(int[] arr) {
+		Arrays.sort(arr);
+		int n = 0;
+		for(int i = 0; i < arr.length; i++) {
+			if(n == 0 || arr[n - 1] != arr[i]) {
+				arr[n++] = arr[i];
+			}
+		}
+		return n == arr.length ? arr : Arrays.copyOf(arr, n);
+	}
+
+	/* the tables as of some point in time. a later snapshot may share the
+	 * arrays with this one, but only ever writes to slots at or past size
+	 * (or to ids of classes this one doesn't know), so what this one can see
+	 * never changes. */
+	private static class Snapshot {
+		/* numeric id of a ClassNode -> dense id + 1, 0 if not indexed. */
+		final int[] ids;
+		final ClassNode[] nodes;
+		final int[][] ancestors;
+		final int size;
+		/* computed from the ancestors on first use. racing threads compute
+		 * the same table, so it doesn't matter whose is kept. */
+		private volatile int[][] descendants;
+
+		Snapshot(int[] ids, ClassNode[] nodes, int[][] ancestors, int size) {
+			this.ids = ids;
+			this.nodes = nodes;
+			this.ancestors = ancestors;
+			this.size = size;
+		}
+
+		int getId(ClassNode cn) {
+			if(cn == null) {
+				return -1;
+			}
+			int nid = cn.getNumericId();
+			int i = nid < ids.length ? ids[nid] - 1 : -1;
+			return i < size ? i : -1;
+		}
+
+		int[][] getDescendants() {
+			int[][] res = descendants;
+			if(res == null) {
+				descendants = res = computeDescendants();
+			}
+			return res;
+		}
+
+		private int[][] computeDescendants() {
+			int[] counts = new int[size];
+			for(int i = 0; i < size; i++) {
+				for(int a : ancestors[i]) {
+					counts[a]++;
+				}
+			}
+			int[][] res = new int[size][];
+			for(int i = 0; i < size; i++) {
+				res[i] = counts[i] == 0 ? EMPTY : new int[counts[i]];
+				counts[i] = 0;
+			}
+			/* visiting the descendants in id order keeps each array sorted. */
+			for(int i = 0; i < size; i++) {
+				for(int a : ancestors[i]) {
+					res[a][counts[a]++] = i;
+				}
+			}
+			return res;
+		}
+
+		class NodeList extends AbstractList<ClassNode> implements RandomAccess {
+			private final int[] set;
+
+			NodeList(int[] set) {
+				this.set = set;
+			}
+
+			@Override
+			public ClassNode get(int index) {
+				return nodes[set[index]];
+			}
+
+			@Override
+			public int size() {
+				return set.length;
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				if(!(o instanceof ClassNode)) {
+					return false;
+				}
+				int i = getId((ClassNode) o);
+				return i != -1 && Arrays.binarySearch(set, i) >= 0;
+			}
+		}
+	}
+
+	/* grows the tables of a snapshot, under the tree's monitor. */
+	private class Builder {
+		int[] ids;
+		ClassNode[] nodes;
+		int[][] ancestors;
+		int size;
+
+		Builder(int capacity) {
+			ids = EMPTY;
+			nodes = new ClassNode[capacity];
+			ancestors = new int[capacity][];
+		}
+
+		Builder(Snapshot s) {
+			ids = s.ids;
+			nodes = s.nodes;
+			ancestors = s.ancestors;
+			size = s.size;
+		}
+
+		Snapshot publish() {
+			return new Snapshot(ids, nodes, ancestors, size);
+		}
+
+		int getId(ClassNode cn) {
+			int nid = cn.getNumericId();
+			int i = nid < ids.length ? ids[nid] - 1 : -1;
+			return i < size ? i : -1;
+		}
+
+		int index(ClassNode cn) {
+			int nid = cn.getNumericId();
+			if(nid >= ids.length) {
+				ids = Arrays.copyOf(ids, Math.max(nid + 1, ids.length * 2));
+			}
+			if(size == nodes.length) {
+				int cap = Math.max(16, size * 2);
+				nodes = Arrays.copyOf(nodes, cap);
+				ancestors = Arrays.copyOf(ancestors, cap);
+			}
+			int i = size++;
+			nodes[i] = cn;
+			ids[nid] = i + 1;
+			return i;
+		}
+
+		int[] computeAncestors(int i) {
+			int[] res = ancestors[i];
+			if(res != null) {
+				return res;
+			}
+
+			Collection<ClassNode> parents = tree.getParents(nodes[i]);
+			if(parents.isEmpty()) {
+				res = new int[] { i };
+			} else {
+				/* the tree is acyclic, so the recursion ends at the root. */
+				int[][] sets = new int[parents.size()][];
+				int len = 1, k = 0;
+				for(ClassNode p : parents) {
+					int j = getId(p);
+					if(j == -1) {
+						j = index(p);
+					}
+					sets[k] = computeAncestors(j);
+					len += sets[k++].length;
+				}
+				res = new int[len];
+				res[0] = i;
+				int pos = 1;
+				for(int[] s : sets) {
+					System.arraycopy(s, 0, res, pos, s.length);
+					pos += s.length;
+				}
+				res = sortedUnique(res);
+			}
+			ancestors[i] = res;
+			return res;
+		}
+	}
+}
@@ -0,0 +1,265 @@
+package org.mapleir.app.service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.log4j.Logger;
+import org.mapleir.asm.ClassHelper;
+import org.mapleir.asm.ClassNode;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.InnerClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Persistent cache of the headers of the classes in a library jar, i.e. the
+ * name, access, supertypes, generic signatures, inner and outer class
+ * attributes and the field and method declarations (including the thrown
+ * exceptions) of each class but no code. This is all the {@link ClassTree}
+ * and the invocation resolver need, so a library that has not changed since
+ * the last run can be loaded with a single sequential read instead of
+ * parsing every class again.
+ *
+ * <p> Annotations, field constant values and the other attributes are not
+ * kept, so a cached class is only equivalent to one parsed with
+ * {@link ClassReader#SKIP_CODE} as far as those go.
+ *
+ * <p> A cache file is keyed on the absolute path of the jar and a hash of its
+ * contents and is rebuilt whenever either no longer matches. Cache files are
+ * stored next to the jar unless a cache directory is given.
+ */
+public class ClassHeaderCache {
+	private static final Logger LOGGER = Logger.getLogger(ClassHeaderCache.class);
+
+	private static final int MAGIC = 0x4D484331; // MHC1
+	private static final int VERSION = 2;
+	private static final String EXTENSION = ".mhc";
+
+	private final File cacheDir;
+
+	public ClassHeaderCache() {
+		this(null);
+	}
+
+	public ClassHeaderCache(File cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * Loads the headers of all classes in the given jar, from the cache if it
+	 * is up to date and otherwise by parsing the jar and then writing a new
+	 * cache file.
+	 *
+	 * @param parent The application the library belongs to.
+	 * @param jar The library jar.
+	 * @return A library source containing the headers.
+	 * @throws IOException if the jar could not be read.
+	 */
+	public LibraryClassSource load(ApplicationClassSource parent, File jar) throws IOException {
+		String path = jar.getAbsolutePath();
+		byte[] hash = hash(jar);
+		File cache = getCacheFile(jar);
+
+		if(cache.exists()) {
+			try {
+				List<ClassNode> classes = read(cache, path, hash);
+				if(classes != null) {
+					return new LibraryClassSource(parent, classes);
+				}
+			} catch(IOException e) {
+				LOGGER.warn(String.format("Discarding unreadable header cache %s: %s", cache, e.getMessage()));
+			}
+		}
+
+		List<ClassNode> classes = parse(jar);
+		try {
+			write(cache, path, hash, classes);
+		} catch(IOException e) {
+			LOGGER.warn(String.format("Could not write header cache %s: %s", cache, e.getMessage()));
+		}
+		return new LibraryClassSource(parent, classes);
+	}
+
+	public File getCacheFile(File jar) {
+		if(cacheDir == null) {
+			return new File(jar.getAbsoluteFile().getParentFile(), jar.getName() + EXTENSION);
+		} else {
+			String key = Integer.toHexString(jar.getAbsolutePath().hashCode());
+			return new File(cacheDir, jar.getName() + "-" + key + EXTENSION);
+		}
+	}
+
+	private static List<ClassNode> parse(File jar) throws IOException {
+		List<ClassNode> classes = new ArrayList<>();
+		try(ZipFile zip = new ZipFile(jar)) {
+			for(Enumeration<? extends ZipEntry> it = zip.entries(); it.hasMoreElements();) {
+				ZipEntry e = it.nextElement();
+				if(e.getName().endsWith(".class")) {
+					try(InputStream in = zip.getInputStream(e)) {
+						classes.add(ClassHelper.create(in, ClassReader.SKIP_CODE));
+					}
+				}
+			}
+		}
+		return classes;
+	}
+
+	private static List<ClassNode> read(File cache, String path, byte[] hash) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(cache.toPath())));
+		if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+			return null;
+		}
+		if(!in.readUTF().equals(path)) {
+			return null;
+		}
+		byte[] cachedHash = new byte[in.readUnsignedShort()];
+		in.readFully(cachedHash);
+		if(!Arrays.equals(cachedHash, hash)) {
+			return null;
+		}
+
+		int count = in.readInt();
+		List<ClassNode> classes = new ArrayList<>(count);
+		for(int i = 0; i < count; i++) {
+			org.objectweb.asm.tree.ClassNode node = new org.objectweb.asm.tree.ClassNode();
+			node.version = in.readInt();
+			node.access = in.readInt();
+			node.name = in.readUTF();
+			node.superName = readNullableUTF(in);
+			node.signature = readNullableUTF(in);
+			int ifaces = in.readUnsignedShort();
+			node.interfaces = new ArrayList<>(ifaces);
+			for(int j = 0; j < ifaces; j++) {
+				node.interfaces.add(in.readUTF());
+			}
+			node.outerClass = readNullableUTF(in);
+			node.outerMethod = readNullableUTF(in);
+			node.outerMethodDesc = readNullableUTF(in);
+			int inners = in.readUnsignedShort();
+			for(int j = 0; j < inners; j++) {
+				String name = in.readUTF();
+				String outerName = readNullableUTF(in);
+				String innerName = readNullableUTF(in);
+				node.innerClasses.add(new InnerClassNode(name, outerName, innerName, in.readInt()));
+			}
+			int fields = in.readUnsignedShort();
+			for(int j = 0; j < fields; j++) {
+				node.fields.add(new FieldNode(in.readInt(), in.readUTF(), in.readUTF(), readNullableUTF(in), null));
+			}
+			int methods = in.readUnsignedShort();
+			for(int j = 0; j < methods; j++) {
+				int access = in.readInt();
+				String name = in.readUTF();
+				String desc = in.readUTF();
+				String signature = readNullableUTF(in);
+				String[] exceptions = new String[in.readUnsignedShort()];
+				for(int k = 0; k < exceptions.length; k++) {
+					exceptions[k] = in.readUTF();
+				}
+				node.methods.add(new MethodNode(access, name, desc, signature, exceptions));
+			}
+			classes.add(ClassHelper.create(node));
+		}
+		return classes;
+	}
+
+	private static void write(File cache, String path, byte[] hash, List<ClassNode> classes) throws IOException {
+		File dir = cache.getAbsoluteFile().getParentFile();
+		if(!dir.exists() && !dir.mkdirs()) {
+			throw new IOException("Could not create " + dir);
+		}
+
+		/* write to a temporary file first so that a concurrent or aborted
+		 * run never leaves a partial cache behind. */
+		File tmp = File.createTempFile(cache.getName(), ".tmp", dir);
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(path);
+			out.writeShort(hash.length);
+			out.write(hash);
+
+			out.writeInt(classes.size());
+			for(ClassNode cn : classes) {
+				org.objectweb.asm.tree.ClassNode node = cn.node;
+				out.writeInt(node.version);
+				out.writeInt(node.access);
+				out.writeUTF(node.name);
+				writeNullableUTF(out, node.superName);
+				writeNullableUTF(out, node.signature);
+				out.writeShort(node.interfaces.size());
+				for(String s : node.interfaces) {
+					out.writeUTF(s);
+				}
+				writeNullableUTF(out, node.outerClass);
+				writeNullableUTF(out, node.outerMethod);
+				writeNullableUTF(out, node.outerMethodDesc);
+				out.writeShort(node.innerClasses.size());
+				for(InnerClassNode ic : node.innerClasses) {
+					out.writeUTF(ic.name);
+					writeNullableUTF(out, ic.outerName);
+					writeNullableUTF(out, ic.innerName);
+					out.writeInt(ic.access);
+				}
+				out.writeShort(node.fields.size());
+				for(FieldNode f : node.fields) {
+					out.writeInt(f.access);
+					out.writeUTF(f.name);
+					out.writeUTF(f.desc);
+					writeNullableUTF(out, f.signature);
+				}
+				out.writeShort(node.methods.size());
+				for(MethodNode m : node.methods) {
+					out.writeInt(m.access);
+					out.writeUTF(m.name);
+					out.writeUTF(m.desc);
+					writeNullableUTF(out, m.signature);
+					out.writeShort(m.exceptions.size());
+					for(String s : m.exceptions) {
+						out.writeUTF(s);
+					}
+				}
+			}
+		}
+		try {
+			Files.move(tmp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch(IOException e) {
+			tmp.delete();
+			throw e;
+		}
+	}
+
+	private static String readNullableUTF(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeNullableUTF(DataOutputStream out, String s) throws IOException {
+		out.writeBoolean(s != null);
+		if(s != null) {
+			out.writeUTF(s);
+		}
+	}
+
+	private static byte[] hash(File jar) throws IOException {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-1");
+		} catch(NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		byte[] buf = new byte[1 << 16];
+		try(InputStream in = new FileInputStream(jar)) {
+			int n;
+			while((n = in.read(buf)) != -1) {
+				md.update(buf, 0, n);
+			}
+		}
+		return md.digest();
+	}
+}
@@ -27,18 +27,29 @@ import org.mapleir.asm.ClassNode;
 public class ClassTree extends FastDirectedGraph<ClassNode, InheritanceEdge> {
 	private static final Logger LOGGER = Logger.getLogger(ClassTree.class);
 	private static final boolean ALLOW_PHANTOM_CLASSES = true;
+	private static final boolean INDEX_CLOSURES = true;
 
 	private final ApplicationClassSource source;
 	private final ClassNode rootNode;
 	private final boolean allowPhantomClasses;
+	private final CommonSuperTypeIndex superTypes;
+	private final boolean indexClosures;
+	private ClassClosureIndex closure;
+	private volatile int modCount;
 
 	public ClassTree(ApplicationClassSource source) {
 		this(source, ALLOW_PHANTOM_CLASSES);
 	}
 
 	public ClassTree(ApplicationClassSource source, boolean allowPhantomClasses) {
+		this(source, allowPhantomClasses, INDEX_CLOSURES);
+	}
+
+	public ClassTree(ApplicationClassSource source, boolean allowPhantomClasses, boolean indexClosures) {
 		this.source = source;
 		this.allowPhantomClasses = allowPhantomClasses;
+		this.indexClosures = indexClosures;
+		superTypes = new CommonSuperTypeIndex(this);
 		rootNode = findClass("java/lang/Object");
 		addVertex(rootNode);
 	}
@@ -47,12 +58,21 @@ public class ClassTree extends FastDirectedGraph<ClassNode, InheritanceEdge> {
 		for (ClassNode node : source.iterateWithLibraries()) {
 			addVertex(node);
 		}
+		if(indexClosures) {
+			closure = new ClassClosureIndex(this);
+			closure.build();
+		}
 	}
 
 	public ClassNode getRootNode() {
 		return rootNode;
 	}
 
+	// incremented whenever a class is added to or removed from the tree.
+	public int getModCount() {
+		return modCount;
+	}
+
 	public Iterable<ClassNode> iterateParents(ClassNode cn) {
 		// this avoids any stupid anonymous Iterable<ClassNode> and Iterator bullcrap
 		// and also avoids computing a temporary set, so it is performant
@@ -115,6 +135,53 @@ public class ClassTree extends FastDirectedGraph<ClassNode, InheritanceEdge> {
 		return SimpleDfs.postorder(this, cn, true);
 	}
 
+	// same as getAllParents but in no particular order, answered from the closure index if there is one.
+	// may be called while the tree is being modified.
+	public Collection<ClassNode> getAncestors(ClassNode cn) {
+		if(closure != null) {
+			Collection<ClassNode> res = closure.getAncestors(cn);
+			if(res != null) {
+				return res;
+			}
+		}
+		/* the traversal needs the tree to stay still. */
+		synchronized(this) {
+			return getAllParents(cn);
+		}
+	}
+
+	// same as getAllChildren but in no particular order, answered from the closure index if there is one.
+	// may be called while the tree is being modified.
+	public Collection<ClassNode> getDescendants(ClassNode cn) {
+		if(closure != null) {
+			Collection<ClassNode> res = closure.getDescendants(cn);
+			if(res != null) {
+				return res;
+			}
+		}
+		/* the traversal needs the tree to stay still. */
+		synchronized(this) {
+			return getAllChildren(cn);
+		}
+	}
+
+	/**
+	 * @param sub The subtype.
+	 * @param sup The supertype.
+	 * @return Whether <code>sup</code> is <code>sub</code> or one of its superclasses or interfaces.
+	 */
+	public boolean isSubtypeOf(ClassNode sub, ClassNode sup) {
+		if(closure != null) {
+			Boolean res = closure.isSubtypeOf(sub, sup);
+			if(res != null) {
+				return res;
+			}
+		}
+		synchronized(this) {
+			return getAllParents(sub).contains(sup);
+		}
+	}
+
 	/**
 	 * @param cn classnode to search out from
 	 * @return every class connected to the class in any way.
@@ -174,55 +241,50 @@ public class ClassTree extends FastDirectedGraph<ClassNode, InheritanceEdge> {
 		ClassNode ccn = source.findClassNode(type1);
 		ClassNode dcn = source.findClassNode(type2);
 
-		if(ccn == null) {
-			ClassNode c;
-			try {
-				c = ClassHelper.create(type1);
-			} catch (IOException e) {
-				e.printStackTrace();
-				return null;
-			}
-
-			this.addVertex(ccn = c);
-		}
-
-		if(dcn == null) {
-			ClassNode c;
-			try {
-				c = ClassHelper.create(type2);
-			} catch (IOException e) {
-				e.printStackTrace();
-				return null;
+		if(ccn == null || dcn == null) {
+			synchronized (this) {
+				if(ccn == null && (ccn = loadClass(type1)) == null) {
+					return null;
+				}
+				if(dcn == null && (dcn = loadClass(type2)) == null) {
+					return null;
+				}
 			}
-			this.addVertex(dcn = c);
 		}
 
-		Collection<ClassNode> c = this.getAllParents(ccn);
-		Collection<ClassNode> d = this.getAllParents(dcn);
-
-		if(c.contains(dcn))
-			return dcn;
-
-		if(d.contains(ccn))
-			return ccn;
+		return superTypes.getCommonSuperClass(ccn, dcn);
+	}
 
-		Stack<ClassNode> stack = new Stack<>();
-		List<ClassNode> cached = new ArrayList<>(c);
-		Collections.reverse(cached);
-		stack.addAll(cached);
+	/**
+	 * @see CommonSuperTypeIndex#getCommonSuperClass(ClassNode, ClassNode)
+	 */
+	public ClassNode getCommonSuperClass(ClassNode cn1, ClassNode cn2) {
+		return superTypes.getCommonSuperClass(cn1, cn2);
+	}
 
-		while (!stack.isEmpty()) {
-			final ClassNode peek = stack.pop();
+	public boolean isAssignableFrom(ClassNode sup, ClassNode sub) {
+		return superTypes.isAssignableFrom(sup, sub);
+	}
 
-			if (d.contains(peek))
-				return peek;
+	// loads a class that isn't part of the application or its libraries.
+	private ClassNode loadClass(String name) {
+		ClassNode c;
+		try {
+			c = ClassHelper.create(name);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
 		}
-
-		return null;
+		if(c != null) {
+			this.addVertex(c);
+		}
+		return c;
 	}
 
+	// classes are only added and removed holding the tree's monitor, which
+	// the indices rely on when they rebuild.
 	@Override
-	public boolean addVertex(ClassNode cn) {
+	public synchronized boolean addVertex(ClassNode cn) {
 		if(cn == null) {
 			LOGGER.error("Received null to ClassTree.addVertex");
 			return false;
@@ -256,9 +318,28 @@ public class ClassTree extends FastDirectedGraph<ClassNode, InheritanceEdge> {
 			}
 		}
 
+		if(closure != null) {
+			closure.vertexAdded(cn);
+		}
+		modCount++;
 		return true;
 	}
 
+	@Override
+	public synchronized void removeVertex(ClassNode cn) {
+		// a class that was never queried and has no subclasses (e.g. one
+		// that failed to be added) can't be part of any cached answer.
+		boolean invalidate = superTypes.isIndexed(cn) || (containsReverseVertex(cn) && !super.getReverseEdges(cn).isEmpty());
+		if(closure != null) {
+			closure.vertexRemoved(cn);
+		}
+		super.removeVertex(cn);
+		modCount++;
+		if(invalidate) {
+			superTypes.invalidate();
+		}
+	}
+
 	@Override
 	public void addEdge(InheritanceEdge e) {
 		throw new UnsupportedOperationException();
@@ -0,0 +1,158 @@
+package org.mapleir.app.service;
+
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.mapleir.asm.ClassNode;
+
+/**
+ * Answers common supertype queries on a {@link ClassTree}, as asked by the
+ * frame computation of the class writer.
+ *
+ * <p> The set of ancestors and the superclass chain (root first) of a class
+ * are computed once, the first time the class takes part in a query, and
+ * the answer for each pair of classes is memoised. Since adding a class to
+ * the tree never changes the ancestors of the classes already in it, both
+ * are only dropped when a class is removed.
+ *
+ * <p> The tree itself is only touched while holding its monitor, so queries
+ * may be made from several threads at once.
+ */
+public class CommonSuperTypeIndex {
+	private final ClassTree tree;
+	private final Map<ClassNode, Entry> entries;
+	/* replaced rather than cleared by invalidate(), so that a query which
+	 * read the tables before can't leave its answer in the new memo. */
+	private volatile Map<Long, ClassNode> memo;
+
+	public CommonSuperTypeIndex(ClassTree tree) {
+		this.tree = tree;
+		entries = new ConcurrentHashMap<>();
+		memo = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Finds the most specific common supertype of two classes, following the
+	 * same rules as ASM's <code>ClassWriter.getCommonSuperClass</code>: if one
+	 * class is assignable from the other it is the result, otherwise if either
+	 * is an interface the result is the root of the tree, otherwise it is the
+	 * closest common superclass.
+	 *
+	 * @param a The first class.
+	 * @param b The second class.
+	 * @return The common supertype.
+	 */
+	public ClassNode getCommonSuperClass(ClassNode a, ClassNode b) {
+		if(a == b) {
+			return a;
+		}
+		Map<Long, ClassNode> memo = this.memo;
+		long key = key(a, b);
+		ClassNode res = memo.get(key);
+		if(res == null) {
+			res = compute(getEntry(a), getEntry(b));
+			memo.put(key, res);
+		}
+		return res;
+	}
+
+	/**
+	 * @param a The supertype.
+	 * @param b The subtype.
+	 * @return Whether <code>a</code> is <code>b</code> or one of its ancestors.
+	 */
+	public boolean isAssignableFrom(ClassNode a, ClassNode b) {
+		return a == b || getEntry(b).ancestors.contains(a);
+	}
+
+	public boolean isIndexed(ClassNode cn) {
+		return entries.containsKey(cn);
+	}
+
+	/**
+	 * Forgets everything that was computed so far.
+	 */
+	public void invalidate() {
+		/* a query that sees the new memo also sees the cleared entries. */
+		entries.clear();
+		memo = new ConcurrentHashMap<>();
+	}
+
+	private ClassNode compute(Entry a, Entry b) {
+		if(b.ancestors.contains(a.node)) {
+			return a.node;
+		} else if(a.ancestors.contains(b.node)) {
+			return b.node;
+		} else if(Modifier.isInterface(a.node.node.access) || Modifier.isInterface(b.node.node.access)) {
+			return tree.getRootNode();
+		}
+
+		/* neither is an ancestor of the other, so the chains split below
+		 * the deepest class they share. */
+		ClassNode[] ca = a.chain, cb = b.chain;
+		for(int i = Math.min(ca.length, cb.length) - 1; i > 0; i--) {
+			if(ca[i] == cb[i]) {
+				return ca[i];
+			}
+		}
+		return tree.getRootNode();
+	}
+
+	private Entry getEntry(ClassNode cn) {
+		Entry e = entries.get(cn);
+		if(e == null) {
+			synchronized (tree) {
+				e = entries.get(cn);
+				if(e == null) {
+					e = build(cn);
+					entries.put(cn, e);
+				}
+			}
+		}
+		return e;
+	}
+
+	private Entry build(ClassNode cn) {
+		if(!tree.containsVertex(cn) && !tree.addVertex(cn)) {
+			/* e.g. a missing superclass: treat it as a direct subclass of
+			 * the root, as the class writer would. */
+			ClassNode root = tree.getRootNode();
+			Set<ClassNode> ancestors = new HashSet<>();
+			ancestors.add(cn);
+			ancestors.add(root);
+			return new Entry(cn, ancestors, new ClassNode[] { root, cn });
+		}
+
+		List<ClassNode> chain = new ArrayList<>();
+		for(ClassNode c = cn; c != null; c = tree.getSuper(c)) {
+			chain.add(c);
+		}
+		Collections.reverse(chain);
+		return new Entry(cn, new HashSet<>(tree.getAncestors(cn)), chain.toArray(new ClassNode[0]));
+	}
+
+	private static long key(ClassNode a, ClassNode b) {
+		int x = a.getNumericId(), y = b.getNumericId();
+		if(x > y) {
+			int t = x;
+			x = y;
+			y = t;
+		}
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	private static class Entry {
+		final ClassNode node;
+		/* includes the class itself. */
+		final Set<ClassNode> ancestors;
+		/* superclasses, root first and ending with the class itself. */
+		final ClassNode[] chain;
+
+		Entry(ClassNode node, Set<ClassNode> ancestors, ClassNode[] chain) {
+			this.node = node;
+			this.ancestors = ancestors;
+			this.chain = chain;
+		}
+	}
+}
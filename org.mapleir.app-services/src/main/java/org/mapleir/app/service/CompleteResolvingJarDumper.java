@@ -1,6 +1,5 @@
 package org.mapleir.app.service;
 
-import org.mapleir.asm.ClassHelper;
 import org.objectweb.asm.ClassWriter;
 import org.mapleir.asm.ClassNode;
 import org.mapleir.asm.MethodNode;
@@ -12,8 +11,6 @@ import org.topdank.byteio.util.Debug;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.lang.reflect.Modifier;
-import java.util.Collection;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 
@@ -25,16 +22,30 @@ import java.util.jar.JarOutputStream;
  */
 public class CompleteResolvingJarDumper implements JarDumper {
 
-	private final JarContents<?> contents;
-	private final ApplicationClassSource source;
+	protected final JarContents<?> contents;
+	protected final ApplicationClassSource source;
+	protected final IncrementalBuildCache cache;
 	/**
 	 * Creates a new JarDumper.
 	 *
 	 * @param contents Contents of jar.
 	 */
 	public CompleteResolvingJarDumper(JarContents<ClassNode> contents, ApplicationClassSource source) {
+		this(contents, source, null);
+	}
+
+	/**
+	 * Creates a new JarDumper that copies the previous output of classes
+	 * which have not changed since the last run straight from the cache,
+	 * and records the output of all other classes in it.
+	 *
+	 * @param contents Contents of jar.
+	 * @param cache The incremental build cache, or null.
+	 */
+	public CompleteResolvingJarDumper(JarContents<ClassNode> contents, ApplicationClassSource source, IncrementalBuildCache cache) {
 		this.contents = contents;
 		this.source = source;
+		this.cache = cache;
 	}
 
 	/**
@@ -47,19 +58,31 @@ public class CompleteResolvingJarDumper implements JarDumper {
 		if (file.exists())
 			file.delete();
 		file.createNewFile();
-		JarOutputStream jos = new JarOutputStream(new FileOutputStream(file));
-		int classesDumped = 0;
+		int classesDumped;
 		int resourcesDumped = 0;
-		for (ClassNode cn : contents.getClassContents()) {
-			classesDumped += dumpClass(jos, cn.getName(), cn);
-		}
-		for (JarResource res : contents.getResourceContents()) {
-			resourcesDumped += dumpResource(jos, res.getName(), res.getData());
+		try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(file))) {
+			classesDumped = dumpClasses(jos);
+			for (JarResource res : contents.getResourceContents()) {
+				resourcesDumped += dumpResource(jos, res.getName(), res.getData());
+			}
 		}
 		if(!Debug.debugging)
 			System.out.println("Dumped " + classesDumped + " classes and " + resourcesDumped + " resources to " + file.getAbsolutePath());
-		
-		jos.close();
+	}
+
+	/**
+	 * Writes all of the classes to the Jar, in order.
+	 *
+	 * @param out The {@link JarOutputStream}.
+	 * @throws IOException If there is a write error.
+	 * @return The amount of classes dumped.
+	 */
+	protected int dumpClasses(JarOutputStream out) throws IOException {
+		int classesDumped = 0;
+		for (ClassNode cn : contents.getClassContents()) {
+			classesDumped += dumpClass(out, cn.getName(), cn);
+		}
+		return classesDumped;
 	}
 
 	/**
@@ -73,12 +96,75 @@ public class CompleteResolvingJarDumper implements JarDumper {
 	 */
 	@Override
 	public int dumpClass(JarOutputStream out, String name, ClassNode cn) throws IOException {
+		return dumpClass(out, name, cn, serialiseClass(cn));
+	}
+
+	/**
+	 * Writes the {@link ClassNode} to the Jar once it has been serialised.
+	 * Every class is written through here, so this is the one to override to
+	 * change or skip what is written.
+	 *
+	 * @param out The {@link JarOutputStream}.
+	 * @param name The entry name.
+	 * @param cn The ClassNode.
+	 * @param bytes The bytes produced by {@link #serialiseClass(ClassNode)}.
+	 * @throws IOException If there is a write error.
+	 * @return The amount of things dumped, 1 or if you're not dumping it 0.
+	 */
+	protected int dumpClass(JarOutputStream out, String name, ClassNode cn, byte[] bytes) throws IOException {
+		return writeClass(out, cn, bytes);
+	}
+
+	/**
+	 * Produces the bytes to write for the {@link ClassNode}, either from the
+	 * incremental cache if the class is clean or by serialising it.
+	 *
+	 * @param cn The ClassNode.
+	 * @return The class file bytes, or null if the class could not be written.
+	 * @throws IOException If the cached output could not be read.
+	 */
+	protected byte[] serialiseClass(ClassNode cn) throws IOException {
+		if(cache != null && !cache.isDirty(cn.getName())) {
+			return cache.getOutput(cn.getName());
+		}
+		return toByteArray(cn);
+	}
+
+	/**
+	 * Writes the serialised {@link ClassNode} to the Jar and records it in
+	 * the incremental cache if it was rebuilt.
+	 *
+	 * @param out The {@link JarOutputStream}.
+	 * @param cn The ClassNode.
+	 * @param bytes The bytes produced by {@link #serialiseClass(ClassNode)}.
+	 * @throws IOException If there is a write error.
+	 * @return The amount of things dumped, 1 or if you're not dumping it 0.
+	 */
+	protected int writeClass(JarOutputStream out, ClassNode cn, byte[] bytes) throws IOException {
 		JarEntry entry = new JarEntry(cn.getName() + ".class");
 		out.putNextEntry(entry);
+
+		if(bytes != null) {
+			out.write(bytes);
+			if(cache != null && cache.isDirty(cn.getName())) {
+				cache.putOutput(cn.getName(), bytes);
+			}
+		}
+
+		return 1;
+	}
+
+	/**
+	 * Serialises the {@link ClassNode}, computing frames with the hierarchy
+	 * of the application and falling back to only computing maxes if that
+	 * fails.
+	 *
+	 * @param cn The ClassNode.
+	 * @return The class file bytes, or null if the class could not be written.
+	 */
+	public byte[] toByteArray(ClassNode cn) {
 		ClassTree tree = source.getClassTree();
-		
 
-		
 		for(MethodNode m : cn.getMethods()) {
 			if(m.node.instructions.size() > 10000) {
 				System.out.println("large method: " + m + " @" + m.node.instructions.size());
@@ -89,19 +175,19 @@ public class CompleteResolvingJarDumper implements JarDumper {
 			try {
 				ClassWriter writer = this.buildClassWriter(tree, ClassWriter.COMPUTE_FRAMES);
 				cn.node.accept(writer); // must use custom writer which overrides getCommonSuperclass
-				out.write(writer.toByteArray());
+				return writer.toByteArray();
 			} catch (Exception e) {
 				ClassWriter writer = this.buildClassWriter(tree, ClassWriter.COMPUTE_MAXS);
 				cn.node.accept(writer); // must use custom writer which overrides getCommonSuperclass
-				out.write(writer.toByteArray());
+				byte[] bytes = writer.toByteArray();
 				System.err.println("Failed to write " + cn.getName() + "! Writing with COMPUTE_MAXS, " +
 						"which may cause runtime abnormalities");
+				return bytes;
 			}
 		} catch (Exception e) {
 			System.err.println("Failed to write " + cn.getName() + "! Skipping class...");
+			return null;
 		}
-
-		return 1;
 	}
 
 	public ClassWriter buildClassWriter(ClassTree tree, int flags) {
@@ -115,68 +201,10 @@ public class CompleteResolvingJarDumper implements JarDumper {
 			// with ClassNodes rather than Classes.
 			@Override
 			protected String getCommonSuperClass(String type1, String type2) {
-				ClassNode ccn = source.findClassNode(type1);
-				ClassNode dcn = source.findClassNode(type2);
-
-				if(ccn == null) {
-//		    		return "java/lang/Object";
-					ClassNode c;
-					try {
-						c = ClassHelper.create(type1);
-					} catch (IOException e) {
-						e.printStackTrace();
-						return "java/lang/Object";
-					}
-					if(c == null) {
-						return "java/lang/Object";
-					}
-
-					tree.addVertex(ccn = c);
-					// classTree.build(c);
-					// return getCommonSuperClass(type1, type2);
-				}
-
-				if(dcn == null) {
-
-//		    		return "java/lang/Object";
-					ClassNode c;
-					try {
-						c = ClassHelper.create(type2);
-					} catch (IOException e) {
-						e.printStackTrace();
-						return "java/lang/Object";
-					}
-					if(c == null) {
-						return "java/lang/Object";
-					}
-
-					tree.addVertex(dcn = c);
-					// classTree.build(c)
-					// return getCommonSuperClass(type1, type2);
-				}
-
-				Collection<ClassNode> c = tree.getAllParents(ccn);
-				Collection<ClassNode> d = tree.getAllParents(dcn);
-
-				if(c.contains(dcn))
-					return type1;
-
-				if(d.contains(ccn))
-					return type2;
-
-				if(Modifier.isInterface(ccn.node.access) || Modifier.isInterface(dcn.node.access)) {
-					// enums as well?
-					return "java/lang/Object";
-				} else {
-					do {
-						ClassNode nccn = source.findClassNode(ccn.node.superName);
-						if(nccn == null)
-							break;
-						ccn = nccn;
-						c = tree.getAllParents(ccn);
-					} while(!c.contains(dcn));
-					return ccn.getName();
-				}
+				// answered by the tree's index, which is safe to use while
+				// classes are written from several threads at once.
+				ClassNode cn = tree.getCommonSuperType(type1, type2);
+				return cn != null ? cn.getName() : "java/lang/Object";
 			}
 		};
 	}
@@ -0,0 +1,335 @@
+package org.mapleir.app.service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.log4j.Logger;
+import org.mapleir.asm.ClassNode;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.Remapper;
+
+/**
+ * Remembers, between runs over successive builds of the same application,
+ * a fingerprint of every input class and the bytecode that was written for
+ * it. A class is dirty if its input changed, if it is new or if there is no
+ * previous output for it. A class that names a changed or removed class
+ * anywhere in its bytecode is dirty as well, since its frames merge types
+ * through their supertypes and its calls are resolved against their
+ * members, and so is every class below a dirty class in the
+ * {@link ClassTree} since its vtables depend on its supertypes. Only dirty
+ * classes need to be lifted, transformed and written again; the output of
+ * clean ones is copied through as is.
+ *
+ * <p> The cache also carries a key describing the rest of the environment,
+ * see {@link #runtimeKey(File)}. When the key changes, everything is dirty.
+ */
+public class IncrementalBuildCache {
+	private static final Logger LOGGER = Logger.getLogger(IncrementalBuildCache.class);
+
+	private static final int MAGIC = 0x4D494331; // MIC1
+	private static final int VERSION = 1;
+	private static final String INDEX = "index.bin";
+	private static final String CLASSES = "classes";
+
+	private final File dir;
+	private final String key;
+	private final Map<String, byte[]> previous;
+	private final Map<String, byte[]> current;
+	private final Set<String> dirty;
+
+	public IncrementalBuildCache(File dir, String key) {
+		this.dir = dir;
+		this.key = key;
+		previous = new HashMap<>();
+		current = new HashMap<>();
+		dirty = new HashSet<>();
+	}
+
+	/**
+	 * Reads the fingerprints recorded by the previous run, if there was one
+	 * with the same key.
+	 */
+	public void load() throws IOException {
+		previous.clear();
+		File index = new File(dir, INDEX);
+		if(!index.exists()) {
+			return;
+		}
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(index)))) {
+			if(in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(key)) {
+				LOGGER.info("Incremental cache is stale, rebuilding everything");
+				return;
+			}
+			int count = in.readInt();
+			for(int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				byte[] fp = new byte[in.readUnsignedShort()];
+				in.readFully(fp);
+				previous.put(name, fp);
+			}
+		}
+	}
+
+	/**
+	 * Describes the runtime library a build is done against, so that a
+	 * different or updated runtime invalidates the cache.
+	 *
+	 * @param runtime The runtime jar, the home of a JDK to read
+	 * <code>jrt:/</code> from, or null for the running JDK.
+	 * @return A key for {@link #IncrementalBuildCache(File, String)}.
+	 */
+	public static String runtimeKey(File runtime) throws IOException {
+		if(runtime != null && !runtime.isDirectory()) {
+			MessageDigest md = newDigest();
+			byte[] buf = new byte[1 << 16];
+			try(InputStream in = new FileInputStream(runtime)) {
+				int n;
+				while((n = in.read(buf)) != -1) {
+					md.update(buf, 0, n);
+				}
+			}
+			return "jar " + runtime.getAbsolutePath() + " " + toHex(md.digest());
+		}
+
+		File home;
+		String version;
+		if(runtime == null) {
+			home = new File(System.getProperty("java.home"));
+			version = System.getProperty("java.version");
+		} else {
+			home = runtime.getAbsoluteFile();
+			version = readReleaseVersion(home);
+		}
+		/* the module image is too big to hash on every run, but any update
+		 * in place rewrites it. */
+		File modules = new File(home, "lib/modules");
+		return "jrt " + home.getPath() + " " + version + " " + modules.length() + " " + modules.lastModified();
+	}
+
+	private static String readReleaseVersion(File home) throws IOException {
+		File release = new File(home, "release");
+		if(release.exists()) {
+			Properties props = new Properties();
+			try(InputStream in = new FileInputStream(release)) {
+				props.load(in);
+			}
+			String version = props.getProperty("JAVA_VERSION");
+			if(version != null) {
+				return version;
+			}
+		}
+		return "unknown";
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for(byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Computes the fingerprints of all classes in the given jar.
+	 *
+	 * @param jar The input jar.
+	 * @return A map of class names to fingerprints.
+	 */
+	public static Map<String, byte[]> fingerprint(File jar) throws IOException {
+		Map<String, byte[]> fingerprints = new HashMap<>();
+		MessageDigest md = newDigest();
+		byte[] buf = new byte[1 << 14];
+		try(ZipFile zip = new ZipFile(jar)) {
+			for(Enumeration<? extends ZipEntry> it = zip.entries(); it.hasMoreElements();) {
+				ZipEntry e = it.nextElement();
+				String name = e.getName();
+				if(!name.endsWith(".class")) {
+					continue;
+				}
+				try(InputStream in = zip.getInputStream(e)) {
+					int n;
+					while((n = in.read(buf)) != -1) {
+						md.update(buf, 0, n);
+					}
+				}
+				fingerprints.put(name.substring(0, name.length() - 6), md.digest());
+			}
+		}
+		return fingerprints;
+	}
+
+	/**
+	 * Compares the given fingerprints against the previous run and computes
+	 * the set of dirty classes.
+	 *
+	 * @param fingerprints The fingerprints of the current input.
+	 * @param app The application, used to find the classes that depend on a
+	 * changed one.
+	 * @return The names of the dirty classes.
+	 */
+	public Set<String> update(Map<String, byte[]> fingerprints, ApplicationClassSource app) {
+		current.clear();
+		current.putAll(fingerprints);
+		dirty.clear();
+
+		Set<String> changed = new HashSet<>();
+		for(Map.Entry<String, byte[]> e : fingerprints.entrySet()) {
+			String name = e.getKey();
+			if(!Arrays.equals(e.getValue(), previous.get(name)) || !getOutputFile(name).exists()) {
+				changed.add(name);
+			}
+		}
+		dirty.addAll(changed);
+
+		/* classes that were removed since the last run can still be named by
+		 * (or have been the supertypes of) the ones that are left. */
+		for(String name : previous.keySet()) {
+			if(!fingerprints.containsKey(name)) {
+				changed.add(name);
+			}
+		}
+
+		if(!changed.isEmpty()) {
+			for(ClassNode cn : app.iterate()) {
+				String name = cn.getName();
+				if(fingerprints.containsKey(name) && !dirty.contains(name) && references(cn, changed)) {
+					dirty.add(name);
+				}
+			}
+		}
+
+		ClassTree tree = app.getClassTree();
+		for(String name : new ArrayList<>(dirty)) {
+			ClassNode cn = app.findClassNode(name);
+			if(cn == null) {
+				continue;
+			}
+			for(ClassNode child : tree.getDescendants(cn)) {
+				if(app.isApplicationClass(child.getName())) {
+					dirty.add(child.getName());
+				}
+			}
+		}
+
+		/* drop stale output so that a class which fails to be written in this
+		 * run is not mistaken for a clean one in the next. */
+		for(String name : dirty) {
+			getOutputFile(name).delete();
+		}
+		return Collections.unmodifiableSet(dirty);
+	}
+
+	/**
+	 * @param name The name of a class.
+	 * @return Whether the class has to be processed again, which is also the
+	 * case for classes that were not part of the fingerprinted input.
+	 */
+	public boolean isDirty(String name) {
+		return dirty.contains(name) || !current.containsKey(name);
+	}
+
+	public byte[] getOutput(String name) throws IOException {
+		return Files.readAllBytes(getOutputFile(name).toPath());
+	}
+
+	public void putOutput(String name, byte[] bytes) throws IOException {
+		File f = getOutputFile(name);
+		File parent = f.getParentFile();
+		if(!parent.exists() && !parent.mkdirs()) {
+			throw new IOException("Could not create " + parent);
+		}
+		Files.write(f.toPath(), bytes);
+	}
+
+	/**
+	 * Records the fingerprints of the current run and removes the output of
+	 * classes that no longer exist.
+	 */
+	public void save() throws IOException {
+		if(!dir.exists() && !dir.mkdirs()) {
+			throw new IOException("Could not create " + dir);
+		}
+
+		for(String name : previous.keySet()) {
+			if(!current.containsKey(name)) {
+				getOutputFile(name).delete();
+			}
+		}
+
+		File tmp = File.createTempFile(INDEX, ".tmp", dir);
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(key);
+			out.writeInt(current.size());
+			for(Map.Entry<String, byte[]> e : current.entrySet()) {
+				out.writeUTF(e.getKey());
+				out.writeShort(e.getValue().length);
+				out.write(e.getValue());
+			}
+		}
+		Files.move(tmp.toPath(), new File(dir, INDEX).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		previous.clear();
+		previous.putAll(current);
+	}
+
+	private static boolean references(ClassNode cn, Set<String> types) {
+		TypeFinder finder = new TypeFinder(types);
+		/* the remapper only looks inside the members the next visitor asks
+		 * for, so hand out empty visitors for all of them. */
+		cn.node.accept(new ClassRemapper(new ClassVisitor(Opcodes.ASM9) {
+			@Override
+			public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+				return new FieldVisitor(Opcodes.ASM9) {};
+			}
+
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+				return new MethodVisitor(Opcodes.ASM9) {};
+			}
+		}, finder));
+		return finder.found;
+	}
+
+	/* sees every internal name in a class: supertypes, descriptors,
+	 * signatures, instructions, constants and handlers. */
+	private static class TypeFinder extends Remapper {
+		private final Set<String> types;
+		boolean found;
+
+		TypeFinder(Set<String> types) {
+			this.types = types;
+		}
+
+		@Override
+		public String map(String internalName) {
+			if(types.contains(internalName)) {
+				found = true;
+			}
+			return internalName;
+		}
+	}
+
+	private File getOutputFile(String name) {
+		return new File(new File(dir, CLASSES), name + ".class");
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch(NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -41,4 +41,11 @@ public interface InvocationResolver {
 	 * @return all matching methods
 	 */
 	Set<MethodNode> getHierarchyMethodChain(ClassNode cn, String name, String desc, boolean exact);
+
+	/**
+	 * Drops anything the resolver has cached. Must be called after the names of classes or methods have been
+	 * changed.
+	 */
+	default void invalidate() {
+	}
 }
@@ -0,0 +1,180 @@
+package org.mapleir.app.service;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import org.apache.log4j.Logger;
+import org.mapleir.asm.ClassHelper;
+import org.mapleir.asm.ClassNode;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * A runtime library read straight from the <code>jrt:/</code> filesystem of a
+ * JDK 9+ install, either the one we are running on or one at a given home
+ * directory. Only the package to module mapping is read up front; classes
+ * are parsed without code the first time they are looked up and names that
+ * could not be found are remembered so they are not searched for again.
+ * Loaded classes are added to the {@link ClassTree} straight away.
+ *
+ * <p> Closing the source closes the filesystem of a JDK at a given home; the
+ * filesystem of the running JDK is shared and stays open.
+ */
+public class JrtClassSource extends LibraryClassSource implements Closeable {
+	private static final Logger LOGGER = Logger.getLogger(JrtClassSource.class);
+
+	private final String javaHome;
+	private final FileSystem fs;
+	private final boolean ownsFs;
+	private final Map<String, List<Path>> packages;
+	private final Set<String> notContains;
+
+	public JrtClassSource(ApplicationClassSource parent) throws IOException {
+		this(parent, null);
+	}
+
+	public JrtClassSource(ApplicationClassSource parent, File javaHome) throws IOException {
+		super(parent);
+		URI uri = URI.create("jrt:/");
+		if(javaHome == null) {
+			this.javaHome = System.getProperty("java.home");
+			fs = FileSystems.getFileSystem(uri);
+			ownsFs = false;
+		} else {
+			this.javaHome = javaHome.getAbsolutePath();
+			fs = FileSystems.newFileSystem(uri, Collections.singletonMap("java.home", this.javaHome));
+			ownsFs = true;
+		}
+		packages = new HashMap<>();
+		notContains = new HashSet<>();
+
+		/* /packages/<pkg>/<module> links each package to the modules that
+		 * contain it. */
+		try(DirectoryStream<Path> pkgs = Files.newDirectoryStream(fs.getPath("/packages"))) {
+			for(Path pkg : pkgs) {
+				List<Path> modules = new ArrayList<>(1);
+				try(DirectoryStream<Path> mods = Files.newDirectoryStream(pkg)) {
+					for(Path mod : mods) {
+						modules.add(fs.getPath("/modules", mod.getFileName().toString()));
+					}
+				}
+				packages.put(pkg.getFileName().toString().replace('.', '/'), modules);
+			}
+		}
+	}
+
+	@Override
+	public synchronized boolean contains(String name) {
+		if(name == null) {
+			return false;
+		} else if(nodeMap.containsKey(name) || name.startsWith("[")) {
+			return true;
+		} else if(notContains.contains(name)) {
+			return false;
+		} else if(locate(name) != null) {
+			return true;
+		} else {
+			notContains.add(name);
+			return false;
+		}
+	}
+
+	@Override
+	protected LocateableClassNode findClass0(String name) {
+		synchronized(this) {
+			/* check the cache first. */
+			LocateableClassNode node = super.findClass0(name);
+			if(node != null || notContains.contains(name)) {
+				return node;
+			}
+		}
+
+		if(name.startsWith("[")) {
+			/* array classes only have the methods of Object. */
+			LocateableClassNode node = findClass0("java/lang/Object");
+			if(node != null) {
+				synchronized(this) {
+					nodeMap.put(name, node.node);
+				}
+			}
+			return node;
+		}
+
+		/* a new class goes into the tree as well, like in
+		 * InstalledRuntimeClassSource. the tree's lock is always taken before
+		 * ours so that a thread adding to the tree can come back here for
+		 * the supertypes. */
+		ClassTree tree = parent._getClassTree();
+		synchronized(tree != null ? tree : this) {
+			LocateableClassNode node = load(name);
+			if(node != null && tree != null && !tree.containsVertex(node.node)) {
+				tree.addVertex(node.node);
+			}
+			return node;
+		}
+	}
+
+	private synchronized LocateableClassNode load(String name) {
+		/* someone else may have loaded it while we were waiting. */
+		LocateableClassNode node = super.findClass0(name);
+		if(node != null || notContains.contains(name)) {
+			return node;
+		}
+
+		Path path = locate(name);
+		if(path == null) {
+			notContains.add(name);
+			return null;
+		}
+
+		try {
+			ClassNode cn = ClassHelper.create(Files.readAllBytes(path), ClassReader.SKIP_CODE);
+			nodeMap.put(cn.getName(), cn);
+			return new LocateableClassNode(this, cn, true);
+		} catch(IOException e) {
+			LOGGER.error(String.format("Could not load class from %s: %s", fs, name));
+			LOGGER.error(e);
+			notContains.add(name);
+			return null;
+		}
+	}
+
+	private Path locate(String name) {
+		int i = name.lastIndexOf('/');
+		List<Path> modules = packages.get(i == -1 ? "" : name.substring(0, i));
+		if(modules == null) {
+			return null;
+		}
+		for(Path mod : modules) {
+			Path p = mod.resolve(name + ".class");
+			if(Files.exists(p)) {
+				return p;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public boolean isIterable() {
+		return false;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(ownsFs) {
+			fs.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "JRT " + javaHome;
+	}
+}
@@ -0,0 +1,141 @@
+package org.mapleir.app.service;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.log4j.Logger;
+import org.mapleir.asm.ClassHelper;
+import org.mapleir.asm.ClassNode;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * A library backed by a jar that is only indexed up front. Classes are
+ * parsed (without code, like {@link InstalledRuntimeClassSource}) the first
+ * time they are looked up.
+ *
+ * <p> Parsed classes are kept in the node map for the lifetime of the
+ * source: the ClassTree and the caches built on it are keyed on node
+ * identity, so a class must never be parsed into a second node. Classes
+ * that fail to parse are remembered and reported as missing by
+ * {@link #contains(String)}. Once the application's {@link ClassTree} has
+ * been built, parsed classes are added to it straight away.
+ *
+ * <p> The jar stays open until the source is closed.
+ */
+public class LazyLibraryClassSource extends LibraryClassSource implements Closeable {
+	private static final Logger LOGGER = Logger.getLogger(LazyLibraryClassSource.class);
+
+	private final ZipFile jar;
+	private final Map<String, ZipEntry> index;
+	private final Set<String> failed;
+
+	public LazyLibraryClassSource(ApplicationClassSource parent, File file) throws IOException {
+		super(parent);
+		jar = new ZipFile(file);
+		index = new HashMap<>();
+		failed = new HashSet<>();
+		for (Enumeration<? extends ZipEntry> it = jar.entries(); it.hasMoreElements();) {
+			ZipEntry e = it.nextElement();
+			String name = e.getName();
+			if (name.endsWith(".class")) {
+				index.put(name.substring(0, name.length() - 6), e);
+			}
+		}
+	}
+
+	@Override
+	public boolean contains(String name) {
+		return findClass0(name) != null;
+	}
+
+	@Override
+	protected LocateableClassNode findClass0(String name) {
+		synchronized (this) {
+			ClassNode cn = nodeMap.get(name);
+			if (cn != null) {
+				return new LocateableClassNode(this, cn, false);
+			} else if (name == null || !index.containsKey(name) || failed.contains(name)) {
+				return null;
+			}
+		}
+
+		/* a new class goes into the tree as well, like in JrtClassSource.
+		 * the tree's lock is always taken before ours so that a thread adding
+		 * to the tree can come back here for the supertypes. */
+		ClassTree tree = parent._getClassTree();
+		synchronized (tree != null ? tree : this) {
+			ClassNode cn = get(name);
+			if (cn != null && tree != null && !tree.containsVertex(cn)) {
+				tree.addVertex(cn);
+			}
+			return cn != null ? new LocateableClassNode(this, cn, false) : null;
+		}
+	}
+
+	private synchronized ClassNode get(String name) {
+		/* someone else may have parsed it while we were waiting. */
+		ClassNode cn = nodeMap.get(name);
+		if (cn != null || !index.containsKey(name) || failed.contains(name)) {
+			return cn;
+		}
+		cn = load(name);
+		if (cn == null) {
+			failed.add(name);
+		} else {
+			nodeMap.put(name, cn);
+		}
+		return cn;
+	}
+
+	private ClassNode load(String name) {
+		try (InputStream in = jar.getInputStream(index.get(name))) {
+			return ClassHelper.create(in, ClassReader.SKIP_CODE);
+		} catch (IOException | RuntimeException e) {
+			LOGGER.error(String.format("Could not load %s from %s", name, jar.getName()));
+			LOGGER.error(e);
+			return null;
+		}
+	}
+
+	@Override
+	public Iterator<ClassNode> iterator() {
+		Iterator<String> names = new ArrayList<>(index.keySet()).iterator();
+		return new Iterator<ClassNode>() {
+			@Override
+			public boolean hasNext() {
+				return names.hasNext();
+			}
+
+			@Override
+			public ClassNode next() {
+				LocateableClassNode n = findClass0(names.next());
+				return n != null ? n.node : null;
+			}
+		};
+	}
+
+	@Override
+	public synchronized int size() {
+		return index.size() - failed.size();
+	}
+
+	@Override
+	public boolean isIterable() {
+		return false;
+	}
+
+	@Override
+	public void close() throws IOException {
+		jar.close();
+	}
+
+	@Override
+	public String toString() {
+		return jar.getName();
+	}
+}
@@ -0,0 +1,98 @@
+package org.mapleir.app.service;
+
+import org.mapleir.asm.ClassNode;
+import org.topdank.byteengineer.commons.data.JarContents;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.jar.JarOutputStream;
+
+/**
+ * A {@link CompleteResolvingJarDumper} that serialises classes, including
+ * frame computation, on a pool of worker threads. The calling thread writes
+ * the finished classes into the jar in the same order as the serial dumper,
+ * and at most a bounded number of serialised classes are held in memory
+ * waiting to be written.
+ *
+ * <p> The workers get the bytes of each class from
+ * {@link #serialiseClass(ClassNode)} and the calling thread hands them to
+ * {@link #dumpClass(JarOutputStream, String, ClassNode, byte[])}, so
+ * subclasses can override either.
+ */
+public class ParallelResolvingJarDumper extends CompleteResolvingJarDumper {
+
+	private final int parallelism;
+
+	public ParallelResolvingJarDumper(JarContents<ClassNode> contents, ApplicationClassSource source, int parallelism) {
+		this(contents, source, null, parallelism);
+	}
+
+	public ParallelResolvingJarDumper(JarContents<ClassNode> contents, ApplicationClassSource source, IncrementalBuildCache cache, int parallelism) {
+		super(contents, source, cache);
+		this.parallelism = parallelism;
+	}
+
+	@Override
+	protected int dumpClasses(JarOutputStream out) throws IOException {
+		/* build the tree up front rather than racing to do it. */
+		source.getClassTree();
+
+		int classesDumped = 0;
+		int window = parallelism * 4;
+		Deque<Pending> pending = new ArrayDeque<>(window);
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			for (ClassNode cn : contents.getClassContents()) {
+				if (pending.size() >= window) {
+					classesDumped += write(out, pending.poll());
+				}
+				pending.add(new Pending(cn, pool.submit(() -> {
+					try {
+						return serialiseClass(cn);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				})));
+			}
+			while (!pending.isEmpty()) {
+				classesDumped += write(out, pending.poll());
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return classesDumped;
+	}
+
+	private int write(JarOutputStream out, Pending p) throws IOException {
+		ClassNode cn = p.cn;
+		byte[] bytes;
+		try {
+			bytes = p.future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing " + cn.getName(), e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) cause).getCause();
+			}
+			throw new IOException("Failed to write " + cn.getName(), cause);
+		}
+		return dumpClass(out, cn.getName(), cn, bytes);
+	}
+
+	private static class Pending {
+		final ClassNode cn;
+		final Future<byte[]> future;
+
+		Pending(ClassNode cn, Future<byte[]> future) {
+			this.cn = cn;
+			this.future = future;
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package org.mapleir.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.mapleir.ir.locals.Local;
+import org.mapleir.ir.locals.impl.BasicLocal;
+import org.mapleir.ir.locals.impl.VersionedLocal;
+import org.mapleir.stdlib.collections.bitset.BitSetIndexer;
+import org.mapleir.stdlib.collections.bitset.GenericBitSet;
+import org.mapleir.stdlib.collections.bitset.IncrementalBitSetIndexer;
+import org.mapleir.stdlib.collections.map.NullPermeableHashMap;
+import org.mapleir.stdlib.collections.map.ValueCreator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link IncrementalBitSetIndexer}, keyed on equality and on
+ * identity, with the boxing hash map indexer it replaced. The keys are the
+ * locals of a method with the given number of local slots, each with a few
+ * versions, like the ones LocalsPool indexes during SSA construction.
+ *
+ * <pre>
+ * mvn -P bench package
+ * java -jar org.mapleir.benchmarks/target/benchmarks.jar BitSetIndexerBenchmark -prof gc
+ * </pre>
+ *
+ * {@code lookup} only asks for the indices of locals that are already
+ * indexed, {@code liveness} adds them to and tests them against a bit set,
+ * which is what the liveness analysers spend their time on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitSetIndexerBenchmark {
+
+	@Param({"hashMap", "equality", "identity"})
+	public String indexer;
+
+	@Param({"16", "256", "2048"})
+	public int locals;
+
+	private static final int VERSIONS = 4;
+
+	private BitSetIndexer<Local> index;
+	/* the locals in a random order, every local appearing once. */
+	private Local[] keys;
+
+	@Setup
+	public void setup() {
+		List<Local> list = new ArrayList<>();
+		for(int i = 0; i < locals; i++) {
+			boolean stack = (i & 1) != 0;
+			list.add(new BasicLocal(i / 2, stack));
+			for(int s = 0; s < VERSIONS; s++) {
+				list.add(new VersionedLocal(i / 2, s, stack));
+			}
+		}
+		Collections.shuffle(list, new Random(1));
+		keys = list.toArray(new Local[0]);
+
+		switch(indexer) {
+			case "hashMap":
+				index = new HashMapIndexer<>();
+				break;
+			case "equality":
+				index = new IncrementalBitSetIndexer<>();
+				break;
+			case "identity":
+				index = IncrementalBitSetIndexer.identity();
+				break;
+			default:
+				throw new IllegalArgumentException(indexer);
+		}
+		for(Local l : keys) {
+			index.getIndex(l);
+		}
+	}
+
+	@Benchmark
+	public void lookup(Blackhole bh) {
+		int sum = 0;
+		for(Local l : keys) {
+			sum += index.getIndex(l);
+		}
+		bh.consume(sum);
+	}
+
+	@Benchmark
+	public void liveness(Blackhole bh) {
+		GenericBitSet<Local> set = new GenericBitSet<>(index);
+		for(int i = 0; i < keys.length; i += 2) {
+			set.add(keys[i]);
+		}
+		int hits = 0;
+		for(Local l : keys) {
+			if(set.contains(l)) {
+				hits++;
+			}
+		}
+		bh.consume(hits);
+	}
+
+	/* the indexer as it was before: the index is boxed into a hash map and
+	 * the element put back into a reverse map on every lookup. */
+	private static class HashMapIndexer<N> implements BitSetIndexer<N> {
+		private final NullPermeableHashMap<N, Integer> map;
+		private final HashMap<Integer, N> reverseMap;
+
+		HashMapIndexer() {
+			map = new NullPermeableHashMap<>(new ValueCreator<Integer>() {
+				@Override
+				public Integer create() {
+					return map.size() + 1;
+				}
+			});
+			reverseMap = new HashMap<>();
+		}
+
+		@Override
+		public int getIndex(N n) {
+			int index = map.getNonNull(n);
+			reverseMap.put(index, n);
+			return index;
+		}
+
+		@Override
+		public N get(int index) {
+			return reverseMap.get(index);
+		}
+
+		@Override
+		public boolean isIndexed(N o) {
+			return map.containsKey(o);
+		}
+	}
+}
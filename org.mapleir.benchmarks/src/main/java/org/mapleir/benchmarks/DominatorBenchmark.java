@@ -0,0 +1,150 @@
+package org.mapleir.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mapleir.asm.ClassNode;
+import org.mapleir.asm.MethodNode;
+import org.mapleir.flowgraph.algorithms.TarjanDominanceComputor;
+import org.mapleir.flowgraph.edges.FlowEdge;
+import org.mapleir.ir.cfg.BasicBlock;
+import org.mapleir.ir.cfg.ControlFlowGraph;
+import org.mapleir.ir.cfg.builder.ControlFlowGraphBuilder;
+import org.mapleir.stdlib.collections.graph.FrozenDirectedGraph;
+import org.mapleir.stdlib.collections.graph.algorithms.DominatorEngine;
+import org.mapleir.stdlib.collections.graph.algorithms.ExtendedDfs;
+import org.mapleir.stdlib.collections.graph.algorithms.LT79Dom;
+import org.mapleir.stdlib.collections.graph.algorithms.SemiNCADom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.topdank.byteengineer.commons.data.JarInfo;
+import org.topdank.byteio.in.SingleJarDownloader;
+
+/**
+ * Compares the dominator engines on the CFGs of the methods of a jar, grouped
+ * by the number of blocks. The time reported is for the whole group.
+ *
+ * <pre>
+ * mvn -P bench package
+ * java -jar org.mapleir.benchmarks/target/benchmarks.jar DominatorBenchmark -p jar=/path/to/some.jar
+ * </pre>
+ *
+ * TarjanDominanceComputor always computes every dominance frontier and
+ * iterated frontier, so with {@code frontiers=true} the other engines are
+ * asked for the iterated frontier of every block as well, which is how
+ * SSAGenPass uses them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DominatorBenchmark {
+
+	@Param("")
+	public String jar;
+
+	/* inclusive ranges of CFG sizes, in blocks. */
+	@Param({"1-4", "5-16", "17-64", "65-256", "257-1024", "1025-"})
+	public String blocks;
+
+	@Param({"false", "true"})
+	public boolean frontiers;
+
+	private final List<ControlFlowGraph> cfgs = new ArrayList<>();
+	private final List<FrozenDirectedGraph<BasicBlock, FlowEdge<BasicBlock>>> frozen = new ArrayList<>();
+	private final List<BasicBlock> entries = new ArrayList<>();
+	private final List<List<BasicBlock>> preOrders = new ArrayList<>();
+
+	@Setup
+	public void setup() throws Exception {
+		if(jar.isEmpty()) {
+			throw new IllegalArgumentException("run with -p jar=<path to a jar>");
+		}
+		String[] range = blocks.split("-", -1);
+		int min = Integer.parseInt(range[0]);
+		int max = range[1].isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(range[1]);
+
+		SingleJarDownloader<ClassNode> dl = new SingleJarDownloader<>(new JarInfo(new File(jar)));
+		dl.download();
+		for(ClassNode cn : dl.getJarContents().getClassContents()) {
+			for(MethodNode m : cn.getMethods()) {
+				ControlFlowGraph cfg;
+				try {
+					cfg = ControlFlowGraphBuilder.build(m);
+				} catch(RuntimeException e) {
+					continue;
+				}
+				if(cfg.size() < min || cfg.size() > max) {
+					continue;
+				}
+				BasicBlock entry = cfg.getEntries().iterator().next();
+				List<BasicBlock> preOrder = new ExtendedDfs<>(cfg, ExtendedDfs.PRE).run(entry).getPreOrder();
+				try {
+					/* skip the graphs this one can't handle so that every
+					 * engine sees the same ones. */
+					new TarjanDominanceComputor<>(cfg, preOrder);
+				} catch(RuntimeException e) {
+					continue;
+				}
+				cfgs.add(cfg);
+				frozen.add(cfg.freeze());
+				entries.add(entry);
+				preOrders.add(preOrder);
+			}
+		}
+		if(cfgs.isEmpty()) {
+			throw new IllegalStateException("no methods with " + blocks + " blocks in " + jar);
+		}
+	}
+
+	@Benchmark
+	public void lt79(Blackhole bh) {
+		for(int i = 0; i < frozen.size(); i++) {
+			consume(bh, new LT79Dom<>(frozen.get(i), entries.get(i)), i);
+		}
+	}
+
+	@Benchmark
+	public void semiNca(Blackhole bh) {
+		for(int i = 0; i < frozen.size(); i++) {
+			consume(bh, new SemiNCADom<>(frozen.get(i), entries.get(i)), i);
+		}
+	}
+
+	@Benchmark
+	public void selected(Blackhole bh) {
+		for(int i = 0; i < frozen.size(); i++) {
+			consume(bh, DominatorEngine.create(frozen.get(i), entries.get(i)), i);
+		}
+	}
+
+	@Benchmark
+	public void tarjanDominanceComputor(Blackhole bh) {
+		for(int i = 0; i < cfgs.size(); i++) {
+			bh.consume(new TarjanDominanceComputor<>(cfgs.get(i), preOrders.get(i)));
+		}
+	}
+
+	private void consume(Blackhole bh, DominatorEngine<BasicBlock> doms, int i) {
+		if(frontiers) {
+			for(BasicBlock b : preOrders.get(i)) {
+				bh.consume(doms.getIteratedDominanceFrontier(b));
+			}
+		}
+		bh.consume(doms);
+	}
+}
@@ -563,7 +563,7 @@ public class BoissinotDestructor {
 		BasicBlock defB = defuse.defs.get(b);
 		if (defA != defB) {
 			// typical case (between blocks)
-			return resolver.domc.getDominates(defA).contains(defB);
+			return resolver.domc.dominates(defA, defB);
 		} else {
 			// special case (same basic block, rely on statement ordering within block)
 			return checkPreDomOrder(a, b);
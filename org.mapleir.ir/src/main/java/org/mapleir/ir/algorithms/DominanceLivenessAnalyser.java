@@ -6,8 +6,9 @@ import org.mapleir.ir.cfg.ControlFlowGraph;
 import org.mapleir.ir.locals.Local;
 import org.mapleir.stdlib.collections.bitset.GenericBitSet;
 import org.mapleir.stdlib.collections.graph.FastGraphEdge;
+import org.mapleir.stdlib.collections.graph.FrozenDirectedGraph;
 import org.mapleir.stdlib.collections.graph.algorithms.ExtendedDfs;
-import org.mapleir.stdlib.collections.graph.algorithms.LT79Dom;
+import org.mapleir.stdlib.collections.graph.algorithms.DominatorEngine;
 import org.mapleir.stdlib.collections.map.NullPermeableHashMap;
 
 import java.util.List;
@@ -31,7 +32,7 @@ public class DominanceLivenessAnalyser {
 	public final ExtendedDfs<BasicBlock> dfs;
 	public final NullPermeableHashMap<BasicBlock, GenericBitSet<BasicBlock>> backEdges;
 	public final GenericBitSet<BasicBlock> backTargets;
-	public final LT79Dom<BasicBlock, FlowEdge<BasicBlock>> domc;
+	public final DominatorEngine<BasicBlock> domc;
 	
 	private final List<BasicBlock> preOrder, postOrder;
 	private final NullPermeableHashMap<BasicBlock, GenericBitSet<BasicBlock>> sdoms;
@@ -45,12 +46,14 @@ public class DominanceLivenessAnalyser {
 		tq = new NullPermeableHashMap<>(cfg);
 		sdoms = new NullPermeableHashMap<>(cfg);
 
-		dfs = new ExtendedDfs<>(cfg, ExtendedDfs.EDGES).run(entry);
+		// both searches below only read the graph, so share one snapshot.
+		FrozenDirectedGraph<BasicBlock, FlowEdge<BasicBlock>> frozen = cfg.freeze();
+		dfs = new ExtendedDfs<>(frozen, ExtendedDfs.EDGES).run(entry);
 		backEdges = new NullPermeableHashMap<>(cfg);
 		backTargets = cfg.createBitSet();
 		reducedCfg = reduce(cfg, dfs.getEdges(ExtendedDfs.BACK));
 
-		domc = new LT79Dom<>(cfg, entry);
+		domc = DominatorEngine.create(frozen, entry);
 		preOrder = domc.getPreOrder();
 		postOrder = domc.getPostOrder();
 		
@@ -74,7 +77,7 @@ public class DominanceLivenessAnalyser {
 		this.defuse = defuse;
 	}
 
-	private void computeStrictDominators(LT79Dom<BasicBlock, FlowEdge<BasicBlock>> dom) {
+	private void computeStrictDominators(DominatorEngine<BasicBlock> dom) {
 		for (BasicBlock b : postOrder) {
 			Set<BasicBlock> set = sdoms.getNonNull(b);
 			set.addAll(dom.getDominates(b));
@@ -96,9 +99,11 @@ public class DominanceLivenessAnalyser {
 			tq.getNonNull(b).add(b);
 
 			// Tup(t) = set of unreachable backedge targets from reachable sources
-			GenericBitSet<BasicBlock> tup = backEdges.getNonNull(b).relativeComplement(rv.get(b));
-			for (BasicBlock w : tup) {
-				tq.get(b).addAll(tq.get(w));
+			GenericBitSet<BasicBlock> reachable = rv.get(b);
+			for (BasicBlock w : backEdges.getNonNull(b)) {
+				if (!reachable.contains(w)) {
+					tq.get(b).addAll(tq.get(w));
+				}
 			}
 		}
 	}
@@ -120,10 +125,10 @@ public class DominanceLivenessAnalyser {
 			return true;
 		}
 
-		GenericBitSet<BasicBlock> tqa = tq.get(b).intersect(sdoms.getNonNull(defBlock));
-		for (BasicBlock t : tqa) {
-			GenericBitSet<BasicBlock> rt = rv.get(t).intersect(defuse.uses.get(l));
-			if (!rt.isEmpty())
+		GenericBitSet<BasicBlock> uses = defuse.uses.get(l);
+		GenericBitSet<BasicBlock> sdomdef = sdoms.getNonNull(defBlock);
+		for (BasicBlock t : tq.get(b)) {
+			if (sdomdef.contains(t) && rv.get(t).intersects(uses))
 				return true;
 		}
 
@@ -135,22 +140,23 @@ public class DominanceLivenessAnalyser {
 
 		GenericBitSet<BasicBlock> uses = defuse.uses.getNonNull(a);
 		if (defBlock == q) {
-			return !uses.relativeComplement(defBlock).isEmpty() || defuse.phiUses.get(defBlock).contains(a);
+			// is there a use other than in the def block itself
+			return uses.size() > (uses.contains(defBlock) ? 1 : 0) || defuse.phiUses.get(defBlock).contains(a);
 		}
 
 		boolean targ = !backTargets.contains(q);
 
 		GenericBitSet<BasicBlock> sdomdef = sdoms.getNonNull(defBlock);
 		if (sdomdef.contains(q)) {
-			GenericBitSet<BasicBlock> tqa = tq.get(q).intersect(sdomdef);
+			for (BasicBlock t : tq.get(q)) {
+				if (!sdomdef.contains(t))
+					continue;
 
-			for (BasicBlock t : tqa) {
-				GenericBitSet<BasicBlock> u = uses.copy();
-				if (t == q && targ)
-					u.remove(q);
+				GenericBitSet<BasicBlock> u = uses;
+				if (t == q && targ && uses.contains(q))
+					u = uses.relativeComplement(q);
 
-				GenericBitSet<BasicBlock> rtt = rv.getNonNull(t).intersect(u);
-				if (!rtt.isEmpty())
+				if (rv.getNonNull(t).intersects(u))
 					return true;
 			}
 		}
@@ -36,12 +36,10 @@ public class LocalsReallocator {
                     types.getNonNull(local).add(var.getType());
                 }
 
-                for(Expr s : stmt.enumerateOnlyChildren()) {
-                    if(s.getOpcode() == Opcode.LOCAL_LOAD) {
-                        VarExpr var = (VarExpr) s;
-                        Local local = var.getLocal();
-                        types.getNonNull(local).add(var.getType());
-                    }
+                for(Expr s : stmt.walk(Opcode.LOCAL_LOAD)) {
+                    VarExpr var = (VarExpr) s;
+                    Local local = var.getLocal();
+                    types.getNonNull(local).add(var.getType());
                 }
             }
         }
@@ -144,13 +142,11 @@ public class LocalsReallocator {
                     }
                 }
 
-                for(Expr s : stmt.enumerateOnlyChildren()) {
-                    if(s.getOpcode() == Opcode.LOCAL_LOAD) {
-                        VarExpr v = (VarExpr) s;
-                        Local l = v.getLocal();
-                        if(remap.containsKey(l)) {
-                            v.setLocal(remap.get(l));
-                        }
+                for(Expr s : stmt.walk(Opcode.LOCAL_LOAD)) {
+                    VarExpr v = (VarExpr) s;
+                    Local l = v.getLocal();
+                    if(remap.containsKey(l)) {
+                        v.setLocal(remap.get(l));
                     }
                 }
             }
@@ -1,6 +1,6 @@
 package org.mapleir.ir.algorithms;
 
-import java.util.LinkedList;
+import java.util.ArrayDeque;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Queue;
@@ -37,6 +37,7 @@ public class SSABlockLivenessAnalyser implements Liveness<BasicBlock> {
 	private final NullPermeableHashMap<BasicBlock, GenericBitSet<Local>> in;
 
 	private final Queue<BasicBlock> queue;
+	private final GenericBitSet<BasicBlock> queued;
 	private final LocalsPool locals;
 
 	private final ControlFlowGraph cfg;
@@ -51,7 +52,8 @@ public class SSABlockLivenessAnalyser implements Liveness<BasicBlock> {
 		out = new NullPermeableHashMap<>(locals);
 		in = new NullPermeableHashMap<>(locals);
 
-		queue = new LinkedList<>();
+		queue = new ArrayDeque<>();
+		queued = cfg.createBitSet();
 
 		this.cfg = cfg;
 
@@ -59,7 +61,7 @@ public class SSABlockLivenessAnalyser implements Liveness<BasicBlock> {
 	}
 
 	private void enqueue(BasicBlock b) {
-		if (!queue.contains(b)) {
+		if (queued.add(b)) {
 			// System.out.println("Enqueue " + b);
 			queue.add(b);
 		}
@@ -126,11 +128,9 @@ public class SSABlockLivenessAnalyser implements Liveness<BasicBlock> {
 					// 2/17/19: we now no longer need treat handler edges differently, as
 					// NaturalisationPass should eliminate all natural flow into handlers.
 				}
-				for (Expr c : stmt.enumerateOnlyChildren()) {
-					if (c.getOpcode() == Opcode.LOCAL_LOAD) {
-						VarExpr v = (VarExpr) c;
-						use.get(b).add(v.getLocal());
-					}
+				for (Expr c : stmt.walk(Opcode.LOCAL_LOAD)) {
+					VarExpr v = (VarExpr) c;
+					use.get(b).add(v.getLocal());
 				}
 			}
 		}
@@ -150,17 +150,23 @@ public class SSABlockLivenessAnalyser implements Liveness<BasicBlock> {
 		// +use and -def affect out
 		// -use and +def affect in
 		// negative handling always goes after positive and any adds
+		GenericBitSet<Local> spare = locals.createBitSet();
 		while (!queue.isEmpty()) {
 			BasicBlock b = queue.remove();
+			queued.remove(b);
 			// System.out.println("\n\nProcessing " + b.getId());
 
-			GenericBitSet<Local> oldIn = new GenericBitSet<>(in.get(b));
-			GenericBitSet<Local> curIn = new GenericBitSet<>(use.get(b));
-			GenericBitSet<Local> curOut = locals.createBitSet();
+			// the sets are updated in place; in[n] is swapped with a spare set so that
+			// the old one can still be compared against.
+			GenericBitSet<Local> oldIn = in.get(b);
+			GenericBitSet<Local> curIn = spare;
+			GenericBitSet<Local> curOut = out.get(b);
+			curIn.clear();
+			curOut.clear();
 
 			// out[n] = U(s in succ[n])(in[s])
 			for (FlowEdge<BasicBlock> succEdge : cfg.getEdges(b))
-				curOut.addAll(in.get(succEdge.dst()));
+				in.get(succEdge.dst()).unionInto(curOut);
 
 			// negative phi handling for defs
 			for (FlowEdge<BasicBlock> succEdge : cfg.getEdges(b))
@@ -168,25 +174,26 @@ public class SSABlockLivenessAnalyser implements Liveness<BasicBlock> {
 
 			// positive phi handling for uses, see §5.4.2 "Meaning of copy statements in Sreedhar's method"
 			for (FlowEdge<BasicBlock> succEdge : cfg.getEdges(b))
-				curOut.addAll(phiUse.get(succEdge.dst()).getNonNull(b));
+				phiUse.get(succEdge.dst()).getNonNull(b).unionInto(curOut);
 
-			// negative phi handling for uses
-			for (FlowEdge<BasicBlock> predEdge : cfg.getReverseEdges(b))
-				curIn.removeAll(phiUse.get(b).getNonNull(predEdge.src()).relativeComplement(use.get(b)));
+			// negative phi handling for uses: in[n] starts off as use[n], from which
+			// removing phi uses that are not in use[n] takes nothing away.
+			use.get(b).unionInto(curIn);
 
 			// positive phi handling for defs
-			curIn.addAll(phiDef.get(b));
-			oldIn.addAll(phiDef.get(b));
+			phiDef.get(b).unionInto(curIn);
+			phiDef.get(b).unionInto(oldIn);
 
 			// in[n] = use[n] U(out[n] - def[n])
-			curIn.addAll(curOut.relativeComplement(def.get(b)));
+			curOut.andNotInto(def.get(b), curIn);
 
 			in.put(b, curIn);
-			out.put(b, curOut);
+			spare = oldIn;
 
 			// queue preds if dataflow state changed
 			if (!oldIn.equals(curIn)) {
-				cfg.getReverseEdges(b).stream().map(e -> e.src()).forEach(this::enqueue);
+				for (FlowEdge<BasicBlock> predEdge : cfg.getReverseEdges(b))
+					enqueue(predEdge.src());
 
 				// for (BasicBlock b2 : cfg.vertices())
 				// System.out.println(b2.getId() + " |||| IN: " + in.get(b2) + " ||||| OUT: " + out.get(b2));
@@ -53,9 +53,8 @@ public class SSADefUseMap implements Opcode {
 				phiUses.getNonNull(b);
 
 				usedLocals.clear();
-				for (Expr s : stmt.enumerateOnlyChildren())
-					if(s.getOpcode() == Opcode.LOCAL_LOAD)
-						usedLocals.add(((VarExpr) s).getLocal());
+				for (Expr s : stmt.walk(Opcode.LOCAL_LOAD))
+					usedLocals.add(((VarExpr) s).getLocal());
 
 				build(b, stmt, usedLocals);
 			}
@@ -76,9 +75,8 @@ public class SSADefUseMap implements Opcode {
 				phiUses.getNonNull(b);
 
 				usedLocals.clear();
-				for(Expr s : stmt.enumerateOnlyChildren())
-					if(s.getOpcode() == Opcode.LOCAL_LOAD)
-						usedLocals.add(((VarExpr) s).getLocal());
+				for(Expr s : stmt.walk(Opcode.LOCAL_LOAD))
+					usedLocals.add(((VarExpr) s).getLocal());
 
 				buildIndex(b, stmt, index++, usedLocals);
 				build(b, stmt, usedLocals);
@@ -1,6 +1,5 @@
 package org.mapleir.ir.cfg;
 
-import com.google.common.collect.Streams;
 import org.mapleir.dot4j.model.DotGraph;
 import org.mapleir.flowgraph.ExceptionRange;
 import org.mapleir.flowgraph.FlowGraph;
@@ -27,9 +26,11 @@ import org.mapleir.stdlib.util.TabbedStringWriter;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.mapleir.ir.code.Opcode.PHI_STORE;
 
@@ -40,25 +41,34 @@ public class ControlFlowGraph extends FlowGraph<BasicBlock, FlowEdge<BasicBlock>
 
 	// used for assigning unique id's to basicblocks. ugly hack
 	// fyi, we start at one arbitrarily.
-	private int blockCounter = 1;
+	// block ids index bitsets, so they are kept dense per graph rather than
+	// leased from a global allocator.
+	private final AtomicInteger blockCounter;
 
 	public ControlFlowGraph(LocalsPool locals, JavaDesc javaDesc) {
 		this.locals = locals;
 		this.javaDesc = javaDesc;
+		blockCounter = new AtomicInteger(1);
 	}
 	
 	public ControlFlowGraph(ControlFlowGraph cfg) {
 		super(cfg);
 		locals = cfg.locals;
 		javaDesc = cfg.javaDesc;
+		/* the blocks are shared with the original graph, so carry on
+		 * numbering after them. */
+		blockCounter = new AtomicInteger(cfg.blockCounter.get());
 	}
 
 	public int makeBlockId() {
-		return blockCounter++;
+		return blockCounter.getAndIncrement();
 	}
 
+    /**
+     * @return Every statement and the expressions below it, in pre-order.
+     */
     public Stream<CodeUnit> allExprStream() {
-   		return vertices().stream().flatMap(Collection::stream).map(Stmt::enumerateWithSelf).flatMap(Streams::stream);
+   		return vertices().stream().flatMap(Collection::stream).flatMap(s -> StreamSupport.stream(s.spliterator(true), false));
    	}
 
     /**
@@ -94,13 +104,11 @@ public class ControlFlowGraph extends FlowGraph<BasicBlock, FlowEdge<BasicBlock>
 	 */
 	public void exciseStmt(Stmt c) {
 		// delete uses
-		for(Expr e : c.enumerateOnlyChildren()) {
-			if(e.getOpcode() == Opcode.LOCAL_LOAD) {
-				VarExpr v = (VarExpr) e;
-				
-				VersionedLocal l = (VersionedLocal) v.getLocal();
-				locals.uses.get(l).remove(v);
-			}
+		for(Expr e : c.walk(Opcode.LOCAL_LOAD)) {
+			VarExpr v = (VarExpr) e;
+			
+			VersionedLocal l = (VersionedLocal) v.getLocal();
+			locals.uses.get(l).remove(v);
 		}
 		
 		c.getBlock().remove(c);
@@ -205,7 +213,7 @@ public class ControlFlowGraph extends FlowGraph<BasicBlock, FlowEdge<BasicBlock>
 		clear();
 		
 		// rename and add blocks
-		blockCounter = 1;
+		blockCounter.set(1);
 		for(BasicBlock b : order) {
 			b.setId(makeBlockId());
 			addVertex(b);
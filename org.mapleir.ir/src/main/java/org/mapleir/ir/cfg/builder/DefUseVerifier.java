@@ -42,12 +42,10 @@ public class DefUseVerifier implements Opcode {
 					defs.put(copy.getVariable().getLocal(), copy);
 				}
 				
-				for(Expr e : stmt.enumerateOnlyChildren()) {
-					if(e.getOpcode() == Opcode.LOCAL_LOAD) {
-						VarExpr v = (VarExpr) e;
-						
-						uses.getNonNull((VersionedLocal)v.getLocal()).add(v);
-					}
+				for(Expr e : stmt.walk(Opcode.LOCAL_LOAD)) {
+					VarExpr v = (VarExpr) e;
+					
+					uses.getNonNull((VersionedLocal)v.getLocal()).add(v);
 				}
 			}
 		}
@@ -1,5 +1,6 @@
 package org.mapleir.ir.cfg.builder;
 
+import org.mapleir.asm.MethodDescriptor;
 import org.mapleir.asm.MethodNode;
 import org.mapleir.flowgraph.ExceptionRange;
 import org.mapleir.flowgraph.edges.*;
@@ -189,7 +190,7 @@ public class GenerationPass extends ControlFlowGraphBuilder.BuilderPass {
 	}
 	
 	protected void defineInputs(MethodNode m, BasicBlock b) {
-		Type[] args = Type.getArgumentTypes(m.getDesc());
+		Type[] args = m.getDescriptor().getArgumentTypes();
 		int index = 0;
 		if((m.node.access & Opcodes.ACC_STATIC) == 0) {
 			addEntry(index, Type.getType("L" + m.getOwner() + ";"), b);
@@ -452,7 +453,7 @@ public class GenerationPass extends ControlFlowGraphBuilder.BuilderPass {
 			case FRETURN:
 			case DRETURN:
 			case ARETURN:
-				_return(Type.getReturnType(builder.method.getDesc()));
+				_return(builder.method.getDescriptor().getReturnType());
 				break;
 			case IADD:
 			case LADD:
@@ -1145,7 +1146,7 @@ public class GenerationPass extends ControlFlowGraphBuilder.BuilderPass {
 	protected void _dynamic_call(Handle bsm, Object[] bsmArgs, String resolvedCalleeDesc, String boundName) {
 		save_stack(false);
 		// these are the additional bound variables passed into the boostrap method (typically metafactory) 
-		Expr[] boundArgs = new Expr[Type.getArgumentTypes(resolvedCalleeDesc).length];
+		Expr[] boundArgs = new Expr[MethodDescriptor.getArgumentCount(resolvedCalleeDesc)];
 		for(int i = boundArgs.length - 1; i >= 0; i--) {
 			boundArgs[i] = pop();
 		}
@@ -1170,7 +1171,7 @@ public class GenerationPass extends ControlFlowGraphBuilder.BuilderPass {
 	
 	protected void _call(int op, String owner, String name, String desc) {
 		save_stack(false);
-		int argLen = Type.getArgumentTypes(desc).length + (op == INVOKESTATIC ? 0 : 1);
+		int argLen = MethodDescriptor.getArgumentCount(desc) + (op == INVOKESTATIC ? 0 : 1);
 		Expr[] args = new Expr[argLen];
 		for (int i = args.length - 1; i >= 0; i--) {
 			args[i] = pop();
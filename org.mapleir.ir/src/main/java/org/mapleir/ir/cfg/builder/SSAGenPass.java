@@ -27,7 +27,8 @@ import org.mapleir.ir.locals.LocalsPool;
 import org.mapleir.ir.locals.impl.BasicLocal;
 import org.mapleir.ir.locals.impl.VersionedLocal;
 import org.mapleir.ir.utils.CFGUtils;
-import org.mapleir.stdlib.collections.graph.algorithms.LT79Dom;
+import org.mapleir.stdlib.collections.SmallSet;
+import org.mapleir.stdlib.collections.graph.algorithms.DominatorEngine;
 import org.mapleir.stdlib.collections.graph.algorithms.SimpleDfs;
 import org.mapleir.stdlib.collections.list.IndexedList;
 import org.mapleir.stdlib.collections.map.NullPermeableHashMap;
@@ -61,7 +62,8 @@ public class SSAGenPass extends ControlFlowGraphBuilder.BuilderPass {
 	private final NullPermeableHashMap<VersionedLocal, Set<VersionedLocal>> shadowed;
 
 	private LocalsPool pool;
-	private LT79Dom<BasicBlock, FlowEdge<BasicBlock>> doms;
+	private List<VersionedLocal> usedLocals;
+	private DominatorEngine<BasicBlock> doms;
 	
 	private Liveness<BasicBlock> liveness;
 
@@ -472,7 +474,7 @@ public class SSAGenPass extends ControlFlowGraphBuilder.BuilderPass {
 		v.setLocal(ssaL);
 		pool.defs.put(ssaL, copy);
 		types.put(ssaL, copy.getExpression().getType());
-		pool.uses.put(ssaL, new HashSet<>());
+		pool.uses.put(ssaL, new SmallSet<>());
 		
 		return ssaL;
 	}
@@ -1077,12 +1079,8 @@ public class SSAGenPass extends ControlFlowGraphBuilder.BuilderPass {
 	private int pruneStatements() {
 		int s = pool.uses.size();
 		
-		Iterator<Entry<VersionedLocal, Set<VarExpr>>> it = pool.uses.entrySet().iterator();
-		while(it.hasNext()) {
-			Entry<VersionedLocal, Set<VarExpr>> e = it.next();
-			
-			VersionedLocal vl = e.getKey();
-			if(e.getValue().size() == 0) {
+		for(VersionedLocal vl : usedLocals()) {
+			if(pool.uses.get(vl).size() == 0) {
 				AbstractCopyStmt def = pool.defs.get(vl);
 				/* i.e. it has not been shadowed. */
 				if(def != null && def.getBlock() != null && prune(def)) {
@@ -1090,7 +1088,7 @@ public class SSAGenPass extends ControlFlowGraphBuilder.BuilderPass {
 						throw new RuntimeException(vl + ", " + def);
 					}
 					/* use pool remove */
-					it.remove();
+					pool.uses.remove(vl);
 					pool.defs.remove(vl);
 					
 				}
@@ -1294,13 +1292,9 @@ public class SSAGenPass extends ControlFlowGraphBuilder.BuilderPass {
 	private int processDeferredTranslations() {
 		int i = 0;
 		
-		Iterator<Entry<VersionedLocal, Set<VarExpr>>> it = pool.uses.entrySet().iterator();
-		while(it.hasNext()) {
-			Entry<VersionedLocal, Set<VarExpr>> e = it.next();
-			VersionedLocal vl = e.getKey();
-			
+		for(VersionedLocal vl : usedLocals()) {
 			if(deferred.contains(vl) || vl.isStack()) {
-				Set<VarExpr> useSet = e.getValue();
+				Set<VarExpr> useSet = pool.uses.get(vl);
 				AbstractCopyStmt def = pool.defs.get(vl);
 				if (def != null && useSet.size() == 1) {
 					/* In this case, the only place that the value
@@ -1349,7 +1343,7 @@ public class SSAGenPass extends ControlFlowGraphBuilder.BuilderPass {
 								parent.writeAt(rhs, parent.indexOf(use));
 								
 								i++;
-								it.remove();
+								pool.uses.remove(vl);
 							}
 						}
 					}
@@ -1361,6 +1355,35 @@ public class SSAGenPass extends ControlFlowGraphBuilder.BuilderPass {
 		return i;
 	}
 	
+	/* the locals that have a use set, in the order the two passes above
+	 * visit them. both are order sensitive, so this has to be a fixed
+	 * order rather than whatever the pool's maps iterate in: lowest
+	 * version first, then locals before stack variables, then by index.
+	 * this is the order the hash maps these passes were written against
+	 * ended up giving for all but huge methods.
+	 * the passes only ever remove use sets, so the list is sorted once and
+	 * then only has the removed locals taken out of it. */
+	private List<VersionedLocal> usedLocals() {
+		if(usedLocals != null) {
+			usedLocals.removeIf(vl -> !pool.uses.containsKey(vl));
+		}
+		if(usedLocals == null || usedLocals.size() != pool.uses.size()) {
+			usedLocals = new ArrayList<>(pool.uses.keySet());
+			usedLocals.sort(USE_ORDER);
+		}
+		return usedLocals;
+	}
+	
+	private static final Comparator<VersionedLocal> USE_ORDER = (v1, v2) -> {
+		if(v1.getSubscript() != v2.getSubscript()) {
+			return Integer.compare(v1.getSubscript(), v2.getSubscript());
+		} else if(v1.isStack() != v2.isStack()) {
+			return v1.isStack() ? 1 : -1;
+		} else {
+			return Integer.compare(v1.getIndex(), v2.getIndex());
+		}
+	};
+	
 	private void makeLiveness() {
 		SSABlockLivenessAnalyser liveness = new SSABlockLivenessAnalyser(builder.graph);
 		liveness.compute();
@@ -1381,7 +1404,7 @@ public class SSAGenPass extends ControlFlowGraphBuilder.BuilderPass {
 		splitRanges();
 		makeLiveness();
 		
-		doms = new LT79Dom<>(builder.graph, builder.head);
+		doms = DominatorEngine.create(builder.graph.freeze(), builder.head);
 		insertPhis();
 		rename();
 		
@@ -1389,6 +1412,7 @@ public class SSAGenPass extends ControlFlowGraphBuilder.BuilderPass {
 			resolveShadowedLocals();
 			aggregateInitialisers();
 			
+			usedLocals = null;
 			int i;
 			do {
 				i = 0;
@@ -4,14 +4,19 @@ import org.mapleir.ir.cfg.BasicBlock;
 import org.mapleir.ir.code.expr.PhiExpr;
 import org.mapleir.ir.codegen.BytecodeFrontend;
 import org.mapleir.stdlib.collections.graph.FastGraphVertex;
+import org.mapleir.stdlib.util.IdAllocator;
 import org.mapleir.stdlib.util.JavaDesc;
 import org.mapleir.stdlib.util.TabbedStringWriter;
 import org.objectweb.asm.MethodVisitor;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 
 /**
  * This is the shared base between the {@link Stmt} and {@link Expr} classes,
@@ -36,13 +41,19 @@ public abstract class CodeUnit implements FastGraphVertex, Opcode {
 	public static final int FLAG_STMT = 0x01;
 
 	/**
-	 * Global unit identifier counter.
+	 * Shared child array of units that have no children.
 	 */
-	private static int G_ID_COUNTER = 1;
+	private static final Expr[] NO_CHILDREN = new Expr[0];
+
+	/**
+	 * Global unit identifier allocator, units are created in the millions so
+	 * each thread leases large blocks of ids.
+	 */
+	private static final IdAllocator G_ID_ALLOCATOR = new IdAllocator(1, 4096);
 	/**
 	 * Unique global unit identifier.
 	 */
-	protected final int id = G_ID_COUNTER++;
+	protected final int id = G_ID_ALLOCATOR.next();
 	/**
 	 * Opcode to encode the sort of instruction this unit is.
 	 */
@@ -60,17 +71,30 @@ public abstract class CodeUnit implements FastGraphVertex, Opcode {
 	private BasicBlock block;
 
 	/**
-	 * The children of this unit.
+	 * The children of this unit. The array is sized to the arity of the unit
+	 * and only grows for units with a variable number of children.
 	 */
 	public Expr[] children;
+	/**
+	 * The number of non-null children.
+	 */
+	private int childCount;
 	/**
 	 * Index of the last item in the children array.
 	 */
 	private int ptr;
 
 	public CodeUnit(int opcode) {
+		this(opcode, 0);
+	}
+
+	/**
+	 * @param opcode The opcode of the unit.
+	 * @param arity The number of children the unit starts off with room for.
+	 */
+	public CodeUnit(int opcode, int arity) {
 		this.opcode = opcode;
-		children = new Expr[8];
+		children = arity == 0 ? NO_CHILDREN : new Expr[arity];
 	}
 
 	protected void setFlag(int flag, boolean val) {
@@ -147,35 +171,29 @@ public abstract class CodeUnit implements FastGraphVertex, Opcode {
 	 * @return The number of children. ( &gt;= 0)
 	 */
 	public int size() {
-		int size = 0;
-		for (int i = 0; i < children.length; i++) {
-			if (children[i] != null) {
-				size++;
-			}
-		}
-		return size;
+		return childCount;
 	}
 
 	public int capacity() {
 		return children.length;
 	}
 
-	protected boolean shouldExpand() {
-		double max = children.length * 0.50;
-		return (double) size() > max;
-	}
-
-	protected void expand() {
-		if (children.length >= Integer.MAX_VALUE)
-			throw new UnsupportedOperationException();
-		long len = children.length * 2;
-		if (len > Integer.MAX_VALUE)
-			len = Integer.MAX_VALUE;
-		Expr[] newArray = new Expr[(int) len];
+	protected void expand(int minCapacity) {
+		int len = Math.max(minCapacity, children.length + (children.length >> 1));
+		Expr[] newArray = new Expr[len];
 		System.arraycopy(children, 0, newArray, 0, children.length);
 		children = newArray;
 	}
 
+	/* whether the given index is within the children or directly after the
+	 * last child. */
+	private boolean isValidIndex(int index) {
+		if(index < 0 || index > children.length) {
+			return false;
+		}
+		return index == 0 || children[index - 1] != null;
+	}
+
 	public int indexOf(Expr s) {
 		for (int i = 0; i < children.length; i++) {
 			if (children[i] == s) {
@@ -192,9 +210,9 @@ public abstract class CodeUnit implements FastGraphVertex, Opcode {
 	 * @return The child {@link Expr}.
 	 */
 	public Expr read(int newPtr) {
-		if (newPtr < 0 || newPtr >= children.length || (newPtr > 0 && children[newPtr - 1] == null))
+		if (!isValidIndex(newPtr))
 			throw new ArrayIndexOutOfBoundsException(String.format("%s, ptr=%d, len=%d, addr=%d", this.getClass().getSimpleName(), ptr, children.length, newPtr));
-		return children[newPtr];
+		return newPtr < children.length ? children[newPtr] : null;
 	}
 
 	/**
@@ -213,12 +231,11 @@ public abstract class CodeUnit implements FastGraphVertex, Opcode {
 	 * @throws ArrayIndexOutOfBoundsException if the index is 
 	 */
 	public Expr writeAt(Expr s, int index) {
-		if (index < 0 || index >= children.length 
-				|| (index > 0 && children[index - 1] == null)) {
+		if (!isValidIndex(index)) {
 			throw new ArrayIndexOutOfBoundsException(String.format("ptr=%d, "
 					+ "len=%d, addr=%d", ptr, children.length, index));
 		}
-		Expr prev = children[index];
+		Expr prev = index < children.length ? children[index] : null;
 		/* check this before checking if there is a parent for 's' as the
 		 * parent may be this node. */
 		if(prev == s) {
@@ -230,14 +247,18 @@ public abstract class CodeUnit implements FastGraphVertex, Opcode {
 					+ "to %s (new: %s)", s, s.parent, getRootParent0()));
 		}
 		
-		if(shouldExpand()) {
-			expand();
+		if(index == children.length) {
+			expand(index + 1);
 		}
 		
 		if(prev != null) {
 			prev.setParent(null);
+			childCount--;
 		}
 		children[index] = s;
+		if(s != null) {
+			childCount++;
+		}
 		if(s != null) {
 			s.setParent(this);
 		}
@@ -246,7 +267,7 @@ public abstract class CodeUnit implements FastGraphVertex, Opcode {
 	}
 
 	public void deleteAt(int _ptr) {
-		if (_ptr < 0 || _ptr >= children.length || (_ptr > 0 && children[_ptr - 1] == null))
+		if (!isValidIndex(_ptr) || _ptr == children.length)
 			throw new ArrayIndexOutOfBoundsException(String.format("ptr=%d, len=%d, addr=%d", ptr, children.length, _ptr));
 		if (children[_ptr] == null)
 			throw new UnsupportedOperationException("No statement at " + _ptr);
@@ -300,7 +321,7 @@ public abstract class CodeUnit implements FastGraphVertex, Opcode {
 	}
 
 	public List<Expr> getChildren() {
-		List<Expr> list = new ArrayList<>();
+		List<Expr> list = new ArrayList<>(childCount);
 		for (int i = 0; i < children.length; i++) {
 			if (children[i] != null) {
 				list.add(children[i]);
@@ -310,7 +331,7 @@ public abstract class CodeUnit implements FastGraphVertex, Opcode {
 	}
 
 	public void setChildPointer(int _ptr) {
-		if (_ptr < 0 || _ptr >= children.length || (_ptr > 0 && children[_ptr - 1] == null))
+		if (!isValidIndex(_ptr))
 			throw new ArrayIndexOutOfBoundsException(String.format("ptr=%d, len=%d, addr=%d", ptr, children.length, _ptr));
 		ptr = _ptr;
 	}
@@ -341,32 +362,148 @@ public abstract class CodeUnit implements FastGraphVertex, Opcode {
 
 	protected Set<Expr> _enumerate() {
 		Set<Expr> set = new HashSet<>();
+		visitPreOrder(set::add);
+		return set;
+	}
 
+	/**
+	 * @return A copy of all of the expressions below this unit, which can be
+	 * iterated over while the tree is being modified.
+	 */
+	public Iterable<Expr> enumerateOnlyChildren() {
+		return _enumerate();
+	}
+
+	/**
+	 * @return The expressions below this unit in pre-order. The tree must not
+	 * be modified while they are iterated over.
+	 */
+	public Iterable<Expr> walk() {
+		return () -> new ExprCursor(this);
+	}
+
+	/**
+	 * @param opcode The opcode of the expressions to return.
+	 * @return The expressions below this unit with the given opcode, in
+	 * pre-order. The tree must not be modified while they are iterated over.
+	 */
+	public Iterable<Expr> walk(int opcode) {
+		return () -> new ExprCursor(this, opcode);
+	}
+
+	/**
+	 * Calls the action for every expression below this unit, each one before
+	 * its children. The arguments of a phi are visited as its children.
+	 */
+	public void visitPreOrder(Consumer<? super Expr> action) {
 		if(opcode == Opcode.PHI) {
-			/*CopyPhiStmt phi = (CopyPhiStmt) this;
-			for(Expr e : phi.getExpression().getArguments().values()) {
-				set.add(e);
-				set.addAll(e._enumerate());
-			}*/
-			PhiExpr phi = (PhiExpr) this;
-			for(Expr e : phi.getArguments().values()) {
-				set.add(e);
-				set.addAll(e._enumerate());
+			for(Expr c : ((PhiExpr) this).getArguments().values()) {
+				preOrder(c, action);
 			}
 		} else {
 			for(Expr c : children) {
-				if(c != null) {
-					set.add(c);
-					set.addAll(c._enumerate());
-				}
+				preOrder(c, action);
 			}
 		}
+	}
 
-		return set;
+	private static void preOrder(Expr c, Consumer<? super Expr> action) {
+		if(c != null) {
+			action.accept(c);
+			c.visitPreOrder(action);
+		}
 	}
 
-	public Iterable<Expr> enumerateOnlyChildren() {
-		return _enumerate();
+	/**
+	 * Calls the action for every expression below this unit with the given
+	 * opcode, in pre-order.
+	 */
+	public void visitPreOrder(int opcode, Consumer<? super Expr> action) {
+		if(this.opcode == Opcode.PHI) {
+			for(Expr c : ((PhiExpr) this).getArguments().values()) {
+				preOrder(c, opcode, action);
+			}
+		} else {
+			for(Expr c : children) {
+				preOrder(c, opcode, action);
+			}
+		}
+	}
+
+	private static void preOrder(Expr c, int opcode, Consumer<? super Expr> action) {
+		if(c != null) {
+			if(c.opcode == opcode) {
+				action.accept(c);
+			}
+			c.visitPreOrder(opcode, action);
+		}
+	}
+
+	/**
+	 * Calls the action for every expression below this unit, each one after
+	 * its children, i.e. in the order they are executed.
+	 */
+	public void visitPostOrder(Consumer<? super Expr> action) {
+		if(opcode == Opcode.PHI) {
+			for(Expr c : ((PhiExpr) this).getArguments().values()) {
+				postOrder(c, action);
+			}
+		} else {
+			for(Expr c : children) {
+				postOrder(c, action);
+			}
+		}
+	}
+
+	private static void postOrder(Expr c, Consumer<? super Expr> action) {
+		if(c != null) {
+			c.visitPostOrder(action);
+			action.accept(c);
+		}
+	}
+
+	/**
+	 * @param includeSelf Whether to start with this unit.
+	 * @return An ordered spliterator over the expressions below this unit in
+	 * pre-order, optionally preceded by this unit itself.
+	 */
+	public Spliterator<CodeUnit> spliterator(boolean includeSelf) {
+		Iterator<Expr> cursor = new ExprCursor(this);
+		Iterator<CodeUnit> it;
+		if(includeSelf) {
+			it = new Iterator<CodeUnit>() {
+				boolean self = true;
+
+				@Override
+				public boolean hasNext() {
+					return self || cursor.hasNext();
+				}
+
+				@Override
+				public CodeUnit next() {
+					if(self) {
+						self = false;
+						return CodeUnit.this;
+					}
+					return cursor.next();
+				}
+			};
+		} else {
+			@SuppressWarnings("unchecked")
+			Iterator<CodeUnit> exprs = (Iterator<CodeUnit>) (Iterator<?>) cursor;
+			it = exprs;
+		}
+		return Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+
+	/* the children of a unit, or null for a phi, whose arguments are
+	 * walked as its children instead. */
+	static Expr[] childrenOf(CodeUnit u) {
+		return u.opcode == Opcode.PHI ? null : u.children;
+	}
+
+	static Iterator<Expr> phiArguments(CodeUnit u) {
+		return ((PhiExpr) u).getArguments().values().iterator();
 	}
 
 	protected void dfsStmt(List<CodeUnit> list) {
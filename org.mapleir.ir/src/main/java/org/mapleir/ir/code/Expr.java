@@ -38,6 +38,10 @@ public abstract class Expr extends CodeUnit {
 		super(opcode);
 	}
 	
+	public Expr(int opcode, int arity) {
+		super(opcode, arity);
+	}
+	
 	@Override
 	public abstract void onChildUpdated(int ptr);
 	
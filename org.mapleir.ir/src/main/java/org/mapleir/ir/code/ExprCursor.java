@@ -0,0 +1,104 @@
+package org.mapleir.ir.code;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Walks the expressions below a {@link CodeUnit} in pre-order, i.e. each
+ * expression before its children, without collecting them first. The
+ * arguments of a phi are walked as its children.
+ *
+ * <p> The cursor reads the child arrays of the units as it goes, so the tree
+ * must not be modified while it is being walked. Callers that rewrite the
+ * tree should iterate over {@link CodeUnit#enumerateOnlyChildren()} instead,
+ * which takes a copy.
+ */
+public class ExprCursor implements Iterator<Expr> {
+
+	private final int opcode;
+	/* the child arrays of the units on the path to the current expression
+	 * and the position in each of them. a phi has no array, its arguments
+	 * are read through an iterator over its map instead. */
+	private Expr[][] kids;
+	private int[] pos;
+	private Iterator<Expr>[] args;
+	private int depth;
+	private Expr next;
+
+	/**
+	 * @param root The unit whose expressions to walk.
+	 * @param opcode The opcode of the expressions to return, or -1 for all
+	 * expressions.
+	 */
+	public ExprCursor(CodeUnit root, int opcode) {
+		this.opcode = opcode;
+		kids = new Expr[8][];
+		pos = new int[8];
+		push(root);
+		next = advance();
+	}
+
+	public ExprCursor(CodeUnit root) {
+		this(root, -1);
+	}
+
+	@Override
+	public boolean hasNext() {
+		return next != null;
+	}
+
+	@Override
+	public Expr next() {
+		Expr e = next;
+		if(e == null) {
+			throw new NoSuchElementException();
+		}
+		next = advance();
+		return e;
+	}
+
+	private Expr advance() {
+		while(depth > 0) {
+			int d = depth - 1;
+			Expr[] k = kids[d];
+			if(k == null ? args[d].hasNext() : pos[d] < k.length) {
+				Expr e = k == null ? args[d].next() : k[pos[d]++];
+				if(e != null) {
+					push(e);
+					if(opcode == -1 || e.getOpcode() == opcode) {
+						return e;
+					}
+				}
+			} else {
+				kids[d] = null;
+				if(k == null) {
+					args[d] = null;
+				}
+				depth--;
+			}
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void push(CodeUnit u) {
+		if(depth == kids.length) {
+			kids = Arrays.copyOf(kids, depth * 2);
+			pos = Arrays.copyOf(pos, depth * 2);
+			if(args != null) {
+				args = Arrays.copyOf(args, depth * 2);
+			}
+		}
+		Expr[] k = CodeUnit.childrenOf(u);
+		if(k == null) {
+			if(args == null) {
+				args = new Iterator[kids.length];
+			}
+			args[depth] = CodeUnit.phiArguments(u);
+		}
+		kids[depth] = k;
+		pos[depth] = 0;
+		depth++;
+	}
+}
@@ -5,7 +5,11 @@ import java.util.Set;
 public abstract class Stmt extends CodeUnit {
 
 	public Stmt(int opcode) {
-		super(opcode);
+		this(opcode, 0);
+	}
+	
+	public Stmt(int opcode, int arity) {
+		super(opcode, arity);
 		
 		flags |= FLAG_STMT;
 	}
@@ -103,7 +103,7 @@ public class ArithmeticExpr extends Expr {
 
 	// TODO: arg order...
 	public ArithmeticExpr(Expr right, Expr left, Operator operator) {
-		super(ARITHMETIC);
+		super(ARITHMETIC, 2);
 		this.operator = operator;
 		setLeft(left);
 		setRight(right);
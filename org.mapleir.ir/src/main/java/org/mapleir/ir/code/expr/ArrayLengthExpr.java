@@ -13,7 +13,7 @@ public class ArrayLengthExpr extends Expr {
 	private Expr expression;
 
 	public ArrayLengthExpr(Expr expression) {
-		super(ARRAY_LEN);
+		super(ARRAY_LEN, 1);
 		setExpression(expression);
 	}
 
@@ -16,7 +16,7 @@ public class ArrayLoadExpr extends Expr {
 	private ArrayType type;
 
 	public ArrayLoadExpr(Expr array, Expr index, ArrayType type) {
-		super(ARRAY_LOAD);
+		super(ARRAY_LOAD, 2);
 		this.type = type;
 		setArrayExpression(array);
 		setIndexExpression(index);
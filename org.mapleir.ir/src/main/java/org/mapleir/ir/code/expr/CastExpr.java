@@ -15,7 +15,7 @@ public class CastExpr extends Expr {
 	private Type type;
 
 	public CastExpr(Expr expression, Type type) {
-		super(CAST);
+		super(CAST, 1);
 		this.type = type;
 		setExpression(expression);
 	}
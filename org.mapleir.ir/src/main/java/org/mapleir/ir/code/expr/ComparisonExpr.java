@@ -46,7 +46,7 @@ public class ComparisonExpr extends Expr {
 	private ValueComparisonType type;
 
 	public ComparisonExpr(Expr left, Expr right, ValueComparisonType type) {
-		super(COMPARE);
+		super(COMPARE, 2);
 		this.type = type;
 		setLeft(left);
 		setRight(right);
@@ -17,7 +17,7 @@ public class FieldLoadExpr extends Expr implements IUsesJavaDesc {
 	private boolean isStatic;
 
 	public FieldLoadExpr(Expr instanceExpression, String owner, String name, String desc, boolean isStatic) {
-		super(FIELD_LOAD);
+		super(FIELD_LOAD, instanceExpression == null ? 0 : 1);
 		this.owner = owner;
 		this.name = name;
 		this.desc = desc;
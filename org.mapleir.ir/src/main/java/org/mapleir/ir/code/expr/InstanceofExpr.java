@@ -14,7 +14,7 @@ public class InstanceofExpr extends Expr {
 	private Type type;
 
 	public InstanceofExpr(Expr expression, Type type) {
-		super(INSTANCEOF);
+		super(INSTANCEOF, 1);
 		this.type = type;
 		setExpression(expression);
 	}
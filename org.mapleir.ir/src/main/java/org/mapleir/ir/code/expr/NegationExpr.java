@@ -13,7 +13,7 @@ public class NegationExpr extends Expr {
 	private Expr expression;
 
 	public NegationExpr(Expr expression) {
-		super(NEGATE);
+		super(NEGATE, 1);
 		setExpression(expression);
 	}
 
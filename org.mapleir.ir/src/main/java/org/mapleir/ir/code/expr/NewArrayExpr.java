@@ -15,7 +15,7 @@ public class NewArrayExpr extends Expr {
 	private Type type;
 
 	public NewArrayExpr(Expr[] bounds, Type type) {
-		super(NEW_ARRAY);
+		super(NEW_ARRAY, bounds.length);
 		this.bounds = bounds;
 		this.type = type;
 		for (int i = 0; i < bounds.length; i++) {
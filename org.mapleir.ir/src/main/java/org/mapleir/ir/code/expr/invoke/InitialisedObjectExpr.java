@@ -10,6 +10,7 @@ import org.mapleir.stdlib.util.TabbedStringWriter;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.mapleir.asm.MethodDescriptor;
 import org.mapleir.asm.MethodNode;
 
 import java.util.HashSet;
@@ -22,7 +23,7 @@ public class InitialisedObjectExpr extends Invocation {
 	private Expr[] args;
 	
 	public InitialisedObjectExpr(String owner, String desc, Expr[] args) {
-		super(INIT_OBJ);
+		super(INIT_OBJ, args.length);
 		this.owner = owner;
 		this.desc = desc;
 		this.args = args;
@@ -98,7 +99,7 @@ public class InitialisedObjectExpr extends Invocation {
 
 	@Override
 	public void toCode(MethodVisitor visitor, BytecodeFrontend assembler) {
-		Type[] argTypes = Type.getArgumentTypes(desc);
+		Type[] argTypes = MethodDescriptor.getArgumentTypes(desc);
 		if (argTypes.length < args.length) {
 			Type[] bck = argTypes;
 			argTypes = new Type[bck.length + 1];
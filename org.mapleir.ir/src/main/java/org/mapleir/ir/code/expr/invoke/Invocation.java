@@ -18,8 +18,8 @@ import org.mapleir.asm.MethodNode;
  *                      before the call. */
 public abstract class Invocation extends Expr {
 	
-	public Invocation(int opcode) {
-		super(opcode);
+	public Invocation(int opcode, int arity) {
+		super(opcode, arity);
 	}
 
 	public abstract boolean isStatic();
@@ -1,5 +1,6 @@
 package org.mapleir.ir.code.expr.invoke;
 
+import org.mapleir.asm.MethodDescriptor;
 import org.mapleir.ir.TypeUtils;
 import org.mapleir.ir.code.CodeUnit;
 import org.mapleir.ir.code.Expr;
@@ -20,7 +21,7 @@ public abstract class InvocationExpr extends Invocation implements IUsesJavaDesc
 	private String desc;
 
 	public InvocationExpr(CallType callType, Expr[] args, String owner, String name, String desc) {
-		super(INVOKE);
+		super(INVOKE, args.length);
 		
 		this.callType = callType;
 		this.args = args;
@@ -85,7 +86,7 @@ public abstract class InvocationExpr extends Invocation implements IUsesJavaDesc
 	
 	@Override
 	public Type getType() {
-		return Type.getReturnType(desc);
+		return MethodDescriptor.getReturnType(desc);
 	}
 
 	@Override
@@ -139,7 +140,7 @@ public abstract class InvocationExpr extends Invocation implements IUsesJavaDesc
 
 	@Override
 	public void toCode(MethodVisitor visitor, BytecodeFrontend assembler) {
-		Type[] argTypes = Type.getArgumentTypes(desc);
+		Type[] argTypes = MethodDescriptor.getArgumentTypes(desc);
 		if (!isStatic()) {
 			Type[] bck = argTypes;
 			argTypes = new Type[bck.length + 1];
@@ -19,7 +19,7 @@ public class ArrayStoreStmt extends Stmt {
 	private ArrayType type;
 
 	public ArrayStoreStmt(Expr arrayExpression, Expr indexExpression, Expr valueExpression, ArrayType type) {
-		super(ARRAY_STORE);
+		super(ARRAY_STORE, 3);
 		this.type = type;
 		setArrayExpression(arrayExpression);
 		setIndexExpression(indexExpression);
@@ -63,7 +63,7 @@ public class ConditionalJumpStmt extends Stmt {
 	private ComparisonType type;
 
 	public ConditionalJumpStmt(Expr left, Expr right, BasicBlock trueSuccessor, ComparisonType type) {
-		super(COND_JUMP);
+		super(COND_JUMP, 2);
 		setLeft(left);
 		setRight(right);
 		setTrueSuccessor(trueSuccessor);
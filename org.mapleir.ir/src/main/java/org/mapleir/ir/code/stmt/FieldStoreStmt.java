@@ -21,7 +21,7 @@ public class FieldStoreStmt extends Stmt implements IUsesJavaDesc {
 	private boolean isStatic;
 
 	public FieldStoreStmt(Expr instanceExpression, Expr valueExpression, String owner, String name, String desc, boolean isStatic) {
-		super(FIELD_STORE);
+		super(FIELD_STORE, instanceExpression == null ? 1 : 2);
 		this.owner = owner;
 		this.name = name;
 		this.desc = desc;
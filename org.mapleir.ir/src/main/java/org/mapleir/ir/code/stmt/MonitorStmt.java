@@ -18,7 +18,7 @@ public class MonitorStmt extends Stmt {
 	private MonitorMode mode;
 
 	public MonitorStmt(Expr expression, MonitorMode mode) {
-		super(MONITOR);
+		super(MONITOR, 1);
 		this.mode = mode;
 		setExpression(expression);
 	}
@@ -14,7 +14,7 @@ public class PopStmt extends Stmt {
 	private Expr expression;
 	
 	public PopStmt(Expr expression) {
-		super(POP);
+		super(POP, 1);
 		setExpression(expression);
 	}
 
@@ -20,7 +20,7 @@ public class ReturnStmt extends Stmt {
 	}
 
 	public ReturnStmt(Type type, Expr expression) {
-		super(RETURN);
+		super(RETURN, expression == null ? 0 : 1);
 		this.type = type;
 		setExpression(expression);
 	}
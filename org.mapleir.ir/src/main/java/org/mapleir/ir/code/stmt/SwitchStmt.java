@@ -21,7 +21,7 @@ public class SwitchStmt extends Stmt {
 	private BasicBlock defaultTarget;
 
 	public SwitchStmt(Expr expr, LinkedHashMap<Integer, BasicBlock> targets, BasicBlock defaultTarget) {
-		super(SWITCH_JUMP);
+		super(SWITCH_JUMP, 1);
 		setExpression(expr);
 		this.targets = targets;
 		this.defaultTarget = defaultTarget;
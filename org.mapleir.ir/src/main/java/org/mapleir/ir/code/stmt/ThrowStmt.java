@@ -13,7 +13,7 @@ public class ThrowStmt extends Stmt {
 	private Expr expression;
 
 	public ThrowStmt(Expr expression) {
-		super(THROW);
+		super(THROW, 1);
 		setExpression(expression);
 	}
 
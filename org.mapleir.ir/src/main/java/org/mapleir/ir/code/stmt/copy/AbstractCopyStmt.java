@@ -52,7 +52,7 @@ public abstract class AbstractCopyStmt extends Stmt {
 	}
 	
 	public AbstractCopyStmt(int opcode, VarExpr variable, Expr expression, boolean synthetic) {
-		super(opcode);
+		super(opcode, synthetic ? 0 : 1);
 		
 		if (variable == null | expression == null)
 			throw new IllegalArgumentException("Neither variable nor statement can be null!");
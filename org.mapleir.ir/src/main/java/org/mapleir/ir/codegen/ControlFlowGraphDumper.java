@@ -17,8 +17,8 @@ import org.mapleir.ir.code.stmt.UnconditionalJumpStmt;
 import org.mapleir.ir.code.stmt.copy.CopyVarStmt;
 import org.mapleir.ir.locals.Local;
 import org.mapleir.stdlib.collections.graph.*;
+import org.mapleir.stdlib.collections.graph.algorithms.FrozenTarjanSCC;
 import org.mapleir.stdlib.collections.graph.algorithms.SimpleDfs;
-import org.mapleir.stdlib.collections.graph.algorithms.TarjanSCC;
 import org.mapleir.stdlib.collections.list.IndexedList;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Type;
@@ -178,7 +178,7 @@ public class ControlFlowGraphDumper implements BytecodeFrontend {
 		}
 		
 		// Find SCCs
-		TarjanSCC<BlockBundle> sccComputor = new TarjanSCC<>(subgraph);
+		FrozenTarjanSCC<BlockBundle> sccComputor = new FrozenTarjanSCC<>(subgraph.freeze());
 		sccComputor.search(entryBundle);
 		for(BlockBundle b : bundles) {
 			if(sccComputor.low(b) == -1) {
@@ -0,0 +1,114 @@
+package org.mapleir.ir.codegen;
+
+import org.mapleir.asm.ClassNode;
+import org.mapleir.asm.MethodNode;
+import org.mapleir.ir.algorithms.BoissinotDestructor;
+import org.mapleir.ir.algorithms.LocalsReallocator;
+import org.mapleir.ir.cfg.ControlFlowGraph;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Back end of the pipeline: takes methods out of SSA form, reallocates their
+ * locals and writes the resulting code back into the {@link MethodNode}.
+ *
+ * <p> Each graph is independent of the others so the work can be spread over
+ * several threads. Methods are grouped by their owner so that a
+ * {@link ClassNode} is only ever touched by one worker at a time, and groups
+ * are processed in a stable order (by class name, then by declaration order)
+ * so that the result and any reported failure do not depend on scheduling.
+ */
+public class ControlFlowGraphRetranslator {
+
+	/**
+	 * Retranslates a single method.
+	 *
+	 * @param cfg The SSA graph of the method.
+	 * @param mn The method to write the generated code into.
+	 */
+	public static void retranslate(ControlFlowGraph cfg, MethodNode mn) {
+		cfg.verify();
+		BoissinotDestructor.leaveSSA(cfg);
+		LocalsReallocator.realloc(cfg);
+		cfg.verify();
+		(new ControlFlowGraphDumper(cfg, mn)).dump();
+	}
+
+	/**
+	 * Retranslates every method in the given map, using a work-stealing pool
+	 * with the given parallelism. If any method fails, the failure of the
+	 * first method in processing order is rethrown once all work is done.
+	 *
+	 * @param cfgs The methods and their SSA graphs.
+	 * @param parallelism The number of worker threads to use. ( &gt;= 1)
+	 * @return The methods in the order they were processed.
+	 */
+	public static List<MethodNode> retranslateAll(Map<MethodNode, ControlFlowGraph> cfgs, int parallelism) {
+		List<List<MethodNode>> groups = group(cfgs.keySet());
+
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(groups.size());
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			for(List<MethodNode> group : groups) {
+				tasks.add(pool.submit(() -> {
+					for(MethodNode mn : group) {
+						try {
+							retranslate(cfgs.get(mn), mn);
+						} catch(RuntimeException e) {
+							throw new IllegalStateException("Failed to retranslate " + mn, e);
+						}
+					}
+				}));
+			}
+
+			RuntimeException failure = null;
+			for(ForkJoinTask<?> t : tasks) {
+				try {
+					t.join();
+				} catch(RuntimeException e) {
+					if(failure == null) {
+						failure = e;
+					}
+				}
+			}
+			if(failure != null) {
+				throw failure;
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		List<MethodNode> order = new ArrayList<>(cfgs.size());
+		for(List<MethodNode> group : groups) {
+			order.addAll(group);
+		}
+		return order;
+	}
+
+	private static List<List<MethodNode>> group(Collection<MethodNode> methods) {
+		Map<ClassNode, List<MethodNode>> byOwner = new HashMap<>();
+		for(MethodNode mn : methods) {
+			byOwner.computeIfAbsent(mn.owner, k -> new ArrayList<>()).add(mn);
+		}
+
+		List<ClassNode> owners = new ArrayList<>(byOwner.keySet());
+		owners.sort(Comparator.nullsFirst(Comparator.comparing(ClassNode::getName)));
+
+		List<List<MethodNode>> groups = new ArrayList<>(owners.size());
+		for(ClassNode cn : owners) {
+			List<MethodNode> group = byOwner.get(cn);
+			if(cn != null) {
+				List<MethodNode> decl = cn.getMethods();
+				Map<MethodNode, Integer> index = new HashMap<>(decl.size() * 2);
+				for(int i = 0; i < decl.size(); i++) {
+					index.put(decl.get(i), i);
+				}
+				group.sort(Comparator.comparingInt(mn -> index.getOrDefault(mn, -1)));
+			}
+			groups.add(group);
+		}
+		return groups;
+	}
+}
@@ -11,10 +11,11 @@ import org.mapleir.ir.code.stmt.copy.AbstractCopyStmt;
 import org.mapleir.ir.code.stmt.copy.CopyVarStmt;
 import org.mapleir.ir.locals.impl.BasicLocal;
 import org.mapleir.ir.locals.impl.VersionedLocal;
+import org.mapleir.stdlib.collections.SmallSet;
 import org.mapleir.stdlib.collections.bitset.BitSetIndexer;
 import org.mapleir.stdlib.collections.bitset.GenericBitSet;
 import org.mapleir.stdlib.collections.bitset.IncrementalBitSetIndexer;
-import org.mapleir.stdlib.collections.map.NullPermeableHashMap;
+import org.mapleir.stdlib.collections.map.LongKeyedMap;
 import org.mapleir.stdlib.collections.map.ValueCreator;
 import org.objectweb.asm.Type;
 
@@ -24,22 +25,25 @@ import java.util.function.Predicate;
 
 public abstract class LocalsPool implements ValueCreator<GenericBitSet<Local>> {
 
-	private final Map<String, Local> cache;
-	private final Map<BasicLocal, VersionedLocal> latest;
+	/* locals by their packed keys, see key(). */
+	private final LongKeyedMap<Local> cache;
+	/* the latest version of each basic local, by the key of the basic local. */
+	private final LongKeyedMap<VersionedLocal> latest;
 	private final BitSetIndexer<Local> indexer;
 	private int maxLocals, maxStack;
+	private int versionCount;
 
-	public final Map<VersionedLocal, AbstractCopyStmt> defs;
-	public final NullPermeableHashMap<VersionedLocal, Set<VarExpr>> uses;
+	public final VersionedLocalMap<AbstractCopyStmt> defs;
+	public final VersionedLocalMap<Set<VarExpr>> uses;
 
 	public LocalsPool() {
-		cache = new HashMap<>();
-		latest = new HashMap<>();
-		indexer = new IncrementalBitSetIndexer<>();
+		cache = new LongKeyedMap<>(64);
+		latest = new LongKeyedMap<>(32);
+		indexer = IncrementalBitSetIndexer.identity();
 		maxLocals = maxStack = 0;
 
-		defs = new HashMap<>();
-		uses = new NullPermeableHashMap<>(HashSet::new);
+		defs = new VersionedLocalMap<>();
+		uses = new VersionedLocalMap<>(SmallSet::new);
 	}
 
 	public abstract boolean isReservedRegister(Local l);
@@ -65,9 +69,6 @@ public abstract class LocalsPool implements ValueCreator<GenericBitSet<Local>> {
 	public GenericBitSet<Local> create() {
 		return createBitSet();
 	}
-	public Map<String, Local> getCache() {
-		return cache;
-	}
 	// end factory
 
 	public BasicLocal asSimpleLocal(Local l) {
@@ -80,11 +81,12 @@ public abstract class LocalsPool implements ValueCreator<GenericBitSet<Local>> {
 	}
 	
 	public VersionedLocal getLatestVersion(Local l) {
-		l = asSimpleLocal(l);
-		if(!latest.containsKey(l)) {
+		updateMaxs(l.getIndex(), l.isStack());
+		VersionedLocal vl = latest.get(key(l.getIndex(), l.isStack()));
+		if(vl == null) {
 			return get(l.getIndex(), 0, l.isStack());
 		} else {
-			return latest.get(l);
+			return vl;
 		}
 	}
 
@@ -108,23 +110,25 @@ public abstract class LocalsPool implements ValueCreator<GenericBitSet<Local>> {
 	
 	public VersionedLocal get(int index, int subscript, boolean isStack) {
 		updateMaxs(index, isStack);
-		String key = key(index, subscript, isStack);
-		if(cache.containsKey(key)) {
-			return (VersionedLocal) cache.get(key);
+		long key = key(index, subscript, isStack);
+		Local l = cache.get(key);
+		if(l != null) {
+			return (VersionedLocal) l;
 		} else {
-			VersionedLocal v = new VersionedLocal(index, subscript, isStack);
+			VersionedLocal v = new VersionedLocal(index, subscript, isStack, versionCount++);
 			cache.put(key, v);
 			
 			BasicLocal bl = get(index, isStack);
-			if(latest.containsKey(bl)) {
-				VersionedLocal old = latest.get(bl);
+			long blKey = key(index, isStack);
+			VersionedLocal old = latest.get(blKey);
+			if(old != null) {
 				if(subscript > old.getSubscript()) {
-					latest.put(bl, v);
+					latest.put(blKey, v);
 				} else if(subscript == old.getSubscript()) {
 					throw new IllegalStateException("Created " + v + " with " + old + ", " + bl);
 				}
 			} else {
-				latest.put(bl, v);
+				latest.put(blKey, v);
 			}
 			
 			return v;
@@ -137,9 +141,10 @@ public abstract class LocalsPool implements ValueCreator<GenericBitSet<Local>> {
 	
 	public BasicLocal get(int index, boolean isStack) {
 		updateMaxs(index, isStack);
-		String key = key(index, isStack);
-		if(cache.containsKey(key)) {
-			return (BasicLocal) cache.get(key);
+		long key = key(index, isStack);
+		Local l = cache.get(key);
+		if(l != null) {
+			return (BasicLocal) l;
 		} else {
 			BasicLocal v = new BasicLocal(index, isStack);
 			cache.put(key, v);
@@ -149,8 +154,7 @@ public abstract class LocalsPool implements ValueCreator<GenericBitSet<Local>> {
 
 	public BasicLocal newLocal(int i, boolean isStack) {
 		while(true) {
-			String key = key(i, isStack);
-			if(!cache.containsKey(key)) {
+			if(!cache.containsKey(key(i, isStack))) {
 				return get(i, isStack);
 			}
 			i++;
@@ -179,11 +183,17 @@ public abstract class LocalsPool implements ValueCreator<GenericBitSet<Local>> {
 		}
 	} */
 
-	public static String key(int index, boolean stack) {
-		return (stack ? "s" : "l") + "var" + index;
+	/* the index goes in the high half, the subscript above the two flag
+	 * bits in the low half. subscripts are limited to 24 bits by
+	 * VersionedLocal. */
+	private static final long VERSIONED_BIT = 0x1L;
+	private static final long STACK_BIT = 0x2L;
+
+	public static long key(int index, boolean stack) {
+		return ((long) index << 32) | (stack ? STACK_BIT : 0L);
 	}
 	
-	public static String key(int index, int subscript, boolean stack) {
-		return (stack ? "s" : "l") + "var" + index + "_" + subscript;
+	public static long key(int index, int subscript, boolean stack) {
+		return ((long) index << 32) | ((long) subscript << 2) | (stack ? STACK_BIT : 0L) | VERSIONED_BIT;
 	}
 }
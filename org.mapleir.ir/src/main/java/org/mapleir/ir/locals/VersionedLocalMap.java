@@ -0,0 +1,263 @@
+package org.mapleir.ir.locals;
+
+import java.util.*;
+
+import org.mapleir.ir.locals.impl.VersionedLocal;
+import org.mapleir.stdlib.collections.map.ValueCreator;
+
+/**
+ * A map from the {@link VersionedLocal}s of a {@link LocalsPool} to values,
+ * stored in an array indexed by the ids the pool gives its locals, so that
+ * lookups neither hash nor allocate. Iteration is in the order the locals
+ * were created in.
+ *
+ * <p> Locals that were not created by a pool are kept in a plain hash map on
+ * the side, and so is a local whose slot is taken by another one, e.g. a
+ * local of a different pool with the same id. A slot only ever answers for
+ * the very local stored in it.
+ */
+public class VersionedLocalMap<V> extends AbstractMap<VersionedLocal, V> {
+	/* stands in for null values, so that null means no mapping. */
+	private static final Object NULL = new Object();
+
+	private final ValueCreator<? extends V> creator;
+	private VersionedLocal[] keys;
+	private Object[] vals;
+	private int size;
+	private Map<VersionedLocal, V> others;
+	private EntrySet entrySet;
+
+	public VersionedLocalMap(ValueCreator<? extends V> creator) {
+		this.creator = creator;
+		keys = new VersionedLocal[16];
+		vals = new Object[16];
+	}
+
+	public VersionedLocalMap() {
+		this(null);
+	}
+
+	/**
+	 * @return The value of the local, which is created and stored first if
+	 * there was none.
+	 */
+	public V getNonNull(VersionedLocal l) {
+		V v = get(l);
+		if(v == null) {
+			v = creator.create();
+			put(l, v);
+		}
+		return v;
+	}
+
+	@Override
+	public V get(Object o) {
+		if(!(o instanceof VersionedLocal)) {
+			return null;
+		}
+		VersionedLocal l = (VersionedLocal) o;
+		int id = l.getId();
+		if(isStored(l, id)) {
+			return unmask(vals[id]);
+		}
+		return others != null ? others.get(l) : null;
+	}
+
+	@Override
+	public boolean containsKey(Object o) {
+		if(!(o instanceof VersionedLocal)) {
+			return false;
+		}
+		VersionedLocal l = (VersionedLocal) o;
+		int id = l.getId();
+		return isStored(l, id) || (others != null && others.containsKey(l));
+	}
+
+	@Override
+	public V put(VersionedLocal l, V v) {
+		int id = l.getId();
+		if(id < 0 || (id < keys.length && keys[id] != null && keys[id] != l) || (others != null && others.containsKey(l))) {
+			if(others == null) {
+				others = new HashMap<>();
+			}
+			return others.put(l, v);
+		}
+		if(id >= vals.length) {
+			int len = Math.max(id + 1, vals.length * 2);
+			keys = Arrays.copyOf(keys, len);
+			vals = Arrays.copyOf(vals, len);
+		}
+		Object prev = vals[id];
+		if(prev == null) {
+			size++;
+		}
+		keys[id] = l;
+		vals[id] = v == null ? NULL : v;
+		return unmask(prev);
+	}
+
+	@Override
+	public V remove(Object o) {
+		if(!(o instanceof VersionedLocal)) {
+			return null;
+		}
+		VersionedLocal l = (VersionedLocal) o;
+		int id = l.getId();
+		if(!isStored(l, id)) {
+			return others != null ? others.remove(l) : null;
+		}
+		Object prev = vals[id];
+		keys[id] = null;
+		vals[id] = null;
+		size--;
+		return unmask(prev);
+	}
+
+	@Override
+	public int size() {
+		return size + (others != null ? others.size() : 0);
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(keys, null);
+		Arrays.fill(vals, null);
+		size = 0;
+		others = null;
+	}
+
+	@Override
+	public Set<Entry<VersionedLocal, V>> entrySet() {
+		if(entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	private boolean isStored(VersionedLocal l, int id) {
+		return id >= 0 && id < keys.length && keys[id] == l;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> V unmask(Object o) {
+		return o == NULL ? null : (V) o;
+	}
+
+	private class EntrySet extends AbstractSet<Entry<VersionedLocal, V>> {
+		@Override
+		public Iterator<Entry<VersionedLocal, V>> iterator() {
+			return new Iterator<Entry<VersionedLocal, V>>() {
+				int next = advance(0);
+				int last = -1;
+				Iterator<Entry<VersionedLocal, V>> otherIt;
+
+				private int advance(int i) {
+					while(i < vals.length && vals[i] == null) {
+						i++;
+					}
+					return i;
+				}
+
+				@Override
+				public boolean hasNext() {
+					if(next < vals.length) {
+						return true;
+					}
+					if(otherIt == null && others != null) {
+						otherIt = others.entrySet().iterator();
+					}
+					return otherIt != null && otherIt.hasNext();
+				}
+
+				@Override
+				public Entry<VersionedLocal, V> next() {
+					if(next < vals.length) {
+						last = next;
+						next = advance(next + 1);
+						return new DenseEntry(last);
+					}
+					if(!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					last = -1;
+					return otherIt.next();
+				}
+
+				@Override
+				public void remove() {
+					if(last >= 0) {
+						if(vals[last] == null) {
+							throw new IllegalStateException();
+						}
+						keys[last] = null;
+						vals[last] = null;
+						size--;
+					} else if(otherIt != null) {
+						otherIt.remove();
+					} else {
+						throw new IllegalStateException();
+					}
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return VersionedLocalMap.this.size();
+		}
+
+		@Override
+		public void clear() {
+			VersionedLocalMap.this.clear();
+		}
+	}
+
+	private class DenseEntry implements Entry<VersionedLocal, V> {
+		private final int id;
+		private final VersionedLocal key;
+
+		DenseEntry(int id) {
+			this.id = id;
+			key = keys[id];
+		}
+
+		@Override
+		public VersionedLocal getKey() {
+			return key;
+		}
+
+		@Override
+		public V getValue() {
+			return keys[id] == key ? unmask(vals[id]) : null;
+		}
+
+		@Override
+		public V setValue(V value) {
+			if(keys[id] != key) {
+				throw new IllegalStateException("entry was removed");
+			}
+			Object prev = vals[id];
+			vals[id] = value == null ? NULL : value;
+			return unmask(prev);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return Objects.equals(key, e.getKey()) && Objects.equals(getValue(), e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + getValue();
+		}
+	}
+}
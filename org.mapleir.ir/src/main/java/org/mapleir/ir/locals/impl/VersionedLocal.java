@@ -5,25 +5,41 @@ import org.mapleir.ir.locals.Local;
 public class VersionedLocal extends Local {
 
 	private int subscript;
+	/* dense id given out by the pool that created this local, -1 if none. */
+	private final int id;
 	
 	public VersionedLocal(int index, int subscript) {
 		super(index);
 		if (index > INDEX_MASK || subscript > SUBSCRIPT_MASK)
 			throw new IllegalArgumentException("Index/subscript overflow; hashCode collision possible " + index + " " + subscript);
 		this.subscript = subscript;
+		id = -1;
 	}
 	
 	public VersionedLocal(int index, int subscript, boolean stack) {
+		this(index, subscript, stack, -1);
+	}
+	
+	public VersionedLocal(int index, int subscript, boolean stack, int id) {
 		super(index, stack);
 		if (index > INDEX_MASK || subscript > SUBSCRIPT_MASK)
 			throw new IllegalArgumentException("Index/subscript overflow; hashCode collision possible " + index + " " + subscript);
 		this.subscript = subscript;
+		this.id = id;
 	}
 	
 	public int getSubscript() {
 		return subscript;
 	}
 	
+	/**
+	 * @return The id of this local in the pool that created it, or -1 if it
+	 * wasn't created by a pool.
+	 */
+	public int getId() {
+		return id;
+	}
+	
 	@Override
 	public int getCodeIndex() {
 		throw new UnsupportedOperationException();
@@ -1,5 +1,17 @@
 package org.mapleir.ir.code;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mapleir.ir.cfg.BasicBlock;
+import org.mapleir.ir.cfg.ControlFlowGraph;
+import org.mapleir.ir.code.expr.PhiExpr;
+
 import junit.framework.TestCase;
 
 public class CodeUnitTest extends TestCase {
@@ -102,6 +114,106 @@ public class CodeUnitTest extends TestCase {
 		assertEquals(String.format("at index %d", idx), testExpr, stmt.read(idx));
 	}
 	
+	public void testDeleteKeepsCount() {
+		FakeStmt stmt = new FakeStmt();
+		populateFakeCodeUnit(stmt, 0, 5);
+		Expr third = stmt.read(2);
+		stmt.deleteAt(1);
+		assertEquals(4, stmt.size());
+		assertEquals(third, stmt.read(1));
+		assertEquals(stmt, third.getParent());
+		stmt.deleteAt(3);
+		assertEquals(3, stmt.size());
+		assertNull(stmt.read(3));
+	}
+
+	public void testChildlessUnit() {
+		FakeExpr e = new FakeExpr();
+		assertEquals(0, e.capacity());
+		assertEquals(0, e.size());
+		assertNull(e.read(0));
+		e.writeAt(new FakeExpr(), 0);
+		assertEquals(1, e.size());
+	}
+
+	public void testWalkOrder() {
+		FakeStmt stmt = new FakeStmt();
+		FakeExpr a = new FakeExpr(), b = new FakeExpr(), c = new FakeExpr(), d = new FakeExpr();
+		a.writeAt(b, 0);
+		a.writeAt(c, 1);
+		stmt.writeAt(a, 0);
+		stmt.writeAt(d, 1);
+
+		List<Expr> pre = new ArrayList<>();
+		for(Expr e : stmt.walk()) {
+			pre.add(e);
+		}
+		assertEquals(Arrays.asList(a, b, c, d), pre);
+		assertEquals(new HashSet<>(pre), stmt.enumerateOnlyChildren());
+
+		List<Expr> post = new ArrayList<>();
+		stmt.visitPostOrder(post::add);
+		assertEquals(Arrays.asList(b, c, a, d), post);
+
+		List<CodeUnit> all = new ArrayList<>();
+		stmt.spliterator(true).forEachRemaining(all::add);
+		assertEquals(Arrays.asList(stmt, a, b, c, d), all);
+	}
+
+	public void testWalkPhiArguments() {
+		ControlFlowGraph cfg = new ControlFlowGraph(null, null);
+		FakeExpr x = new FakeExpr(), y = new FakeExpr(), z = new FakeExpr(), d = new FakeExpr();
+		x.writeAt(z, 0);
+		Map<BasicBlock, Expr> args = new LinkedHashMap<>();
+		args.put(new BasicBlock(cfg), x);
+		args.put(new BasicBlock(cfg), y);
+		PhiExpr phi = new PhiExpr(args);
+
+		/* deep enough for the cursor to grow its stacks below the phi. */
+		List<Expr> chain = new ArrayList<>();
+		FakeExpr last = y;
+		for(int i=0; i < 10; i++) {
+			FakeExpr e = new FakeExpr();
+			last.writeAt(e, 0);
+			chain.add(e);
+			last = e;
+		}
+
+		FakeStmt stmt = new FakeStmt();
+		stmt.writeAt(phi, 0);
+		stmt.writeAt(d, 1);
+
+		List<Expr> expected = new ArrayList<>(Arrays.asList(phi, x, z, y));
+		expected.addAll(chain);
+		expected.add(d);
+
+		List<Expr> pre = new ArrayList<>();
+		for(Expr e : stmt.walk()) {
+			pre.add(e);
+		}
+		assertEquals(expected, pre);
+
+		pre.clear();
+		stmt.visitPreOrder(pre::add);
+		assertEquals(expected, pre);
+
+		List<Expr> phis = new ArrayList<>();
+		for(Expr e : stmt.walk(Opcode.PHI)) {
+			phis.add(e);
+		}
+		stmt.visitPreOrder(Opcode.PHI, phis::add);
+		assertEquals(Arrays.asList(phi, phi), phis);
+
+		List<Expr> post = new ArrayList<>();
+		stmt.visitPostOrder(post::add);
+		List<Expr> reversed = new ArrayList<>(chain);
+		Collections.reverse(reversed);
+		List<Expr> expectedPost = new ArrayList<>(Arrays.asList(z, x));
+		expectedPost.addAll(reversed);
+		expectedPost.addAll(Arrays.asList(y, phi, d));
+		assertEquals(expectedPost, post);
+	}
+
 	private static void populateFakeCodeUnit(CodeUnit u, int offset, int numChilds) {
 		for(int i=0; i < numChilds; i++) {
 			u.writeAt(new FakeExpr(), offset + i);
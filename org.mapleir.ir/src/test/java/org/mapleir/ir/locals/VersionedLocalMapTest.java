@@ -0,0 +1,74 @@
+package org.mapleir.ir.locals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mapleir.ir.locals.impl.VersionedLocal;
+
+import junit.framework.TestCase;
+
+public class VersionedLocalMapTest extends TestCase {
+
+	public void testPoolLocals() {
+		VersionedLocalMap<String> map = new VersionedLocalMap<>();
+		VersionedLocal a = new VersionedLocal(0, 1, false, 0);
+		VersionedLocal b = new VersionedLocal(1, 1, false, 40);
+		map.put(a, "a");
+		map.put(b, "b");
+		assertEquals("a", map.get(a));
+		assertEquals("b", map.get(b));
+		assertEquals(2, map.size());
+		assertEquals("a", map.remove(a));
+		assertNull(map.get(a));
+		assertFalse(map.containsKey(a));
+		assertEquals(1, map.size());
+	}
+
+	public void testSameIdDifferentLocals() {
+		// e.g. locals of two pools, which both hand out id 3.
+		VersionedLocal a = new VersionedLocal(0, 1, false, 3);
+		VersionedLocal b = new VersionedLocal(5, 2, true, 3);
+		VersionedLocalMap<String> map = new VersionedLocalMap<>();
+		assertNull(map.put(a, "a"));
+		assertNull(map.get(b));
+		assertFalse(map.containsKey(b));
+		assertNull(map.remove(b));
+		assertEquals("a", map.get(a));
+
+		assertNull(map.put(b, "b"));
+		assertEquals("a", map.get(a));
+		assertEquals("b", map.get(b));
+		assertEquals(2, map.size());
+
+		Map<VersionedLocal, String> copy = new HashMap<>(map);
+		assertEquals("a", copy.get(a));
+		assertEquals("b", copy.get(b));
+
+		// b stays where it is once a's slot is free.
+		assertEquals("a", map.remove(a));
+		assertEquals("b", map.put(b, "c"));
+		assertEquals("c", map.get(b));
+		assertEquals(1, map.size());
+		assertEquals("c", map.remove(b));
+		assertTrue(map.isEmpty());
+	}
+
+	public void testLocalsWithoutIds() {
+		VersionedLocalMap<String> map = new VersionedLocalMap<>();
+		VersionedLocal a = new VersionedLocal(0, 1);
+		map.put(a, "a");
+		assertEquals("a", map.get(new VersionedLocal(0, 1)));
+		assertTrue(map.containsKey(a));
+		assertEquals("a", map.remove(a));
+		assertTrue(map.isEmpty());
+	}
+
+	public void testNullValues() {
+		VersionedLocalMap<String> map = new VersionedLocalMap<>();
+		VersionedLocal a = new VersionedLocal(0, 1, false, 2);
+		map.put(a, null);
+		assertTrue(map.containsKey(a));
+		assertNull(map.get(a));
+		assertEquals(1, map.size());
+	}
+}
@@ -2,6 +2,7 @@ package org.mapleir;
 
 import org.apache.log4j.Logger;
 import org.mapleir.app.service.ApplicationClassSource;
+import org.mapleir.app.service.ClassTree;
 import org.mapleir.app.service.InvocationResolver;
 import org.mapleir.stdlib.collections.map.NullPermeableHashMap;
 import org.objectweb.asm.Opcodes;
@@ -12,7 +13,20 @@ import org.mapleir.asm.MethodNode;
 import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.Map.Entry;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves invocations with per-class virtual method tables.
+ *
+ * <p> Calls may be resolved from several threads at once. Tables are built,
+ * and miranda methods added to classes, only while holding the monitor of
+ * the application's {@link ClassTree}, and a table is only published once it
+ * is complete, so resolving against tables that already exist takes no
+ * lock. The method list of a class does not change once its table has been
+ * published, and lookups read a copy of it taken when the table was built,
+ * or, for a class without a table, when it was first looked up.
+ */
 public class DefaultInvocationResolver implements InvocationResolver {
 	
 	private static final Logger LOGGER = Logger.getLogger(DefaultInvocationResolver.class);
@@ -25,17 +39,52 @@ public class DefaultInvocationResolver implements InvocationResolver {
 	
 	private final ApplicationClassSource app;
 	
-	private final Map<ClassNode, Map<Selector, MethodNode>> concreteVTables = new HashMap<>();
-	private final Map<ClassNode, Map<Selector, MethodNode>> abstractVTables = new HashMap<>();
+	/* tables are only published here once they are complete, and are
+	 * only built holding the tree's monitor. */
+	private final Map<ClassNode, VTable> concreteVTables = new ConcurrentHashMap<>();
+	private final Map<ClassNode, VTable> abstractVTables = new ConcurrentHashMap<>();
+	private final Map<Selector, Selector> selectors = new ConcurrentHashMap<>();
+	/* copies of the classes' method lists, replaced by the table build
+	 * once any mirandas have been added. */
+	private final Map<ClassNode, List<MethodNode>> methodLists = new ConcurrentHashMap<>();
+	private final AtomicInteger selectorCounter = new AtomicInteger();
 	
-	// TODO: migrate to cleaner system
-	private final HierarchyMethods hierarchyMethodsHelper;
+	/* built on the first getHierarchyMethodChain call and thrown away
+	 * whenever the class tree changes. guarded by the tree's monitor. */
+	private MethodFamilyIndex methodFamilies;
+	private int methodFamiliesModCount;
 	
 	public DefaultInvocationResolver(ApplicationClassSource app) {
+		this(app, false);
+	}
+	
+	/**
+	 * @param app The application.
+	 * @param lazy Whether to only compute the vtables of library classes
+	 * (and their supertypes) the first time a call on them is resolved
+	 * rather than computing the tables of the whole class tree up front.
+	 * The tables of application classes are always computed here as
+	 * building them may add methods to the classes. Either way, calls may
+	 * be resolved from several threads.
+	 */
+	public DefaultInvocationResolver(ApplicationClassSource app, boolean lazy) {
 		this.app = app;
-		hierarchyMethodsHelper = new HierarchyMethods(app);
 		
-		computeVTables();
+		/* build the tree up front rather than racing to do it, and
+		 * so that library classes loaded by resolve() go into it. */
+		ClassTree tree = app.getClassTree();
+		
+		if(lazy) {
+			for(ClassNode c : app.iterate()) {
+				/* skip classes that couldn't be added to the tree,
+				 * as the eager mode does. */
+				if(tree.containsVertex(c)) {
+					computeVTable(c);
+				}
+			}
+		} else {
+			computeVTables();
+		}
 		
 		LOGGER.info(String.format("built vtables for %s classes", concreteVTables.size()));
 	}
@@ -82,6 +131,16 @@ public class DefaultInvocationResolver implements InvocationResolver {
 			return;
 		}
 		
+		/* builds the tables of the supertypes on the way, taking the
+		 * lock again. */
+		synchronized(app.getClassTree()) {
+			if(!hasVisited(c)) {
+				buildVTable(c);
+			}
+		}
+	}
+	
+	private void buildVTable(ClassNode c) {
 		/* ensure parents loaded */
 		ClassNode superKlass = null;
 		/* if the super class is null it means we're at object and so
@@ -115,7 +174,7 @@ public class DefaultInvocationResolver implements InvocationResolver {
 			}
 			
 			/* immutable lookup key */
-			Selector s = new Selector(m.getName(), m.getDesc());
+			Selector s = intern(m.getName(), m.getDesc());
 			
 			/* store our local declarations. */
 			if(Modifier.isAbstract(m.node.access)) {
@@ -142,8 +201,11 @@ public class DefaultInvocationResolver implements InvocationResolver {
 		 * for a given class while processing that class; the local
 		 * maps/vtable values are used but not the field
 		 * references. */
-		concreteVTables.put(c, thisMethodSet);
-		abstractVTables.put(c, thisAbstractSet);
+		VTable thisCVT = new VTable();
+		VTable thisAVT = new VTable();
+		thisCVT.putAll(thisMethodSet);
+		thisAVT.putAll(thisAbstractSet);
+		VTable cvt = thisCVT, avt = thisAVT;
 		
 		/* now we consider the super class which we have previously
 		 * completely resolved. now we have to propagate information
@@ -166,11 +228,10 @@ public class DefaultInvocationResolver implements InvocationResolver {
 				throw new IllegalStateException(String.format("Parent of %s, %s is not initialised", c, superKlass));
 			}
 
-			Map<Selector, MethodNode> globalCVT = new HashMap<>();
-			Map<Selector, MethodNode> globalAVT = new HashMap<>();
-			/* inherit all super class methods */
-			globalCVT.putAll(concreteVTables.get(superKlass));
-			globalAVT.putAll(abstractVTables.get(superKlass));
+			/* inherit all super class methods. the tables only store
+			 * what changes in this class. */
+			VTable globalCVT = new VTable(concreteVTables.get(superKlass));
+			VTable globalAVT = new VTable(abstractVTables.get(superKlass));
 			
 			assertIntersection(thisAbstractSet.entrySet(), thisMethodSet.entrySet(), Collections.emptySet());
 			/* (1) and (2) 
@@ -186,17 +247,17 @@ public class DefaultInvocationResolver implements InvocationResolver {
 			/* we shouldn't ever get merge errors from considering the
 			 * current class with it's super. (this can happen with
 			 * interfaces, however) */
-			assertIntersection(globalAVT.entrySet(), globalCVT.entrySet(), Collections.emptySet());
+			assertDisjoint(globalAVT, globalCVT);
 			
 			/* add our own declarations to the tables. this could possibly
 			 * override methods from the super class and we're happy
 			 * about this. */
 			globalCVT.putAll(thisMethodSet);
 			globalAVT.putAll(thisAbstractSet);
-			assertIntersection(globalAVT.entrySet(), globalCVT.entrySet(), Collections.emptySet());
+			assertDisjoint(globalAVT, globalCVT);
 			
-			concreteVTables.put(c, globalCVT);
-			abstractVTables.put(c, globalAVT);
+			cvt = globalCVT;
+			avt = globalAVT;
 			
 			if(debugLevel >= 3) {
 				LOGGER.debug(" globalCVT: ");
@@ -403,16 +464,32 @@ public class DefaultInvocationResolver implements InvocationResolver {
 				}
 			}
 			
-			assertIntersection(concreteVTables.get(c).entrySet(), abstractVTables.get(c).entrySet(), Collections.emptySet());
+			assertDisjoint(globalCVT, globalAVT);
 //			validateTables();
 			
 			if(debugLevel >= 2) {
 				LOGGER.debug(" cvtable: ");
-				print(concreteVTables.get(c));
+				print(globalCVT);
 				LOGGER.debug(" avtable: " );
-				print(abstractVTables.get(c));
+				print(globalAVT);
 			}
 		}
+		
+		methodLists.put(c, new ArrayList<>(c.getMethods()));
+		abstractVTables.put(c, avt);
+		concreteVTables.put(c, cvt);
+	}
+	
+	private List<MethodNode> getMethods(ClassNode c) {
+		List<MethodNode> methods = methodLists.get(c);
+		if(methods == null) {
+			/* a table may be being built for the class, so the first
+			 * copy is taken holding the lock. */
+			synchronized(app.getClassTree()) {
+				methods = methodLists.computeIfAbsent(c, k -> new ArrayList<>(k.getMethods()));
+			}
+		}
+		return methods;
 	}
 	
 	private <K, V> void putOrThrow(Map<K, V> map, K k, V v) {
@@ -424,26 +501,26 @@ public class DefaultInvocationResolver implements InvocationResolver {
 	}
 	
 	private void validateTables() {
-		for(Map<Selector, MethodNode> map : concreteVTables.values()) {
-			for(MethodNode m : map.values()) {
+		for(VTable table : concreteVTables.values()) {
+			table.forEach((s, m) -> {
 				if(Modifier.isAbstract(m.node.access)) {
 					throw new IllegalStateException();
 				}
-			}
+			});
 		}
 
-		for(Entry<ClassNode, Map<Selector, MethodNode>> e : abstractVTables.entrySet()) {
-			Map<Selector, MethodNode> map = e.getValue();
-			if(map.size() > 0) {
+		for(Entry<ClassNode, VTable> e : abstractVTables.entrySet()) {
+			VTable table = e.getValue();
+			if(table.size() > 0) {
 				if(!Modifier.isAbstract(e.getKey().node.access)) {
 					throw new IllegalStateException();
 				}
 			}
-			for(MethodNode m : map.values()) {
+			table.forEach((s, m) -> {
 				if(!Modifier.isAbstract(m.node.access)) {
 					throw new IllegalStateException();
 				}
-			}
+			});
 		}
 	}
 	
@@ -526,36 +603,50 @@ public class DefaultInvocationResolver implements InvocationResolver {
 	
 	private boolean isSuperOf(ClassNode subKlass, ClassNode superKlass) {
 		// return true iff n2 is a superclass or interface of n1
-		return app.getClassTree().getAllParents(subKlass).contains(superKlass);
+		return app.getClassTree().isSubtypeOf(subKlass, superKlass);
 	}
 	
-	private void add(Map<Selector, MethodNode> map,
+	private void add(VTable table,
 			NullPermeableHashMap<Selector, Set<MethodNode>> conflicts) {
 		
-		for(Entry<Selector, MethodNode> e : map.entrySet()) {
-			conflicts.getNonNull(e.getKey()).add(e.getValue());
+		table.forEach((s, m) -> conflicts.getNonNull(s).add(m));
+	}
+	
+	private Selector intern(String name, String desc) {
+		Selector key = new Selector(name, desc);
+		Selector s = selectors.get(key);
+		if(s == null) {
+			s = selectors.computeIfAbsent(key, k -> new Selector(name, desc, selectorCounter.getAndIncrement()));
 		}
+		return s;
 	}
 	
 	public MethodNode resolve(ClassNode receiver, String name, String desc, boolean strict) {
 		/*if(strict && receiver.isAbstract()) {
 			throw new UnsupportedOperationException(String.format("Tried to call method on abstract receiver: %s.%s %s", receiver, name, desc));
 		}*/
-		Selector selector = new Selector(name, desc);
-		
-		if(!hasVisited(receiver)) {
-			if(app.getClassTree().getChildren(receiver).size() > 0) {
-				throw new UnsupportedOperationException(String.format("No table for %s", receiver));
-			}
+		VTable cvtable, avtable;
+		for(;;) {
+			/* computes the tables of the receiver and its supertypes
+			 * if they haven't been yet. */
 			computeVTable(receiver);
-
+			
+			/* the abstract table is published first, so if the
+			 * concrete one didn't change while we read both, they are
+			 * from the same build. otherwise an invalidate() got in
+			 * between and we go again. */
+			cvtable = concreteVTables.get(receiver);
+			avtable = abstractVTables.get(receiver);
+			if(cvtable != null && avtable != null && concreteVTables.get(receiver) == cvtable) {
+				break;
+			}
 		}
 
-		Map<Selector, MethodNode> cvtable = concreteVTables.get(receiver);
-		Map<Selector, MethodNode> avtable = abstractVTables.get(receiver);
+		/* a selector that was never interned isn't declared anywhere. */
+		Selector selector = selectors.get(new Selector(name, desc));
 
-		MethodNode cm = cvtable.get(selector);
-		MethodNode am = avtable.get(selector);
+		MethodNode cm = selector != null ? cvtable.get(selector) : null;
+		MethodNode am = selector != null ? avtable.get(selector) : null;
 
 		if(cm == null && am == null) {
 			if(strict) {
@@ -585,7 +676,7 @@ public class DefaultInvocationResolver implements InvocationResolver {
 			return null;
 		}
 		
-		for(MethodNode mn : cn.getMethods()) {
+		for(MethodNode mn : getMethods(cn)) {
 			if(mn.getName().equals(name) && mn.getDesc().equals(desc)) {
 				return mn;
 			}
@@ -621,7 +712,7 @@ public class DefaultInvocationResolver implements InvocationResolver {
 		
 		Set<MethodNode> result = new HashSet<>();
 		
-		for(ClassNode receiver : app.getClassTree().getAllChildren(cn)) {
+		for(ClassNode receiver : app.getClassTree().getDescendants(cn)) {
 			if(!Modifier.isAbstract(receiver.node.access)) {
 				// use strict mode = false for incomplete analysis
 				MethodNode target = resolve(receiver, name, desc, true);
@@ -725,7 +816,32 @@ public class DefaultInvocationResolver implements InvocationResolver {
 
 	@Override
 	public Set<MethodNode> getHierarchyMethodChain(ClassNode cn, String name, String desc, boolean exact) {
-		return hierarchyMethodsHelper.getHierarchyMethodChain(cn, name, desc, exact);
+		return getMethodFamilies().getFamily(cn, name, desc, exact);
+	}
+	
+	private MethodFamilyIndex getMethodFamilies() {
+		ClassTree tree = app.getClassTree();
+		synchronized(tree) {
+			int modCount = tree.getModCount();
+			if(methodFamilies == null || methodFamiliesModCount != modCount) {
+				methodFamilies = new MethodFamilyIndex(app);
+				methodFamiliesModCount = modCount;
+			}
+			return methodFamilies;
+		}
+	}
+	
+	@Override
+	public void invalidate() {
+		/* the tables are keyed on method names, so drop them and let
+		 * resolve() compute them again as they are needed. no table is
+		 * being built while we hold the lock. */
+		synchronized(app.getClassTree()) {
+			concreteVTables.clear();
+			abstractVTables.clear();
+			methodLists.clear();
+			methodFamilies = null;
+		}
 	}
 
 	// debug methods
@@ -750,6 +866,10 @@ public class DefaultInvocationResolver implements InvocationResolver {
 		}
 	}
 	
+	protected void print(VTable t) {
+		print(t.toMap());
+	}
+	
 	protected void printMap(Map<Selector, Set<MethodNode>> m) {
 		for (Entry<Selector, Set<MethodNode>> e : m.entrySet()) {
 			LOGGER.debug("     " + e.getKey());
@@ -759,6 +879,12 @@ public class DefaultInvocationResolver implements InvocationResolver {
 		}
 	}
 	
+	private void assertDisjoint(VTable t1, VTable t2) {
+		if(debugLevel >= 1) {
+			assertIntersection(t1.toMap().entrySet(), t2.toMap().entrySet(), Collections.emptySet());
+		}
+	}
+	
 	private <N> void assertIntersection(Set<N> s1, Set<N> s2, Set<N> expected) {
 		if(debugLevel >= 1) {
 			Set<N> tmp = new HashSet<>();
@@ -775,10 +901,20 @@ public class DefaultInvocationResolver implements InvocationResolver {
 
 		public final String name;
 		public final String desc;
+		/* dense id given out when the selector is interned, used
+		 * as the hash in the vtables, or -1. */
+		final int id;
 
+		/* selectors made here are only compared by name and desc; the
+		 * resolver looks up its own interned one to use in the tables. */
 		public Selector(String name, String desc) {
+			this(name, desc, -1);
+		}
+
+		Selector(String name, String desc, int id) {
 			this.name = name;
 			this.desc = desc;
+			this.id = id;
 		}
 
 		@Override
@@ -0,0 +1,237 @@
+package org.mapleir;
+
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+import org.mapleir.app.service.ApplicationClassSource;
+import org.mapleir.app.service.ClassTree;
+import org.mapleir.asm.ClassNode;
+import org.mapleir.asm.MethodDescriptor;
+import org.mapleir.asm.MethodNode;
+import org.mapleir.ir.TypeUtils;
+import org.objectweb.asm.Type;
+
+/**
+ * Groups the instance methods of all classes in the {@link ClassTree} into
+ * families of methods that have to be renamed together: those with the same
+ * name and parameter types that are declared in classes of the same
+ * connected part of the hierarchy. Classes are only connected through their
+ * application supertypes, otherwise every class implementing
+ * <code>java/io/Serializable</code> or <code>java/lang/Comparable</code>
+ * (and, through <code>java/lang/Object</code>, every class at all) would end
+ * up in one part. The methods of the library supertypes of a part are still
+ * in its families, as are the methods of the root, so an override of a
+ * library method is never renamed on its own.
+ *
+ * <p> The index is built in a single pass over the tree: the connected parts
+ * are found with a union-find over the classes, after which every method is
+ * filed under its part, name and parameter descriptor. Descriptors are only
+ * parsed when return types have to be compared loosely.
+ */
+public class MethodFamilyIndex {
+
+	private final ApplicationClassSource app;
+	private final ClassTree tree;
+	private final Map<ClassNode, Integer> ids;
+	private final int[] parent;
+	/* part -> the parts of its library supertypes and, for the part of a
+	 * library class, the parts of the classes below it. */
+	private final Map<Integer, Set<Integer>> related;
+	private final Map<FamilyKey, List<MethodNode>> families;
+
+	public MethodFamilyIndex(ApplicationClassSource app) {
+		this.app = app;
+		tree = app.getClassTree();
+		ClassNode root = tree.getRootNode();
+
+		ids = new HashMap<>();
+		for(ClassNode cn : tree.vertices()) {
+			ids.put(cn, ids.size());
+		}
+		parent = new int[ids.size()];
+		for(int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		for(ClassNode cn : tree.vertices()) {
+			if(cn == root) {
+				continue;
+			}
+			for(ClassNode sup : tree.iterateParents(cn)) {
+				if(sup != root && app.isApplicationClass(sup.getName())) {
+					union(ids.get(cn), ids.get(sup));
+				}
+			}
+		}
+
+		related = new HashMap<>();
+		for(ClassNode cn : tree.vertices()) {
+			if(cn == root) {
+				continue;
+			}
+			int component = find(ids.get(cn));
+			for(ClassNode sup : tree.iterateParents(cn)) {
+				if(sup == root || app.isApplicationClass(sup.getName())) {
+					continue;
+				}
+				relate(component, sup);
+				for(ClassNode anc : tree.getAncestors(sup)) {
+					if(anc != root) {
+						relate(component, anc);
+					}
+				}
+			}
+		}
+
+		families = new HashMap<>();
+		for(ClassNode cn : tree.vertices()) {
+			int component = find(ids.get(cn));
+			for(MethodNode m : cn.getMethods()) {
+				if(!Modifier.isStatic(m.node.access)) {
+					FamilyKey key = new FamilyKey(component, m.getName(), m.getDesc());
+					families.computeIfAbsent(key, k -> new ArrayList<>(2)).add(m);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param cn A class.
+	 * @param name The name of the method.
+	 * @param desc The descriptor of the method.
+	 * @param exact Whether the return type has to match exactly, or only
+	 * has to be congruent, i.e. a subtype or supertype of the given one.
+	 * @return The family of instance methods the given one belongs to.
+	 */
+	public Set<MethodNode> getFamily(ClassNode cn, String name, String desc, boolean exact) {
+		Set<MethodNode> res = new HashSet<>();
+		Integer id = ids.get(cn);
+		if(id == null) {
+			/* not in the tree, e.g. because one of its supertypes couldn't be
+			 * found, so it is only related to itself. */
+			FamilyKey key = new FamilyKey(-1, name, desc);
+			List<MethodNode> own = new ArrayList<>();
+			for(MethodNode m : cn.getMethods()) {
+				if(!Modifier.isStatic(m.node.access) && key.equals(new FamilyKey(-1, m.getName(), m.getDesc()))) {
+					own.add(m);
+				}
+			}
+			collect(res, own, desc, exact);
+			return res;
+		}
+		int component = find(id);
+		collect(res, families.get(new FamilyKey(component, name, desc)), desc, exact);
+		Set<Integer> others = related.get(component);
+		if(others != null) {
+			for(int other : others) {
+				collect(res, families.get(new FamilyKey(other, name, desc)), desc, exact);
+			}
+		}
+		ClassNode root = tree.getRootNode();
+		if(cn != root) {
+			collect(res, families.get(new FamilyKey(find(ids.get(root)), name, desc)), desc, exact);
+		}
+		return res;
+	}
+
+	private void collect(Set<MethodNode> res, List<MethodNode> family, String desc, boolean exact) {
+		if(family == null) {
+			return;
+		}
+		Type ret = null;
+		for(MethodNode m : family) {
+			if(desc.equals(m.getDesc())) {
+				res.add(m);
+			} else if(!exact) {
+				if(ret == null) {
+					ret = MethodDescriptor.getReturnType(desc);
+				}
+				if(areTypesCongruent(ret, m.getDescriptor().getReturnType())) {
+					res.add(m);
+				}
+			}
+		}
+	}
+
+	private boolean areTypesCongruent(Type a, Type b) {
+		if(a.equals(b)) {
+			return true;
+		}
+
+		boolean eArr = a.getSort() == Type.ARRAY;
+		boolean aArr = b.getSort() == Type.ARRAY;
+		if(eArr != aArr) {
+			return false;
+		}
+
+		if(eArr) {
+			a = a.getElementType();
+			b = b.getElementType();
+		}
+
+		if(TypeUtils.isPrimitive(a) || TypeUtils.isPrimitive(b)) {
+			return false;
+		}
+		if(a == Type.VOID_TYPE || b == Type.VOID_TYPE) {
+			return false;
+		}
+
+		ClassNode cnA = app.findClassNode(a.getInternalName());
+		ClassNode cnB = app.findClassNode(b.getInternalName());
+		return tree.isSubtypeOf(cnB, cnA) || tree.isSubtypeOf(cnA, cnB);
+	}
+
+	private void relate(int component, ClassNode lib) {
+		int other = find(ids.get(lib));
+		if(other != component) {
+			related.computeIfAbsent(component, k -> new HashSet<>()).add(other);
+			related.computeIfAbsent(other, k -> new HashSet<>()).add(component);
+		}
+	}
+
+	private int find(int i) {
+		while(parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	private void union(int a, int b) {
+		a = find(a);
+		b = find(b);
+		if(a != b) {
+			parent[Math.max(a, b)] = Math.min(a, b);
+		}
+	}
+
+	private static final class FamilyKey {
+		final int component;
+		final String name;
+		/* the parameter part of the descriptor, including the parentheses. */
+		final String params;
+		final int hash;
+
+		FamilyKey(int component, String name, String desc) {
+			this.component = component;
+			this.name = name;
+			params = desc.substring(0, desc.lastIndexOf(')') + 1);
+			hash = (component * 31 + name.hashCode()) * 31 + params.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) {
+				return true;
+			} else if(!(o instanceof FamilyKey)) {
+				return false;
+			}
+			FamilyKey other = (FamilyKey) o;
+			return hash == other.hash && component == other.component && name.equals(other.name) && params.equals(other.params);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package org.mapleir;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.mapleir.DefaultInvocationResolver.Selector;
+import org.mapleir.asm.MethodNode;
+
+/**
+ * A method table of a class that shares structure with the table of its
+ * super class: it only stores the entries that were added, replaced or
+ * removed in the class itself and falls back to its parent for everything
+ * else.
+ *
+ * <p> To keep lookups constant time, a table that would end up more than
+ * {@link #MAX_DEPTH} links away from a flat table is flattened instead, so
+ * a full copy of the inherited entries is only made every few levels of a
+ * hierarchy rather than for every class.
+ *
+ * <p> Keys are interned {@link Selector}s and are hashed on their id.
+ */
+class VTable {
+	static final int MAX_DEPTH = 6;
+
+	/* marks an entry of the parent that was removed in this table. */
+	private static final Object REMOVED = new Object();
+
+	private final VTable parent;
+	private final int depth;
+	private Selector[] keys;
+	private Object[] vals;
+	private int count;
+
+	VTable() {
+		parent = null;
+		depth = 0;
+		keys = new Selector[8];
+		vals = new Object[8];
+	}
+
+	/**
+	 * Creates a table that starts off with the same entries as the given one.
+	 */
+	VTable(VTable parent) {
+		keys = new Selector[8];
+		vals = new Object[8];
+		if(parent.depth >= MAX_DEPTH) {
+			this.parent = null;
+			depth = 0;
+			parent.forEach(this::put);
+		} else {
+			this.parent = parent;
+			depth = parent.depth + 1;
+		}
+	}
+
+	MethodNode get(Selector s) {
+		for(VTable t = this; t != null; t = t.parent) {
+			Object v = t.find(s);
+			if(v != null) {
+				return v == REMOVED ? null : (MethodNode) v;
+			}
+		}
+		return null;
+	}
+
+	boolean containsKey(Selector s) {
+		return get(s) != null;
+	}
+
+	void put(Selector s, MethodNode m) {
+		if(m == null) {
+			throw new NullPointerException();
+		}
+		store(s, m);
+	}
+
+	void putAll(Map<Selector, MethodNode> map) {
+		for(Map.Entry<Selector, MethodNode> e : map.entrySet()) {
+			put(e.getKey(), e.getValue());
+		}
+	}
+
+	void remove(Selector s) {
+		if(find(s) != null || (parent != null && parent.get(s) != null)) {
+			store(s, REMOVED);
+		}
+	}
+
+	/**
+	 * Visits every entry of the table, including the inherited ones, once.
+	 */
+	void forEach(BiConsumer<Selector, MethodNode> action) {
+		if(parent == null) {
+			for(int i = 0; i < keys.length; i++) {
+				if(keys[i] != null && vals[i] != REMOVED) {
+					action.accept(keys[i], (MethodNode) vals[i]);
+				}
+			}
+			return;
+		}
+		BitSet seen = new BitSet();
+		for(VTable t = this; t != null; t = t.parent) {
+			for(int i = 0; i < t.keys.length; i++) {
+				Selector s = t.keys[i];
+				if(s != null && !seen.get(s.id)) {
+					seen.set(s.id);
+					if(t.vals[i] != REMOVED) {
+						action.accept(s, (MethodNode) t.vals[i]);
+					}
+				}
+			}
+		}
+	}
+
+	int size() {
+		int[] n = new int[1];
+		forEach((s, m) -> n[0]++);
+		return n[0];
+	}
+
+	// for debugging.
+	Map<Selector, MethodNode> toMap() {
+		Map<Selector, MethodNode> map = new LinkedHashMap<>();
+		forEach(map::put);
+		return map;
+	}
+
+	private Object find(Selector s) {
+		return vals[slot(s)];
+	}
+
+	private int slot(Selector s) {
+		int mask = keys.length - 1;
+		int i = mix(s.id) & mask;
+		while(keys[i] != null && keys[i] != s) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private void store(Selector s, Object v) {
+		int i = slot(s);
+		if(keys[i] == null) {
+			if((count + 1) * 4 > keys.length * 3) {
+				grow();
+				i = slot(s);
+			}
+			keys[i] = s;
+			count++;
+		}
+		vals[i] = v;
+	}
+
+	private void grow() {
+		Selector[] oldKeys = keys;
+		Object[] oldVals = vals;
+		keys = new Selector[oldKeys.length * 2];
+		vals = new Object[oldVals.length * 2];
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] != null) {
+				int j = slot(oldKeys[i]);
+				keys[j] = oldKeys[i];
+				vals[j] = oldVals[i];
+			}
+		}
+	}
+
+	private static int mix(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
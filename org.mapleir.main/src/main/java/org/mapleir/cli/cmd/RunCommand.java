@@ -6,8 +6,13 @@ import org.mapleir.DefaultInvocationResolver;
 import org.mapleir.Main;
 import org.mapleir.app.client.SimpleApplicationContext;
 import org.mapleir.app.service.ApplicationClassSource;
-import org.mapleir.app.service.CompleteResolvingJarDumper;
+import org.mapleir.app.service.CachingInvocationResolver;
+import org.mapleir.app.service.ClassHeaderCache;
+import org.mapleir.app.service.IncrementalBuildCache;
+import org.mapleir.app.service.JrtClassSource;
+import org.mapleir.app.service.LazyLibraryClassSource;
 import org.mapleir.app.service.LibraryClassSource;
+import org.mapleir.app.service.ParallelResolvingJarDumper;
 import org.mapleir.asm.ClassNode;
 import org.mapleir.asm.MethodNode;
 import org.mapleir.cli.CliLog;
@@ -22,13 +27,12 @@ import org.mapleir.deob.dataflow.LiveDataFlowAnalysisImpl;
 import org.mapleir.deob.passes.fixer.ExceptionFixerPass;
 import org.mapleir.deob.passes.rename.ClassRenamerPass;
 import org.mapleir.deob.util.RenamingHeuristic;
-import org.mapleir.ir.algorithms.BoissinotDestructor;
-import org.mapleir.ir.algorithms.LocalsReallocator;
 import org.mapleir.ir.cfg.ControlFlowGraph;
 import org.mapleir.ir.cfg.builder.ControlFlowGraphBuilder;
-import org.mapleir.ir.codegen.ControlFlowGraphDumper;
+import org.mapleir.ir.codegen.ControlFlowGraphRetranslator;
 import org.topdank.byteengineer.commons.data.JarInfo;
-import org.topdank.byteio.in.SingleJarDownloader;
+import org.topdank.byteio.in.AbstractJarDownloader;
+import org.topdank.byteio.in.MappedJarDownloader;
 import picocli.CommandLine;
 
 import java.io.*;
@@ -51,16 +55,36 @@ public class RunCommand implements Callable<Integer> {
 
     @CommandLine.Option(
             names = {"-rt", "--runtime"},
-            description = "Path to the runtime jar"
+            description = "Path to the runtime jar, or to a JDK 9+ home to read classes from its jrt:/ filesystem"
     )
     private File runtime;
 
+    @CommandLine.Option(
+            names = {"--header-cache"},
+            arity = "0..1",
+            fallbackValue = "",
+            description = "Load the runtime jar from a cache of class headers, kept next to the jar or in the given directory"
+    )
+    private String headerCache;
+
+    @CommandLine.Option(
+            names = {"--incremental"},
+            description = "Directory in which to keep the output of the previous run, so that only changed classes are processed again"
+    )
+    private File incremental;
+
     @CommandLine.Option(
             names = {"-o", "--output"},
             description = "Path to the output jar location"
     )
     private File output;
 
+    @CommandLine.Option(
+            names = {"-j", "--threads"},
+            description = "Number of worker threads used for loading, building, retranslating and writing (defaults to the number of processors)"
+    )
+    private int threads = Runtime.getRuntime().availableProcessors();
+
     private final CliLog logger = new CliLog();
 
     @Override
@@ -74,7 +98,7 @@ public class RunCommand implements Callable<Integer> {
 
         // Initialization
         logger.section("Preparing to run on " + input.getAbsolutePath());
-        SingleJarDownloader<ClassNode> dl = new SingleJarDownloader<>(new JarInfo(input));
+        AbstractJarDownloader<ClassNode> dl = new MappedJarDownloader<>(new JarInfo(input), Math.max(1, threads));
         dl.download();
         String appName = input.getName().substring(0, input.getName().length() - 4);
         ApplicationClassSource app = new ApplicationClassSource(appName, dl.getJarContents().getClassContents());
@@ -85,7 +109,10 @@ public class RunCommand implements Callable<Integer> {
 
         logger.section("Importing runtime...");
         if (runtime == null) {
-            runtime = new File(System.getProperty("java.home"), "lib/rt.jar");
+            File rtjar = new File(System.getProperty("java.home"), "lib/rt.jar");
+            if (rtjar.exists()) {
+                runtime = rtjar;
+            }
         }
         app.addLibraries(rt(app, runtime));
 
@@ -94,18 +121,29 @@ public class RunCommand implements Callable<Integer> {
         IRCache irFactory = new IRCache(ControlFlowGraphBuilder::build);
         AnalysisContext cxt = new BasicAnalysisContext.BasicContextBuilder()
                 .setApplication(app)
-                .setInvocationResolver(new DefaultInvocationResolver(app))
+                .setInvocationResolver(new CachingInvocationResolver(app, new DefaultInvocationResolver(app, true)))
                 .setCache(irFactory)
                 .setApplicationContext(new SimpleApplicationContext(app))
                 .setDataFlowAnalysis(new LiveDataFlowAnalysisImpl(irFactory))
                 .build();
 
+        IncrementalBuildCache buildCache = null;
+        if (incremental != null) {
+            logger.section("Fingerprinting input classes.");
+            buildCache = new IncrementalBuildCache(incremental, IncrementalBuildCache.runtimeKey(runtime));
+            buildCache.load();
+            Set<String> dirty = buildCache.update(IncrementalBuildCache.fingerprint(input), app);
+            logger.print(String.format("%d of %d classes changed.", dirty.size(), app.size()));
+        }
+
         logger.section("Expanding callgraph and generating cfgs.");
+        List<MethodNode> methods = new ArrayList<>();
         for (ClassNode cn : cxt.getApplication().iterate()) {
-            for (MethodNode m : cn.getMethods()) {
-                cxt.getIRCache().getFor(m);
+            if (buildCache == null || buildCache.isDirty(cn.getName())) {
+                methods.addAll(cn.getMethods());
             }
         }
+        cxt.getIRCache().warmUp(methods, Math.max(1, threads));
         logger.section0("...generated " + cxt.getIRCache().size() + " cfgs in %fs.%n", "Preparing to transform.");
 
         // do passes
@@ -124,46 +162,46 @@ public class RunCommand implements Callable<Integer> {
         }
 
         logger.section("Retranslating SSA IR to standard flavour.");
-        for(Map.Entry<MethodNode, ControlFlowGraph> e : cxt.getIRCache().entrySet()) {
-            MethodNode mn = e.getKey();
-            // if (!mn.getName().equals("openFiles"))
-            // 	continue;
-            ControlFlowGraph cfg = e.getValue();
-
-            // System.out.println(cfg);
-            //  CFGUtils.easyDumpCFG(cfg, "pre-destruct");
-            cfg.verify();
-
-            BoissinotDestructor.leaveSSA(cfg);
-
-            // CFGUtils.easyDumpCFG(cfg, "pre-reaalloc");
-            LocalsReallocator.realloc(cfg);
-            // CFGUtils.easyDumpCFG(cfg, "post-reaalloc");
-            // System.out.println(cfg);
-            cfg.verify();
-            // System.out.println("Rewriting " + mn.getName());
-            (new ControlFlowGraphDumper(cfg, mn)).dump();
-            // System.out.println(InsnListUtils.insnListToString(mn.instructions));
-        }
+        ControlFlowGraphRetranslator.retranslateAll(cxt.getIRCache(), Math.max(1, threads));
 
         logger.section("Rewriting jar.");
-        dumpJar(app, dl, masterGroup, output.getPath());
+        dumpJar(app, dl, masterGroup, output.getPath(), buildCache);
+        if (buildCache != null) {
+            buildCache.save();
+        }
+        closeLibraries(app);
 
         logger.section("Finished.");
 
         return 0;
     }
 
-    private LibraryClassSource rt(ApplicationClassSource app, File rtjar) throws IOException {
-        logger.section("Loading " + rtjar.getName() + " from " + rtjar.getAbsolutePath());
-        SingleJarDownloader<ClassNode> dl = new SingleJarDownloader<>(new JarInfo(rtjar));
-        dl.download();
+    private LibraryClassSource rt(ApplicationClassSource app, File rt) throws IOException {
+        if (rt == null) {
+            logger.section("Using jrt:/ of the running JDK at " + System.getProperty("java.home"));
+            return new JrtClassSource(app);
+        } else if (rt.isDirectory()) {
+            logger.section("Using jrt:/ of the JDK at " + rt.getAbsolutePath());
+            return new JrtClassSource(app, rt);
+        } else if (headerCache != null) {
+            logger.section("Loading headers of " + rt.getName() + " from " + rt.getAbsolutePath());
+            return new ClassHeaderCache(headerCache.isEmpty() ? null : new File(headerCache)).load(app, rt);
+        } else {
+            logger.section("Indexing " + rt.getName() + " from " + rt.getAbsolutePath());
+            return new LazyLibraryClassSource(app, rt);
+        }
+    }
 
-        return new LibraryClassSource(app, dl.getJarContents().getClassContents());
+    private static void closeLibraries(ApplicationClassSource app) throws IOException {
+        for (LibraryClassSource lib : app.getLibraries()) {
+            if (lib instanceof Closeable) {
+                ((Closeable) lib).close();
+            }
+        }
     }
 
-    private void dumpJar(ApplicationClassSource app, SingleJarDownloader<ClassNode> dl, PassGroup masterGroup, String outputFile) throws IOException {
-        (new CompleteResolvingJarDumper(dl.getJarContents(), app) {
+    private void dumpJar(ApplicationClassSource app, AbstractJarDownloader<ClassNode> dl, PassGroup masterGroup, String outputFile, IncrementalBuildCache buildCache) throws IOException {
+        (new ParallelResolvingJarDumper(dl.getJarContents(), app, buildCache, Math.max(1, threads)) {
             @Override
             public int dumpResource(JarOutputStream out, String name, byte[] file) throws IOException {
 //				if(name.startsWith("META-INF")) {
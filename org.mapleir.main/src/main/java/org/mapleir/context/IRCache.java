@@ -8,14 +8,32 @@ import org.mapleir.stdlib.collections.map.NullPermeableHashMap;
 import org.mapleir.stdlib.util.JavaDesc;
 import org.mapleir.asm.MethodNode;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 public class IRCache extends NullPermeableHashMap<MethodNode, ControlFlowGraph> {
 	private static final long serialVersionUID = 1L;
 	
+	private final KeyedValueCreator<MethodNode, ControlFlowGraph> creator;
+	/* the cached methods by their descriptors, kept up to date by put and
+	 * remove. it goes stale when a cached method is renamed in place or
+	 * removed through one of the views, neither of which the cache sees,
+	 * so a hit is checked before it is returned and a miss rebuilds the
+	 * index before it is believed. */
+	private transient Map<JavaDesc, MethodNode> methodsByDesc;
+
 	public IRCache(KeyedValueCreator<MethodNode, ControlFlowGraph> creator) {
 		super(creator);
+		this.creator = creator;
 	}
 	
 	public IRCache() {
@@ -26,8 +44,114 @@ public class IRCache extends NullPermeableHashMap<MethodNode, ControlFlowGraph>
 		return getNonNull(m);
 	}
 
+	/**
+	 * Builds the graphs for all of the given methods that are not already
+	 * cached, running the creator for each method concurrently on a dedicated
+	 * {@link ForkJoinPool}. Results are collected into a concurrent map and
+	 * only published into this cache once every build has finished, so the
+	 * cache itself is never written to by more than one thread.
+	 *
+	 * @param methods The methods to build graphs for.
+	 * @param parallelism The number of worker threads to use. ( &gt;= 1)
+	 */
+	public void warmUp(Collection<MethodNode> methods, int parallelism) {
+		List<MethodNode> todo = new ArrayList<>();
+		for(MethodNode m : methods) {
+			if(!containsKey(m)) {
+				todo.add(m);
+			}
+		}
+
+		if(todo.isEmpty()) {
+			return;
+		}
+
+		ConcurrentHashMap<MethodNode, ControlFlowGraph> built = new ConcurrentHashMap<>(todo.size());
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.submit(() -> todo.parallelStream().forEach(m -> built.put(m, creator.create(m)))).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while building graphs", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Failed to build graphs", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+
+		putAll(built);
+	}
+
+	/**
+	 * @param jd The desc of a method.
+	 * @return The cached method with the given desc, or null if there is
+	 * none.
+	 */
 	public MethodNode findMethod(JavaDesc jd) {
-		return getActiveMethods().stream().filter(mn -> mn.getJavaDesc().equals(jd)).findFirst().orElseGet(null);
+		if(methodsByDesc == null) {
+			reindex();
+		}
+		MethodNode m = methodsByDesc.get(jd);
+		if(m != null && containsKey(m) && m.getJavaDesc().equals(jd)) {
+			return m;
+		}
+		reindex();
+		return methodsByDesc.get(jd);
+	}
+
+	private void reindex() {
+		methodsByDesc = new HashMap<>(size() * 4 / 3 + 1);
+		for(MethodNode mn : keySet()) {
+			methodsByDesc.put(mn.getJavaDesc(), mn);
+		}
+	}
+
+	private void indexed(MethodNode m) {
+		if(methodsByDesc != null) {
+			methodsByDesc.put(m.getJavaDesc(), m);
+		}
+	}
+
+	@Override
+	public ControlFlowGraph put(MethodNode m, ControlFlowGraph cfg) {
+		ControlFlowGraph prev = super.put(m, cfg);
+		indexed(m);
+		return prev;
+	}
+
+	@Override
+	public void putAll(Map<? extends MethodNode, ? extends ControlFlowGraph> m) {
+		for(Map.Entry<? extends MethodNode, ? extends ControlFlowGraph> e : m.entrySet()) {
+			put(e.getKey(), e.getValue());
+		}
+	}
+
+	@Override
+	public ControlFlowGraph computeIfAbsent(MethodNode m, Function<? super MethodNode, ? extends ControlFlowGraph> mappingFunction) {
+		ControlFlowGraph cfg = get(m);
+		if(cfg == null) {
+			cfg = mappingFunction.apply(m);
+			if(cfg != null) {
+				put(m, cfg);
+			}
+		}
+		return cfg;
+	}
+
+	@Override
+	public ControlFlowGraph remove(Object o) {
+		ControlFlowGraph cfg = super.remove(o);
+		if(cfg != null && methodsByDesc != null) {
+			MethodNode m = (MethodNode) o;
+			methodsByDesc.remove(m.getJavaDesc(), m);
+		}
+		return cfg;
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		methodsByDesc = null;
 	}
 	
 	public Set<MethodNode> getActiveMethods() {
@@ -60,7 +60,7 @@ public class SensitiveCallGraphBuilder implements Worklist.Worker<MethodNode> {
 		}
 
 		for (Stmt stmt : cfg.stmts()) {
-			for (Expr e : stmt.enumerateOnlyChildren()) {
+			for (Expr e : stmt.walk()) {
 				if (e instanceof Invocation) {
 					Invocation invoke = (Invocation) e;
 
@@ -17,7 +17,6 @@ import org.mapleir.ir.code.Stmt;
 import org.mapleir.ir.code.expr.invoke.Invocation;
 import org.mapleir.ir.code.stmt.copy.CopyVarStmt;
 import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.Type;
 import org.mapleir.asm.MethodNode;
 
 public class IPAnalysis extends IRCallTracer implements Opcode {
@@ -110,7 +109,7 @@ public class IPAnalysis extends IRCallTracer implements Opcode {
 		// indices in the method descriptor.
 		boolean isStatic = (m.node.access & Opcodes.ACC_STATIC) != 0;
 		
-		int paramCount = Type.getArgumentTypes(m.getDesc()).length;
+		int paramCount = m.getDescriptor().getArgumentCount();
 		int off = (isStatic ? 0 : 1);
 		int synthCount = paramCount + off;
 		List<List<Expr>> lists = new ArrayList<>(synthCount);
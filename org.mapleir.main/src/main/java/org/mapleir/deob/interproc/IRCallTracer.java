@@ -33,7 +33,7 @@ public class IRCallTracer extends CallTracer {
 		}
 
 		for (Stmt stmt : cfg.stmts()) {
-			for (Expr c : stmt.enumerateOnlyChildren()) {
+			for (Expr c : stmt.walk()) {
 				if (c instanceof Invocation) {
 					traceInvocation(m, (Invocation) c);
 				}
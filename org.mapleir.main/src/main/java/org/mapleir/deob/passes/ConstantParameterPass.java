@@ -57,7 +57,7 @@ public class ConstantParameterPass implements IPass, Opcode {
 		IPAnalysisVisitor vis = new IPAnalysisVisitor() {
 			@Override
 			public void postVisitMethod(IPAnalysis analysis, MethodNode m) {
-				int pCount = Type.getArgumentTypes(m.getDesc()).length;
+				int pCount = m.getDescriptor().getArgumentCount();
 				
 				/* init map entries */
 				if(!chainedNonConstant.containsKey(m)) {
@@ -58,12 +58,10 @@ public class DeadCodeEliminationPass implements IPass {
 //							System.out.println("  kill1 " + copy.getVariable().getLocal());
 						}
 						
-						for(Expr e : stmt.enumerateOnlyChildren()) {
-							if(e.getOpcode() == Opcode.LOCAL_LOAD) {
-								VarExpr v = (VarExpr) e;
-								lp.uses.get(v.getLocal()).remove(v);
-//								System.out.println("  kill2 " + v.getLocal());
-							}
+						for(Expr e : stmt.walk(Opcode.LOCAL_LOAD)) {
+							VarExpr v = (VarExpr) e;
+							lp.uses.get(v.getLocal()).remove(v);
+//							System.out.println("  kill2 " + v.getLocal());
 						}
 					}
 					cfg.removeVertex(b);
@@ -92,7 +92,7 @@ public class FieldRSADecryptionPass implements IPass, Opcode {
 			for(BasicBlock b : cfg.vertices()) {
 				for(Stmt stmt : b) {
 					
-					for(Expr c : stmt.enumerateOnlyChildren()) {
+					for(Expr c : stmt.walk()) {
 						if(c.getOpcode() == ARITHMETIC) {
 							ArithmeticExpr arith = (ArithmeticExpr) c;
 							if(arith.getOperator() == Operator.MUL) {
@@ -168,7 +168,7 @@ public class FieldRSADecryptionPass implements IPass, Opcode {
 						handleFss((FieldStoreStmt) stmt);
 					}
 					
-					for(Expr e : stmt.enumerateOnlyChildren()) {
+					for(Expr e : stmt.walk()) {
 						if(e.getOpcode() == FIELD_LOAD) {
 							if(key((FieldLoadExpr) e).equals("co.k I")) {
 //								System.out.println("HERE2: " + stmt);
@@ -36,7 +36,6 @@ import org.mapleir.ir.code.stmt.copy.AbstractCopyStmt;
 import org.mapleir.ir.locals.Local;
 import org.mapleir.ir.locals.LocalsPool;
 import org.mapleir.stdlib.collections.taint.TaintableSet;
-import org.objectweb.asm.Type;
 import org.mapleir.asm.ClassNode;
 import org.mapleir.asm.MethodNode;
 
@@ -282,7 +281,7 @@ public class ConstantExpressionEvaluatorPass implements IPass, Opcode {
 		@Override
 		public void postVisitMethod(IPAnalysis analysis, MethodNode m) {
 			// Initialise possible value sets for parameters.
-			int pCount = Type.getArgumentTypes(m.node.desc).length;
+			int pCount = m.getDescriptor().getArgumentCount();
 			
 			ControlFlowGraph cfg = cxt.getIRCache().getFor(m);
 			
@@ -320,6 +320,7 @@ public class ClassRenamerPass implements IPass {
 		}
 		
 		source.rebuildTable();
+		cxt.getInvocationResolver().invalidate();
 
 		return PassResult.with(pcxt, this).finished().make();
 	}
@@ -296,6 +296,7 @@ public class MethodRenamerPass implements IPass {
 			System.out.printf("%s -> %s%n", e.getKey(), e.getValue());
 			e.getKey().node.name = e.getValue();
 		}
+		resolver.invalidate();
 
 		return oldNames;
 	}
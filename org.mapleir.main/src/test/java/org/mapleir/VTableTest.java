@@ -0,0 +1,119 @@
+package org.mapleir;
+
+import java.util.*;
+
+import org.mapleir.DefaultInvocationResolver.Selector;
+import org.mapleir.asm.MethodNode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class VTableTest {
+
+	private static final int SELECTORS = 40;
+
+	private final Selector[] selectors = new Selector[SELECTORS];
+	private final MethodNode[] methods = new MethodNode[SELECTORS * 4];
+
+	public VTableTest() {
+		for(int i = 0; i < selectors.length; i++) {
+			selectors[i] = new Selector("m" + i, "()V", i);
+		}
+		for(int i = 0; i < methods.length; i++) {
+			methods[i] = new MethodNode(new org.objectweb.asm.tree.MethodNode(), null);
+		}
+	}
+
+	private static void assertTable(Map<Selector, MethodNode> expected, VTable table) {
+		assertEquals(expected, table.toMap());
+		assertEquals(expected.size(), table.size());
+		for(Map.Entry<Selector, MethodNode> e : expected.entrySet()) {
+			assertTrue(table.containsKey(e.getKey()));
+			assertSame(e.getValue(), table.get(e.getKey()));
+		}
+	}
+
+	@Test
+	public void testOverrideAndRemoveInherited() {
+		VTable root = new VTable();
+		root.put(selectors[0], methods[0]);
+		root.put(selectors[1], methods[1]);
+
+		VTable child = new VTable(root);
+		child.put(selectors[0], methods[2]);
+		child.remove(selectors[1]);
+		child.put(selectors[2], methods[3]);
+
+		assertSame(methods[2], child.get(selectors[0]));
+		assertNull(child.get(selectors[1]));
+		assertFalse(child.containsKey(selectors[1]));
+		assertEquals(2, child.size());
+
+		// the parent is not touched by its children.
+		assertSame(methods[0], root.get(selectors[0]));
+		assertSame(methods[1], root.get(selectors[1]));
+		assertEquals(2, root.size());
+
+		// an entry removed in a parent can be put back further down.
+		VTable grandchild = new VTable(child);
+		grandchild.put(selectors[1], methods[4]);
+		assertSame(methods[4], grandchild.get(selectors[1]));
+		assertEquals(3, grandchild.size());
+	}
+
+	@Test
+	public void testRemoveMissingEntry() {
+		VTable root = new VTable();
+		root.put(selectors[0], methods[0]);
+		VTable child = new VTable(root);
+		child.remove(selectors[5]);
+		assertEquals(1, child.size());
+		assertNull(child.get(selectors[5]));
+	}
+
+	@Test
+	public void testSelectorsCompareByNameAndDesc() {
+		Selector s = new Selector("m0", "()V");
+		assertEquals(selectors[0], s);
+		assertEquals(selectors[0].hashCode(), s.hashCode());
+		assertNotEquals(selectors[1], s);
+		assertNotEquals(new Selector("m0", "()I"), s);
+	}
+
+	@Test
+	public void testDeepChainsMatchFlatMaps() {
+		Random r = new Random(1);
+		for(int run = 0; run < 20; run++) {
+			VTable table = new VTable();
+			Map<Selector, MethodNode> expected = new HashMap<>();
+			List<VTable> tables = new ArrayList<>();
+			List<Map<Selector, MethodNode>> maps = new ArrayList<>();
+
+			// well past MAX_DEPTH so that some of the tables are flattened.
+			for(int level = 0; level < VTable.MAX_DEPTH * 3; level++) {
+				if(level > 0) {
+					table = new VTable(table);
+					expected = new HashMap<>(expected);
+				}
+				int ops = r.nextInt(SELECTORS);
+				for(int i = 0; i < ops; i++) {
+					Selector s = selectors[r.nextInt(SELECTORS)];
+					if(r.nextInt(4) == 0) {
+						table.remove(s);
+						expected.remove(s);
+					} else {
+						MethodNode m = methods[r.nextInt(methods.length)];
+						table.put(s, m);
+						expected.put(s, m);
+					}
+				}
+				tables.add(table);
+				maps.add(expected);
+			}
+
+			for(int i = 0; i < tables.size(); i++) {
+				assertTable(maps.get(i), tables.get(i));
+			}
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package org.mapleir.test;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.mapleir.DefaultInvocationResolver;
+import org.mapleir.app.service.ApplicationClassSource;
+import org.mapleir.app.service.CachingInvocationResolver;
+import org.mapleir.app.service.InvocationResolver;
+import org.mapleir.app.service.JrtClassSource;
+import org.mapleir.asm.ClassNode;
+import org.mapleir.asm.FieldNode;
+import org.mapleir.asm.MethodNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CachingInvocationResolverTest {
+
+	private ApplicationClassSource app;
+	private CountingResolver counting;
+	private CachingInvocationResolver resolver;
+
+	@Before
+	public void setUp() throws Exception {
+		app = new ApplicationClassSource("test", Collections.emptyList());
+		app.addLibraries(new JrtClassSource(app));
+		counting = new CountingResolver(new DefaultInvocationResolver(app, true));
+		/* load what the tests resolve so the tree doesn't change under
+		 * the cache. */
+		counting.resolveVirtualCalls("java/util/ArrayList", "size", "()I", false);
+		counting.resolveStaticCall("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;");
+		counting.calls = 0;
+		resolver = new CachingInvocationResolver(app, counting);
+	}
+
+	@Test
+	public void testResultsAreReused() {
+		Set<MethodNode> targets = resolver.resolveVirtualCalls("java/util/ArrayList", "size", "()I", false);
+		assertSame(targets, resolver.resolveVirtualCalls("java/util/ArrayList", "size", "()I", false));
+		MethodNode valueOf = resolver.resolveStaticCall("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;");
+		assertSame(valueOf, resolver.resolveStaticCall("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;"));
+		assertEquals(2, counting.calls);
+
+		/* strictness is part of the call site. */
+		resolver.resolveVirtualCalls("java/util/ArrayList", "size", "()I", true);
+		assertEquals(3, counting.calls);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testTargetsAreUnmodifiable() {
+		resolver.resolveVirtualCalls("java/util/ArrayList", "size", "()I", false).clear();
+	}
+
+	@Test
+	public void testInvalidate() {
+		resolver.resolveVirtualCalls("java/util/ArrayList", "size", "()I", false);
+		resolver.invalidate();
+		resolver.resolveVirtualCalls("java/util/ArrayList", "size", "()I", false);
+		assertEquals(2, counting.calls);
+	}
+
+	@Test
+	public void testResolutionRacingInvalidateIsDropped() {
+		/* the delegate answers and is invalidated before the answer is
+		 * stored, as if another thread renamed something meanwhile. */
+		counting.onResolve = resolver::invalidate;
+		resolver.resolveStaticCall("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;");
+		counting.onResolve = null;
+		resolver.resolveStaticCall("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;");
+		resolver.resolveStaticCall("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;");
+		assertEquals(2, counting.calls);
+	}
+
+	@Test
+	public void testTreeChangeStartsOver() {
+		resolver.resolveVirtualCalls("java/util/ArrayList", "size", "()I", false);
+		assertNotNull(app.findClassNode("java/util/Stack"));
+		resolver.resolveVirtualCalls("java/util/ArrayList", "size", "()I", false);
+		assertEquals(2, counting.calls);
+	}
+
+	private static class CountingResolver implements InvocationResolver {
+		final InvocationResolver delegate;
+		int calls;
+		Runnable onResolve;
+
+		CountingResolver(InvocationResolver delegate) {
+			this.delegate = delegate;
+		}
+
+		private void count() {
+			calls++;
+			if(onResolve != null) {
+				onResolve.run();
+			}
+		}
+
+		@Override
+		public MethodNode resolveStaticCall(String owner, String name, String desc) {
+			MethodNode res = delegate.resolveStaticCall(owner, name, desc);
+			count();
+			return res;
+		}
+
+		@Override
+		public MethodNode resolveVirtualInitCall(String owner, String desc) {
+			MethodNode res = delegate.resolveVirtualInitCall(owner, desc);
+			count();
+			return res;
+		}
+
+		@Override
+		public Set<MethodNode> resolveVirtualCalls(String owner, String name, String desc, boolean strict) {
+			Set<MethodNode> res = delegate.resolveVirtualCalls(owner, name, desc, strict);
+			count();
+			return res;
+		}
+
+		@Override
+		public FieldNode findStaticField(String owner, String name, String desc) {
+			return delegate.findStaticField(owner, name, desc);
+		}
+
+		@Override
+		public FieldNode findVirtualField(String owner, String name, String desc) {
+			return delegate.findVirtualField(owner, name, desc);
+		}
+
+		@Override
+		public Set<MethodNode> getHierarchyMethodChain(ClassNode cn, String name, String desc, boolean exact) {
+			return delegate.getHierarchyMethodChain(cn, name, desc, exact);
+		}
+
+		@Override
+		public void invalidate() {
+			delegate.invalidate();
+		}
+	}
+}
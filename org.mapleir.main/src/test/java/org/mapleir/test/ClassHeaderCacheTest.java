@@ -0,0 +1,141 @@
+package org.mapleir.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.mapleir.app.service.ApplicationClassSource;
+import org.mapleir.app.service.ClassHeaderCache;
+import org.mapleir.app.service.LibraryClassSource;
+import org.mapleir.asm.ClassHelper;
+import org.mapleir.asm.ClassNode;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.InnerClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class ClassHeaderCacheTest {
+
+	/* generic signatures, inner classes, an enclosing method and methods
+	 * that declare exceptions between them. */
+	private static final String[] CLASSES = {
+			"java/util/HashMap", "java/util/HashMap$Node", "java/util/Map$Entry",
+			"java/lang/Thread", "java/lang/Thread$State", "java/io/InputStream",
+			"java/util/concurrent/Callable"
+	};
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private File jar() throws IOException {
+		File jar = tmp.newFile("lib.jar");
+		try(JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+			for(String name : CLASSES) {
+				out.putNextEntry(new ZipEntry(name + ".class"));
+				try(InputStream in = ClassLoader.getSystemResourceAsStream(name + ".class")) {
+					assertNotNull(name, in);
+					byte[] buf = new byte[1 << 12];
+					int n;
+					while((n = in.read(buf)) != -1) {
+						out.write(buf, 0, n);
+					}
+				}
+				out.closeEntry();
+			}
+		}
+		return jar;
+	}
+
+	private static Map<String, ClassNode> load(ClassHeaderCache cache, File jar) throws IOException {
+		ApplicationClassSource app = new ApplicationClassSource("test", Collections.emptyList());
+		LibraryClassSource lib = cache.load(app, jar);
+		Map<String, ClassNode> classes = new HashMap<>();
+		for(ClassNode cn : lib.iterate()) {
+			classes.put(cn.getName(), cn);
+		}
+		return classes;
+	}
+
+	@Test
+	public void testCachedHeadersMatchParsed() throws IOException {
+		File jar = jar();
+		ClassHeaderCache cache = new ClassHeaderCache(tmp.newFolder("cache"));
+
+		Map<String, ClassNode> parsed = load(cache, jar);
+		assertTrue(cache.getCacheFile(jar).exists());
+		Map<String, ClassNode> cached = load(cache, jar);
+
+		assertEquals(CLASSES.length, cached.size());
+		for(String name : CLASSES) {
+			ClassNode expected = ClassHelper.create(name, ClassReader.SKIP_CODE);
+			assertHeaderEquals(expected.node, parsed.get(name).node);
+			assertHeaderEquals(expected.node, cached.get(name).node);
+		}
+	}
+
+	@Test
+	public void testMethodExceptionsSurvive() throws IOException {
+		File jar = jar();
+		ClassHeaderCache cache = new ClassHeaderCache(tmp.newFolder("cache"));
+		load(cache, jar);
+
+		ClassNode cn = load(cache, jar).get("java/util/concurrent/Callable");
+		MethodNode call = cn.node.methods.get(0);
+		assertEquals("call", call.name);
+		assertEquals(Collections.singletonList("java/lang/Exception"), call.exceptions);
+		assertEquals("<V:Ljava/lang/Object;>Ljava/lang/Object;", cn.node.signature);
+	}
+
+	private static void assertHeaderEquals(org.objectweb.asm.tree.ClassNode expected, org.objectweb.asm.tree.ClassNode actual) {
+		String name = expected.name;
+		assertEquals(name, expected.name, actual.name);
+		assertEquals(name, expected.access, actual.access);
+		assertEquals(name, expected.superName, actual.superName);
+		assertEquals(name, expected.interfaces, actual.interfaces);
+		assertEquals(name, expected.signature, actual.signature);
+		assertEquals(name, expected.outerClass, actual.outerClass);
+		assertEquals(name, expected.outerMethod, actual.outerMethod);
+		assertEquals(name, expected.outerMethodDesc, actual.outerMethodDesc);
+
+		assertEquals(name, expected.innerClasses.size(), actual.innerClasses.size());
+		for(int i = 0; i < expected.innerClasses.size(); i++) {
+			InnerClassNode e = expected.innerClasses.get(i), a = actual.innerClasses.get(i);
+			assertEquals(name, e.name, a.name);
+			assertEquals(name, e.outerName, a.outerName);
+			assertEquals(name, e.innerName, a.innerName);
+			assertEquals(name, e.access, a.access);
+		}
+
+		assertEquals(name, expected.fields.size(), actual.fields.size());
+		for(int i = 0; i < expected.fields.size(); i++) {
+			FieldNode e = expected.fields.get(i), a = actual.fields.get(i);
+			String f = name + "." + e.name;
+			assertEquals(f, e.access, a.access);
+			assertEquals(f, e.name, a.name);
+			assertEquals(f, e.desc, a.desc);
+			assertEquals(f, e.signature, a.signature);
+		}
+
+		assertEquals(name, expected.methods.size(), actual.methods.size());
+		for(int i = 0; i < expected.methods.size(); i++) {
+			MethodNode e = expected.methods.get(i), a = actual.methods.get(i);
+			String m = name + "." + e.name + e.desc;
+			assertEquals(m, e.access, a.access);
+			assertEquals(m, e.name, a.name);
+			assertEquals(m, e.desc, a.desc);
+			assertEquals(m, e.signature, a.signature);
+			assertEquals(m, e.exceptions, a.exceptions);
+		}
+	}
+}
@@ -1,4 +1,138 @@
 package org.mapleir.test;
 
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.mapleir.app.service.ApplicationClassSource;
+import org.mapleir.app.service.ClassTree;
+import org.mapleir.app.service.JrtClassSource;
+import org.mapleir.asm.ClassNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
 public class ClassTreeTest {
+
+	private ApplicationClassSource app;
+	private ClassTree tree;
+
+	@Before
+	public void setUp() throws Exception {
+		app = new ApplicationClassSource("test", Collections.emptyList());
+		app.addLibraries(new JrtClassSource(app));
+		tree = app.getClassTree();
+	}
+
+	private ClassNode cn(String name) {
+		ClassNode cn = app.findClassNode(name);
+		assertNotNull(name, cn);
+		return cn;
+	}
+
+	private String lca(String type1, String type2) {
+		return tree.getCommonSuperType(type1, type2).getName();
+	}
+
+	@Test
+	public void testCommonSuperClass() {
+		assertEquals("java/lang/Number", lca("java/lang/Integer", "java/lang/Long"));
+		assertEquals("java/util/AbstractList", lca("java/util/ArrayList", "java/util/AbstractSequentialList"));
+		assertEquals("java/lang/Object", lca("java/lang/String", "java/lang/Integer"));
+	}
+
+	@Test
+	public void testCommonSuperClassOfSubtype() {
+		// the supertype is the answer, whichever side it is on.
+		assertEquals("java/lang/Number", lca("java/lang/Integer", "java/lang/Number"));
+		assertEquals("java/lang/Number", lca("java/lang/Number", "java/lang/Integer"));
+		assertEquals("java/util/List", lca("java/util/ArrayList", "java/util/List"));
+		assertEquals("java/util/List", lca("java/util/List", "java/util/ArrayList"));
+	}
+
+	@Test
+	public void testCommonSuperClassOfInterfaces() {
+		assertEquals("java/lang/Object", lca("java/util/List", "java/util/Set"));
+		assertEquals("java/lang/Object", lca("java/util/List", "java/lang/Integer"));
+	}
+
+	@Test
+	public void testCommonSuperClassIsMemoised() {
+		ClassNode a = cn("java/util/ArrayList"), b = cn("java/util/LinkedList");
+		ClassNode res = tree.getCommonSuperClass(a, b);
+		assertEquals("java/util/AbstractList", res.getName());
+		assertSame(res, tree.getCommonSuperClass(b, a));
+	}
+
+	@Test
+	public void testIsAssignableFrom() {
+		assertTrue(tree.isAssignableFrom(cn("java/util/Collection"), cn("java/util/ArrayList")));
+		assertTrue(tree.isAssignableFrom(cn("java/lang/Object"), cn("java/util/List")));
+		assertFalse(tree.isAssignableFrom(cn("java/util/ArrayList"), cn("java/util/Collection")));
+	}
+
+	@Test
+	public void testClosureMatchesTraversal() {
+		String[] names = { "java/util/ArrayList", "java/util/LinkedList", "java/util/HashSet", "java/lang/Integer" };
+		for(String name : names) {
+			tree.addVertex(cn(name));
+		}
+		for(ClassNode c : tree.vertices()) {
+			assertEquals(c.getName(), new HashSet<>(tree.getAllParents(c)), new HashSet<>(tree.getAncestors(c)));
+			assertEquals(c.getName(), new HashSet<>(tree.getAllChildren(c)), new HashSet<>(tree.getDescendants(c)));
+		}
+		assertTrue(tree.isSubtypeOf(cn("java/util/LinkedList"), cn("java/util/Deque")));
+		assertTrue(tree.getDescendants(cn("java/util/AbstractCollection")).contains(cn("java/util/HashSet")));
+		assertFalse(tree.isSubtypeOf(cn("java/util/Deque"), cn("java/util/LinkedList")));
+	}
+
+	@Test
+	public void testClosureFromSeveralThreads() throws Exception {
+		String[][] names = {
+				{ "java/util/ArrayList", "java/util/LinkedList", "java/util/Vector", "java/util/Stack" },
+				{ "java/util/HashSet", "java/util/LinkedHashSet", "java/util/TreeSet", "java/util/EnumSet" },
+				{ "java/util/HashMap", "java/util/LinkedHashMap", "java/util/TreeMap", "java/util/IdentityHashMap" },
+				{ "java/io/FileInputStream", "java/io/BufferedInputStream", "java/io/DataInputStream", "java/io/PushbackInputStream" },
+				{ "java/lang/Integer", "java/lang/Long", "java/lang/StringBuilder", "java/lang/IllegalStateException" },
+				{ "java/util/concurrent/ConcurrentHashMap", "java/util/concurrent/CopyOnWriteArrayList", "java/util/concurrent/LinkedBlockingQueue", "java/util/ArrayDeque" }
+		};
+		ClassNode root = tree.getRootNode();
+		Thread[] threads = new Thread[names.length];
+		Throwable[] failures = new Throwable[names.length];
+		for(int t = 0; t < threads.length; t++) {
+			String[] mine = names[t];
+			int id = t;
+			threads[t] = new Thread(() -> {
+				try {
+					for(int round = 0; round < 50; round++) {
+						for(String name : mine) {
+							ClassNode c = cn(name);
+							assertTrue(name, tree.isSubtypeOf(c, root));
+							assertTrue(name, tree.getAncestors(c).contains(c));
+							assertTrue(name, tree.getDescendants(root).contains(c));
+							for(ClassNode p : tree.getAncestors(c)) {
+								assertTrue(name, tree.getDescendants(p).contains(c));
+							}
+						}
+					}
+				} catch(Throwable e) {
+					failures[id] = e;
+				}
+			});
+		}
+		for(Thread t : threads) {
+			t.start();
+		}
+		for(Thread t : threads) {
+			t.join();
+		}
+		for(Throwable e : failures) {
+			if(e != null) {
+				throw new AssertionError(e);
+			}
+		}
+		for(ClassNode c : tree.vertices()) {
+			assertEquals(c.getName(), new HashSet<>(tree.getAllParents(c)), new HashSet<>(tree.getAncestors(c)));
+		}
+	}
 }
@@ -0,0 +1,121 @@
+package org.mapleir.test;
+
+import java.io.IOException;
+import java.util.*;
+
+import org.mapleir.asm.ClassHelper;
+import org.mapleir.asm.ClassNode;
+import org.mapleir.asm.MethodNode;
+import org.mapleir.ir.cfg.ControlFlowGraph;
+import org.mapleir.ir.cfg.builder.ControlFlowGraphBuilder;
+import org.mapleir.ir.codegen.ControlFlowGraphRetranslator;
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+
+import static org.junit.Assert.*;
+
+/* runs in its own surefire execution with pinned identity hash codes, without
+ * them not even two serial runs produce the same code. */
+public class ControlFlowGraphRetranslatorTest {
+
+	private static final Class<?>[] CLASSES = {
+			ArrayList.class, ArrayDeque.class, BitSet.class, Optional.class, UUID.class
+	};
+
+	/* fresh copies every time, retranslating writes into the method nodes. */
+	private static List<ClassNode> parse() throws IOException {
+		List<ClassNode> classes = new ArrayList<>(ClassHelper.parseClasses(CLASSES));
+		classes.sort(Comparator.comparing(ClassNode::getName));
+		return classes;
+	}
+
+	private static Map<MethodNode, ControlFlowGraph> build(List<ClassNode> classes) {
+		Map<MethodNode, ControlFlowGraph> cfgs = new HashMap<>();
+		for(ClassNode cn : classes) {
+			for(MethodNode mn : cn.getMethods()) {
+				if(!mn.isAbstract() && mn.node.instructions.size() > 0) {
+					cfgs.put(mn, ControlFlowGraphBuilder.build(mn));
+				}
+			}
+		}
+		return cfgs;
+	}
+
+	private static Map<String, byte[]> retranslate(int parallelism) throws IOException {
+		List<ClassNode> classes = parse();
+		ControlFlowGraphRetranslator.retranslateAll(build(classes), parallelism);
+		Map<String, byte[]> out = new LinkedHashMap<>();
+		for(ClassNode cn : classes) {
+			out.put(cn.getName(), ClassHelper.toByteArray(cn, ClassWriter.COMPUTE_MAXS));
+		}
+		return out;
+	}
+
+	@Test
+	public void testParallelMatchesSerial() throws IOException {
+		Map<String, byte[]> serial = new LinkedHashMap<>();
+		List<ClassNode> classes = parse();
+		for(Map.Entry<MethodNode, ControlFlowGraph> e : build(classes).entrySet()) {
+			ControlFlowGraphRetranslator.retranslate(e.getValue(), e.getKey());
+		}
+		for(ClassNode cn : classes) {
+			serial.put(cn.getName(), ClassHelper.toByteArray(cn, ClassWriter.COMPUTE_MAXS));
+		}
+
+		for(int threads : new int[] { 1, 2, 8 }) {
+			Map<String, byte[]> parallel = retranslate(threads);
+			assertEquals(serial.keySet(), parallel.keySet());
+			for(Map.Entry<String, byte[]> e : serial.entrySet()) {
+				assertArrayEquals(e.getKey(), e.getValue(), parallel.get(e.getKey()));
+			}
+		}
+	}
+
+	@Test
+	public void testProcessingOrder() throws IOException {
+		List<ClassNode> classes = parse();
+		Map<MethodNode, ControlFlowGraph> cfgs = build(classes);
+		List<MethodNode> expected = new ArrayList<>();
+		for(ClassNode cn : classes) {
+			for(MethodNode mn : cn.getMethods()) {
+				if(cfgs.containsKey(mn)) {
+					expected.add(mn);
+				}
+			}
+		}
+		assertEquals(expected, ControlFlowGraphRetranslator.retranslateAll(cfgs, 4));
+	}
+
+	@Test
+	public void testFirstFailureIsRethrown() throws IOException {
+		for(int run = 0; run < 5; run++) {
+			List<ClassNode> classes = parse();
+			Map<MethodNode, ControlFlowGraph> cfgs = build(classes);
+
+			/* the last method of the first class fails, as does the first
+			 * method of the last class, which a worker is likely to reach
+			 * sooner. only the former may be reported. */
+			MethodNode first = null, second = null;
+			for(MethodNode mn : classes.get(0).getMethods()) {
+				if(cfgs.containsKey(mn)) {
+					first = mn;
+				}
+			}
+			for(MethodNode mn : classes.get(classes.size() - 1).getMethods()) {
+				if(cfgs.containsKey(mn)) {
+					second = mn;
+					break;
+				}
+			}
+			cfgs.put(first, null);
+			cfgs.put(second, null);
+
+			try {
+				ControlFlowGraphRetranslator.retranslateAll(cfgs, 8);
+				fail("expected a failure");
+			} catch(IllegalStateException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains("Failed to retranslate " + first));
+			}
+		}
+	}
+}
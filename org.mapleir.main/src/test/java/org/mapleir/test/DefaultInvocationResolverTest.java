@@ -0,0 +1,121 @@
+package org.mapleir.test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+
+import org.mapleir.DefaultInvocationResolver;
+import org.mapleir.app.service.ApplicationClassSource;
+import org.mapleir.app.service.JrtClassSource;
+import org.mapleir.asm.MethodNode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DefaultInvocationResolverTest {
+
+	/* owner, name, desc; virtual calls on concrete receivers and static
+	 * calls, all of them on runtime classes so that the lazy resolver
+	 * builds their tables while the threads race. none of the receivers
+	 * have subclasses among the classes loaded, so the answers don't
+	 * depend on the order the queries run in. */
+	private static final String[][] VIRTUAL = {
+			{ "java/util/ArrayList", "size", "()I" },
+			{ "java/util/ArrayList", "hashCode", "()I" },
+			{ "java/util/LinkedList", "iterator", "()Ljava/util/Iterator;" },
+			{ "java/util/LinkedHashMap", "get", "(Ljava/lang/Object;)Ljava/lang/Object;" },
+			{ "java/util/TreeSet", "toString", "()Ljava/lang/String;" },
+			{ "java/util/HashSet", "containsAll", "(Ljava/util/Collection;)Z" },
+			{ "java/util/concurrent/ConcurrentHashMap", "putIfAbsent", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;" },
+			{ "java/lang/Integer", "toString", "()Ljava/lang/String;" },
+			{ "java/lang/StringBuilder", "append", "(I)Ljava/lang/StringBuilder;" },
+			{ "java/io/BufferedInputStream", "read", "()I" },
+			{ "java/io/DataInputStream", "close", "()V" },
+			{ "java/lang/IllegalStateException", "getMessage", "()Ljava/lang/String;" }
+	};
+	private static final String[][] STATIC = {
+			{ "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;" },
+			{ "java/util/Collections", "emptyList", "()Ljava/util/List;" },
+			{ "java/util/Arrays", "asList", "([Ljava/lang/Object;)Ljava/util/List;" }
+	};
+
+	private static DefaultInvocationResolver newResolver() throws Exception {
+		ApplicationClassSource app = new ApplicationClassSource("test", Collections.emptyList());
+		app.addLibraries(new JrtClassSource(app));
+		return new DefaultInvocationResolver(app, true);
+	}
+
+	private static String key(MethodNode m) {
+		return m == null ? "null" : m.getOwner() + "." + m.getName() + m.getDesc();
+	}
+
+	private static List<Function<DefaultInvocationResolver, String>> queries() {
+		List<Function<DefaultInvocationResolver, String>> queries = new ArrayList<>();
+		for(String[] q : VIRTUAL) {
+			queries.add(r -> {
+				Set<String> targets = new TreeSet<>();
+				for(MethodNode m : r.resolveVirtualCalls(q[0], q[1], q[2], false)) {
+					targets.add(key(m));
+				}
+				return targets.toString();
+			});
+		}
+		for(String[] q : STATIC) {
+			queries.add(r -> key(r.resolveStaticCall(q[0], q[1], q[2])));
+		}
+		return queries;
+	}
+
+	@Test
+	public void testResolveFromSeveralThreads() throws Exception {
+		List<Function<DefaultInvocationResolver, String>> queries = queries();
+
+		DefaultInvocationResolver serial = newResolver();
+		List<String> expected = new ArrayList<>();
+		for(Function<DefaultInvocationResolver, String> q : queries) {
+			expected.add(q.apply(serial));
+		}
+
+		DefaultInvocationResolver resolver = newResolver();
+		int nthreads = 8;
+		Thread[] threads = new Thread[nthreads];
+		Throwable[] failures = new Throwable[nthreads];
+		CountDownLatch start = new CountDownLatch(1);
+		for(int t = 0; t < nthreads; t++) {
+			int id = t;
+			threads[t] = new Thread(() -> {
+				List<Integer> order = new ArrayList<>();
+				for(int i = 0; i < queries.size(); i++) {
+					order.add(i);
+				}
+				Random rand = new Random(id);
+				try {
+					start.await();
+					for(int round = 0; round < 20; round++) {
+						Collections.shuffle(order, rand);
+						for(int i : order) {
+							assertEquals(expected.get(i), queries.get(i).apply(resolver));
+						}
+						if(id == 0 && round == 10) {
+							/* tables built by the other threads while this
+							 * runs must not come back stale. */
+							resolver.invalidate();
+						}
+					}
+				} catch(Throwable e) {
+					failures[id] = e;
+				}
+			});
+			threads[t].start();
+		}
+		start.countDown();
+		for(Thread t : threads) {
+			t.join();
+		}
+		for(Throwable e : failures) {
+			if(e != null) {
+				throw new AssertionError(e);
+			}
+		}
+	}
+}
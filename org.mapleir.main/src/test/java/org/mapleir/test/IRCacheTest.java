@@ -0,0 +1,95 @@
+package org.mapleir.test;
+
+import java.util.Iterator;
+
+import org.mapleir.asm.ClassHelper;
+import org.mapleir.asm.ClassNode;
+import org.mapleir.asm.MethodNode;
+import org.mapleir.context.IRCache;
+import org.mapleir.stdlib.util.JavaDesc;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IRCacheTest {
+
+	static class Methods {
+		int a() { return 1; }
+		int b() { return 2; }
+		int c(int x) { return x; }
+	}
+
+	private IRCache cache;
+	private MethodNode a, b, c;
+
+	@Before
+	public void setUp() throws Exception {
+		ClassNode cn = ClassHelper.parseClasses(Methods.class).iterator().next();
+		for(MethodNode m : cn.getMethods()) {
+			if(m.getName().equals("a")) {
+				a = m;
+			} else if(m.getName().equals("b")) {
+				b = m;
+			} else if(m.getName().equals("c")) {
+				c = m;
+			}
+		}
+		cache = new IRCache();
+		cache.getFor(a);
+		cache.getFor(b);
+	}
+
+	private static JavaDesc desc(MethodNode m, String name) {
+		return new JavaDesc(m.getOwner(), name, m.getDesc(), JavaDesc.DescType.METHOD);
+	}
+
+	@Test
+	public void testFindCachedMethods() {
+		assertSame(a, cache.findMethod(a.getJavaDesc()));
+		assertSame(b, cache.findMethod(desc(b, "b")));
+		assertNull(cache.findMethod(c.getJavaDesc()));
+	}
+
+	@Test
+	public void testIndexFollowsPutAndRemove() {
+		assertNull(cache.findMethod(c.getJavaDesc()));
+		cache.getFor(c);
+		assertSame(c, cache.findMethod(c.getJavaDesc()));
+		cache.remove(a);
+		assertNull(cache.findMethod(a.getJavaDesc()));
+		cache.put(a, cache.get(b));
+		assertSame(a, cache.findMethod(a.getJavaDesc()));
+		cache.clear();
+		assertNull(cache.findMethod(b.getJavaDesc()));
+	}
+
+	@Test
+	public void testRemovedThroughView() {
+		assertSame(a, cache.findMethod(a.getJavaDesc()));
+		for(Iterator<MethodNode> it = cache.getActiveMethods().iterator(); it.hasNext(); ) {
+			if(it.next() == a) {
+				it.remove();
+			}
+		}
+		assertNull(cache.findMethod(a.getJavaDesc()));
+		assertSame(b, cache.findMethod(b.getJavaDesc()));
+	}
+
+	@Test
+	public void testRenamedMethod() {
+		JavaDesc old = a.getJavaDesc();
+		assertSame(a, cache.findMethod(old));
+		a.node.name = "renamed";
+		assertNull(cache.findMethod(old));
+		assertSame(a, cache.findMethod(desc(a, "renamed")));
+	}
+
+	@Test
+	public void testMissThenRenamed() {
+		JavaDesc x = desc(a, "x");
+		assertNull(cache.findMethod(x));
+		a.node.name = "x";
+		assertSame(a, cache.findMethod(x));
+	}
+}
@@ -0,0 +1,189 @@
+package org.mapleir.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+import com.google.common.io.ByteStreams;
+import org.mapleir.app.service.ApplicationClassSource;
+import org.mapleir.app.service.CompleteResolvingJarDumper;
+import org.mapleir.app.service.IncrementalBuildCache;
+import org.mapleir.app.service.JrtClassSource;
+import org.mapleir.asm.ClassHelper;
+import org.mapleir.asm.ClassNode;
+import org.topdank.byteengineer.commons.data.JarContents;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IncrementalBuildCacheTest {
+
+	/* Q extends P, R calls into P, T creates an X and S is on its own. */
+	static class P {
+		void p() {}
+	}
+	static class Q extends P {}
+	static class R {
+		void r(P p) {
+			p.p();
+		}
+	}
+	static class S {}
+	static class X {}
+	static class T {
+		Object t() {
+			return new X();
+		}
+	}
+
+	private static final Class<?>[] ALL = { P.class, Q.class, R.class, S.class, X.class, T.class };
+
+	private File dir;
+
+	@Before
+	public void setUp() throws IOException {
+		dir = Files.createTempDirectory("incremental").toFile();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		delete(dir);
+	}
+
+	private static void delete(File f) {
+		File[] children = f.listFiles();
+		if(children != null) {
+			for(File c : children) {
+				delete(c);
+			}
+		}
+		f.delete();
+	}
+
+	private static String name(Class<?> c) {
+		return c.getName().replace('.', '/');
+	}
+
+	private static Set<String> names(Class<?>... classes) {
+		Set<String> res = new HashSet<>();
+		for(Class<?> c : classes) {
+			res.add(name(c));
+		}
+		return res;
+	}
+
+	private static ApplicationClassSource app(Class<?>... classes) throws IOException {
+		ApplicationClassSource app = new ApplicationClassSource("test", ClassHelper.parseClasses(classes));
+		app.addLibraries(new JrtClassSource(app));
+		return app;
+	}
+
+	/* stands in for the fingerprint of a class: the same version of a class
+	 * always gets the same one. */
+	private static Map<String, byte[]> fingerprints(Class<?>... classes) {
+		Map<String, byte[]> res = new HashMap<>();
+		for(Class<?> c : classes) {
+			res.put(name(c), name(c).getBytes());
+		}
+		return res;
+	}
+
+	/* a first run over all of the classes, leaving output for each. */
+	private void firstRun(String key) throws IOException {
+		IncrementalBuildCache cache = new IncrementalBuildCache(dir, key);
+		cache.load();
+		assertEquals(names(ALL), cache.update(fingerprints(ALL), app(ALL)));
+		for(Class<?> c : ALL) {
+			cache.putOutput(name(c), new byte[] { 1, 2, 3 });
+		}
+		cache.save();
+	}
+
+	private IncrementalBuildCache secondRun(String key) throws IOException {
+		IncrementalBuildCache cache = new IncrementalBuildCache(dir, key);
+		cache.load();
+		return cache;
+	}
+
+	@Test
+	public void testUnchangedIsClean() throws IOException {
+		firstRun("k");
+		IncrementalBuildCache cache = secondRun("k");
+		assertEquals(Collections.emptySet(), cache.update(fingerprints(ALL), app(ALL)));
+		assertFalse(cache.isDirty(name(S.class)));
+		// classes that weren't in the input are never clean.
+		assertTrue(cache.isDirty("not/In/Input"));
+	}
+
+	@Test
+	public void testChangeDirtiesSubclassesAndReferencers() throws IOException {
+		firstRun("k");
+		IncrementalBuildCache cache = secondRun("k");
+		Map<String, byte[]> fps = fingerprints(ALL);
+		fps.put(name(P.class), new byte[] { 42 });
+		assertEquals(names(P.class, Q.class, R.class), cache.update(fps, app(ALL)));
+		assertTrue(cache.isDirty(name(Q.class)));
+		assertFalse(cache.isDirty(name(T.class)));
+	}
+
+	@Test
+	public void testRemovedTypeDirtiesReferencers() throws IOException {
+		firstRun("k");
+		IncrementalBuildCache cache = secondRun("k");
+		Class<?>[] left = { P.class, Q.class, R.class, S.class, T.class };
+		assertEquals(names(T.class), cache.update(fingerprints(left), app(left)));
+		cache.save();
+		assertFalse(new File(dir, "classes/" + name(X.class) + ".class").exists());
+	}
+
+	@Test
+	public void testRuntimeKeyChangeDiscardsCache() throws IOException {
+		firstRun("k");
+		IncrementalBuildCache cache = secondRun("other");
+		assertEquals(names(ALL), cache.update(fingerprints(ALL), app(ALL)));
+	}
+
+	@Test
+	public void testMissingOutputIsDirty() throws IOException {
+		firstRun("k");
+		assertTrue(new File(dir, "classes/" + name(S.class) + ".class").delete());
+		IncrementalBuildCache cache = secondRun("k");
+		assertEquals(names(S.class), cache.update(fingerprints(ALL), app(ALL)));
+	}
+
+	@Test
+	public void testDumperCopiesCleanClasses() throws IOException {
+		firstRun("k");
+		IncrementalBuildCache cache = secondRun("k");
+		Map<String, byte[]> fps = fingerprints(ALL);
+		fps.put(name(S.class), new byte[] { 42 });
+		ApplicationClassSource app = app(ALL);
+		assertEquals(names(S.class), cache.update(fps, app));
+
+		JarContents<ClassNode> contents = new JarContents<>();
+		for(ClassNode cn : app.iterate()) {
+			contents.getClassContents().add(cn);
+		}
+		File out = new File(dir, "out.jar");
+		new CompleteResolvingJarDumper(contents, app, cache).dump(out);
+
+		try(JarFile jar = new JarFile(out)) {
+			for(Class<?> c : ALL) {
+				ZipEntry e = jar.getEntry(name(c) + ".class");
+				byte[] bytes = ByteStreams.toByteArray(jar.getInputStream(e));
+				if(c == S.class) {
+					// written again and recorded for the next run.
+					assertEquals(0xCAFEBABE, (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF));
+					assertArrayEquals(bytes, cache.getOutput(name(c)));
+				} else {
+					assertArrayEquals(c.getName(), new byte[] { 1, 2, 3 }, bytes);
+				}
+			}
+		}
+	}
+}
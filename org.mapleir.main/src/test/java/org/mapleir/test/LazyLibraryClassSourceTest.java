@@ -0,0 +1,114 @@
+package org.mapleir.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import com.google.common.io.ByteStreams;
+import org.mapleir.app.service.ApplicationClassSource;
+import org.mapleir.app.service.ClassTree;
+import org.mapleir.app.service.JrtClassSource;
+import org.mapleir.app.service.LazyLibraryClassSource;
+import org.mapleir.asm.ClassHelper;
+import org.mapleir.asm.ClassNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LazyLibraryClassSourceTest {
+
+	/* App is the application, the rest are in the library jar. Nothing in
+	 * the application refers to Other. */
+	interface Iface {}
+	static class Base {}
+	static class Mid extends Base implements Iface {}
+	static class Other extends Base {}
+	static class App extends Mid {}
+
+	private File jar;
+	private ApplicationClassSource app;
+	private LazyLibraryClassSource lib;
+
+	private static String name(Class<?> c) {
+		return c.getName().replace('.', '/');
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		jar = File.createTempFile("lazylib", ".jar");
+		try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+			for(Class<?> c : new Class<?>[] { Iface.class, Base.class, Mid.class, Other.class }) {
+				out.putNextEntry(new ZipEntry(name(c) + ".class"));
+				out.write(bytes(c));
+				out.closeEntry();
+			}
+		}
+		app = new ApplicationClassSource("test", ClassHelper.parseClasses(App.class));
+		lib = new LazyLibraryClassSource(app, jar);
+		app.addLibraries(lib, new JrtClassSource(app));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		lib.close();
+		jar.delete();
+	}
+
+	private static byte[] bytes(Class<?> c) throws IOException {
+		try (InputStream in = c.getResourceAsStream("/" + name(c) + ".class")) {
+			return ByteStreams.toByteArray(in);
+		}
+	}
+
+	private static Set<String> names(Iterable<ClassNode> classes) {
+		Set<String> res = new HashSet<>();
+		for(ClassNode c : classes) {
+			res.add(c.getName());
+		}
+		return res;
+	}
+
+	@Test
+	public void testContainsParsesClass() {
+		assertNull(lib.findIfLoaded(name(Mid.class)));
+		assertTrue(lib.contains(name(Mid.class)));
+		assertNotNull(lib.findIfLoaded(name(Mid.class)));
+		assertFalse(lib.contains(name(App.class)));
+		assertFalse(lib.contains("does/not/Exist"));
+	}
+
+	@Test
+	public void testLibraryHierarchyIsLinked() {
+		ClassTree tree = app.getClassTree();
+		ClassNode a = app.findClassNode(name(App.class));
+		assertEquals(names(tree.getAllParents(a)), names(tree.getAncestors(a)));
+		Set<String> parents = names(tree.getAllParents(a));
+		assertTrue(parents.contains(name(Mid.class)));
+		assertTrue(parents.contains(name(Base.class)));
+		assertTrue(parents.contains(name(Iface.class)));
+		assertTrue(parents.contains("java/lang/Object"));
+
+		ClassNode base = app.findClassNode(name(Base.class));
+		assertTrue(tree.containsVertex(base));
+		assertTrue(tree.isSubtypeOf(a, base));
+		assertTrue(names(tree.getAllChildren(base)).contains(name(Mid.class)));
+	}
+
+	@Test
+	public void testLookupAfterTreeAddsToTree() {
+		ClassTree tree = app.getClassTree();
+		assertNull(lib.findIfLoaded(name(Other.class)));
+		assertTrue(lib.contains(name(Other.class)));
+		ClassNode other = lib.findIfLoaded(name(Other.class)).node;
+		assertTrue(tree.containsVertex(other));
+		assertTrue(tree.isSubtypeOf(other, app.findClassNode(name(Base.class))));
+		assertTrue(names(tree.getAllChildren(app.findClassNode(name(Base.class)))).contains(name(Other.class)));
+	}
+}
@@ -0,0 +1,213 @@
+package org.mapleir.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import com.google.common.io.ByteStreams;
+import org.mapleir.asm.ClassNode;
+import org.topdank.byteengineer.commons.data.JarContents;
+import org.topdank.byteengineer.commons.data.JarInfo;
+import org.topdank.byteengineer.commons.data.JarResource;
+import org.topdank.byteio.in.AbstractJarDownloader;
+import org.topdank.byteio.in.MappedJarDownloader;
+import org.topdank.byteio.in.SingleJarDownloader;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MappedJarDownloaderTest {
+
+	private final List<File> files = new ArrayList<>();
+
+	@After
+	public void tearDown() {
+		for(File f : files) {
+			f.delete();
+		}
+	}
+
+	private interface Writer {
+		void write(ZipOutputStream out) throws IOException;
+	}
+
+	private File jar(Writer w) throws IOException {
+		File f = File.createTempFile("mapped", ".jar");
+		files.add(f);
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(f))) {
+			w.write(out);
+		}
+		return f;
+	}
+
+	private static byte[] bytes(Class<?> c) throws IOException {
+		try (InputStream in = c.getResourceAsStream("/" + c.getName().replace('.', '/') + ".class")) {
+			return ByteStreams.toByteArray(in);
+		}
+	}
+
+	private static void deflated(ZipOutputStream out, String name, byte[] data) throws IOException {
+		out.putNextEntry(new ZipEntry(name));
+		out.write(data);
+		out.closeEntry();
+	}
+
+	private static void stored(ZipOutputStream out, String name, byte[] data) throws IOException {
+		ZipEntry e = new ZipEntry(name);
+		e.setMethod(ZipEntry.STORED);
+		e.setSize(data.length);
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		e.setCrc(crc.getValue());
+		out.putNextEntry(e);
+		out.write(data);
+		out.closeEntry();
+	}
+
+	private static JarContents<ClassNode> download(AbstractJarDownloader<ClassNode> dl) throws IOException {
+		dl.download();
+		return dl.getJarContents();
+	}
+
+	private static JarContents<ClassNode> mapped(File f) throws IOException {
+		return download(new MappedJarDownloader<>(new JarInfo(f), 4));
+	}
+
+	/* checks that the mapped reader gives what the zip file api gives. */
+	private static JarContents<ClassNode> assertSameAsSingle(File f) throws IOException {
+		JarContents<ClassNode> expected = download(new SingleJarDownloader<>(new JarInfo(f)));
+		JarContents<ClassNode> actual = mapped(f);
+
+		assertEquals(expected.getResourceContents(), actual.getResourceContents());
+		assertEquals(expected.getClassContents().size(), actual.getClassContents().size());
+		for(int i = 0; i < expected.getClassContents().size(); i++) {
+			ClassNode e = expected.getClassContents().get(i), a = actual.getClassContents().get(i);
+			assertEquals(e.getName(), a.getName());
+			assertEquals(e.getMethods().size(), a.getMethods().size());
+		}
+		return actual;
+	}
+
+	private static byte[] text(int lines) {
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < lines; i++) {
+			sb.append("line ").append(i).append('\n');
+		}
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testStoredEntries() throws IOException {
+		File f = jar(out -> {
+			stored(out, "a/A.class", bytes(MappedJarDownloaderTest.class));
+			stored(out, "a/res.txt", text(100));
+			stored(out, "empty.txt", new byte[0]);
+		});
+		JarContents<ClassNode> c = assertSameAsSingle(f);
+		assertEquals(1, c.getClassContents().size());
+		assertEquals(2, c.getResourceContents().size());
+	}
+
+	@Test
+	public void testDeflatedEntries() throws IOException {
+		File f = jar(out -> {
+			deflated(out, "a/A.class", bytes(MappedJarDownloaderTest.class));
+			deflated(out, "a/B.class", bytes(Writer.class));
+			deflated(out, "a/res.txt", text(10000));
+			stored(out, "a/stored.txt", text(5));
+		});
+		JarContents<ClassNode> c = assertSameAsSingle(f);
+		assertEquals(2, c.getClassContents().size());
+		assertArrayEquals(text(10000), c.getResourceContents().get(0).getData());
+	}
+
+	@Test
+	public void testDirectoryEntries() throws IOException {
+		File f = jar(out -> {
+			deflated(out, "a/", new byte[0]);
+			deflated(out, "a/b/", new byte[0]);
+			deflated(out, "a/b/res.txt", text(3));
+		});
+		JarContents<ClassNode> c = assertSameAsSingle(f);
+		assertEquals(3, c.getResourceContents().size());
+		JarResource dir = c.getResourceContents().get(1);
+		assertEquals("a/b/", dir.getName());
+		assertEquals(0, dir.getData().length);
+	}
+
+	@Test
+	public void testArchiveComment() throws IOException {
+		File f = jar(out -> {
+			deflated(out, "res.txt", text(20));
+			out.setComment(new String(new char[1000]).replace('\0', 'c'));
+		});
+		assertSameAsSingle(f);
+	}
+
+	@Test
+	public void testArchiveCommentWithSignature() throws IOException {
+		// the comment holds what looks like an end record, which has to be skipped.
+		String sig = new String(new byte[] { 0x50, 0x4b, 0x05, 0x06 }, StandardCharsets.ISO_8859_1);
+		File f = jar(out -> {
+			deflated(out, "res.txt", text(20));
+			out.setComment("comment " + sig + " followed by more than 22 bytes");
+		});
+		assertSameAsSingle(f);
+	}
+
+	@Test
+	public void testZip64Archive() throws IOException {
+		// more entries than the plain end record can count.
+		int n = 0x10000 + 10;
+		File f = jar(out -> {
+			for(int i = 0; i < n; i++) {
+				stored(out, "r/" + i, new byte[] { (byte) i });
+			}
+			deflated(out, "a/A.class", bytes(MappedJarDownloaderTest.class));
+		});
+		JarContents<ClassNode> c = assertSameAsSingle(f);
+		assertEquals(n, c.getResourceContents().size());
+		assertEquals(1, c.getClassContents().size());
+		assertEquals((byte) 12345, c.getResourceContents().get(12345).getData()[0]);
+	}
+
+	@Test(expected = ZipException.class)
+	public void testMissingEndRecord() throws IOException {
+		File f = jar(out -> deflated(out, "res.txt", text(20)));
+		try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+			raf.setLength(raf.length() - 22);
+		}
+		mapped(f);
+	}
+
+	@Test(expected = ZipException.class)
+	public void testCorruptEndRecord() throws IOException {
+		File f = jar(out -> deflated(out, "res.txt", text(20)));
+		try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+			// point the central directory offset at the local header.
+			raf.seek(raf.length() - 22 + 16);
+			raf.writeInt(0);
+		}
+		mapped(f);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testDuplicateClass() throws IOException {
+		byte[] data = bytes(MappedJarDownloaderTest.class);
+		File f = jar(out -> {
+			deflated(out, "a/A.class", data);
+			deflated(out, "b/A.class", data);
+		});
+		mapped(f);
+	}
+}
@@ -0,0 +1,109 @@
+package org.mapleir.test;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.mapleir.MethodFamilyIndex;
+import org.mapleir.app.service.ApplicationClassSource;
+import org.mapleir.app.service.JrtClassSource;
+import org.mapleir.asm.ClassHelper;
+import org.mapleir.asm.ClassNode;
+import org.mapleir.asm.MethodNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MethodFamilyIndexTest {
+
+	/* A and B only share library interfaces, C extends A and F ties
+	 * A to E through the application interface D. */
+	static class A implements Runnable, Comparable<A> {
+		public void run() {}
+		void foo() {}
+		public int compareTo(A o) { return 0; }
+	}
+	static class B implements Runnable, Comparable<B> {
+		public void run() {}
+		void foo() {}
+		public int compareTo(B o) { return 0; }
+	}
+	static class C extends A {
+		void foo() {}
+		public String toString() { return "C"; }
+	}
+	interface D {
+		void bar();
+	}
+	static class E implements D, java.io.Serializable {
+		public void bar() {}
+		void foo() {}
+	}
+	static class F extends A implements D {
+		public void bar() {}
+	}
+
+	private ApplicationClassSource app;
+	private MethodFamilyIndex index;
+
+	@Before
+	public void setUp() throws Exception {
+		app = new ApplicationClassSource("test", ClassHelper.parseClasses(A.class, B.class, C.class, D.class, E.class, F.class));
+		app.addLibraries(new JrtClassSource(app));
+		index = new MethodFamilyIndex(app);
+	}
+
+	private Set<String> family(Class<?> c, String name, String desc, boolean exact) {
+		ClassNode cn = app.findClassNode(c.getName().replace('.', '/'));
+		Set<String> res = new TreeSet<>();
+		for(MethodNode m : index.getFamily(cn, name, desc, exact)) {
+			String owner = m.getOwner();
+			res.add(owner.substring(owner.lastIndexOf('/') + 1) + "." + m.getName());
+		}
+		return res;
+	}
+
+	private static Set<String> set(String... names) {
+		Set<String> res = new TreeSet<>();
+		for(String n : names) {
+			res.add(n.replace("$", "MethodFamilyIndexTest$"));
+		}
+		return res;
+	}
+
+	@Test
+	public void testLibraryInterfacesDontConnect() {
+		assertEquals(set("$B.foo"), family(B.class, "foo", "()V", true));
+		assertFalse(family(A.class, "foo", "()V", true).contains("MethodFamilyIndexTest$B.foo"));
+		assertEquals(set("$B.compareTo"), family(B.class, "compareTo", "(L" + B.class.getName().replace('.', '/') + ";)I", true));
+	}
+
+	@Test
+	public void testLibraryMethodsAreInFamily() {
+		assertEquals(set("$A.run", "Runnable.run"), family(A.class, "run", "()V", true));
+		assertEquals(set("$A.run", "Runnable.run"), family(C.class, "run", "()V", true));
+		assertEquals(set("$B.run", "Runnable.run"), family(B.class, "run", "()V", true));
+		// the bridge, found through the library interface.
+		assertEquals(set("$A.compareTo", "Comparable.compareTo"), family(A.class, "compareTo", "(Ljava/lang/Object;)I", true));
+		// methods of the root are part of every family.
+		assertEquals(set("$C.toString", "Object.toString"), family(A.class, "toString", "()Ljava/lang/String;", true));
+	}
+
+	@Test
+	public void testApplicationInterfacesConnect() {
+		assertEquals(set("$D.bar", "$E.bar", "$F.bar"), family(E.class, "bar", "()V", true));
+		// F connects A's part to D's, so E.foo joins A.foo and C.foo.
+		assertEquals(set("$A.foo", "$C.foo", "$E.foo"), family(C.class, "foo", "()V", true));
+	}
+
+	@Test
+	public void testLibraryClassFamilyReachesBelow() {
+		assertEquals(set("$A.run", "$B.run", "Runnable.run"), family(Runnable.class, "run", "()V", true));
+	}
+
+	@Test
+	public void testCongruentReturnTypes() {
+		assertEquals(set("$C.toString", "Object.toString"), family(C.class, "toString", "()Ljava/lang/Object;", false));
+		assertEquals(set(), family(C.class, "toString", "()Ljava/lang/Object;", true));
+	}
+}
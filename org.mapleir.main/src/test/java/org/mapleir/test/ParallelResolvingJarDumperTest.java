@@ -0,0 +1,114 @@
+package org.mapleir.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+import com.google.common.io.ByteStreams;
+import org.mapleir.app.service.ApplicationClassSource;
+import org.mapleir.app.service.CompleteResolvingJarDumper;
+import org.mapleir.app.service.JrtClassSource;
+import org.mapleir.app.service.ParallelResolvingJarDumper;
+import org.mapleir.asm.ClassHelper;
+import org.mapleir.asm.ClassNode;
+import org.topdank.byteengineer.commons.data.JarContents;
+import org.topdank.byteengineer.commons.data.JarResource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ParallelResolvingJarDumperTest {
+
+	/* runtime classes with branchy code, so that writing them computes
+	 * frames and asks the tree for common supertypes. */
+	private static final Class<?>[] CLASSES = {
+			ArrayList.class, LinkedList.class, HashMap.class, TreeMap.class, ArrayDeque.class,
+			Collections.class, Arrays.class, String.class, StringBuilder.class, Integer.class,
+			Long.class, Objects.class, Optional.class, Scanner.class, Formatter.class,
+			Properties.class, Hashtable.class, BitSet.class, UUID.class, Random.class
+	};
+
+	private ApplicationClassSource app;
+	private JarContents<ClassNode> contents;
+	private final List<File> files = new ArrayList<>();
+
+	@Before
+	public void setUp() throws Exception {
+		app = new ApplicationClassSource("test", ClassHelper.parseClasses(CLASSES));
+		app.addLibraries(new JrtClassSource(app));
+		contents = new JarContents<>();
+		for(ClassNode cn : app.iterate()) {
+			contents.getClassContents().add(cn);
+		}
+		contents.getResourceContents().add(new JarResource("META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n".getBytes()));
+		contents.getResourceContents().add(new JarResource("res.txt", new byte[] { 1, 2, 3 }));
+	}
+
+	@After
+	public void tearDown() {
+		for(File f : files) {
+			f.delete();
+		}
+	}
+
+	private File dump(CompleteResolvingJarDumper dumper) throws IOException {
+		File f = File.createTempFile("dump", ".jar");
+		files.add(f);
+		dumper.dump(f);
+		return f;
+	}
+
+	private static Map<String, byte[]> read(File f) throws IOException {
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+		try(JarFile jar = new JarFile(f)) {
+			for(Enumeration<JarEntry> it = jar.entries(); it.hasMoreElements();) {
+				JarEntry e = it.nextElement();
+				entries.put(e.getName(), ByteStreams.toByteArray(jar.getInputStream(e)));
+			}
+		}
+		return entries;
+	}
+
+	private static void assertSameJar(Map<String, byte[]> expected, Map<String, byte[]> actual) {
+		assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+		for(Map.Entry<String, byte[]> e : expected.entrySet()) {
+			assertArrayEquals(e.getKey(), e.getValue(), actual.get(e.getKey()));
+		}
+	}
+
+	@Test
+	public void testParallelMatchesSerial() throws IOException {
+		Map<String, byte[]> serial = read(dump(new CompleteResolvingJarDumper(contents, app)));
+		assertEquals(CLASSES.length + 2, serial.size());
+		for(int threads : new int[] { 1, 2, 8 }) {
+			assertSameJar(serial, read(dump(new ParallelResolvingJarDumper(contents, app, threads))));
+		}
+	}
+
+	@Test
+	public void testOverridesSeeEveryClass() throws IOException {
+		String skipped = "java/util/Random";
+		Set<String> seen = Collections.synchronizedSet(new HashSet<>());
+		Map<String, byte[]> written = read(dump(new ParallelResolvingJarDumper(contents, app, 4) {
+			@Override
+			protected byte[] serialiseClass(ClassNode cn) throws IOException {
+				seen.add(cn.getName());
+				return super.serialiseClass(cn);
+			}
+
+			@Override
+			protected int dumpClass(JarOutputStream out, String name, ClassNode cn, byte[] bytes) throws IOException {
+				assertNotNull(name, bytes);
+				return name.equals(skipped) ? 0 : super.dumpClass(out, name, cn, bytes);
+			}
+		}));
+		assertEquals(CLASSES.length, seen.size());
+		assertFalse(written.containsKey(skipped + ".class"));
+		assertEquals(CLASSES.length - 1 + 2, written.size());
+	}
+}
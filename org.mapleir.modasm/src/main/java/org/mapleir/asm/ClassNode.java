@@ -1,14 +1,15 @@
 package org.mapleir.asm;
 
 import org.mapleir.stdlib.collections.graph.FastGraphVertex;
+import org.mapleir.stdlib.util.IdAllocator;
 import org.objectweb.asm.Opcodes;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class ClassNode implements FastGraphVertex {
-    private static int ID_COUNTER = 1;
-   	private final int numericId = ID_COUNTER++;
+    private static final IdAllocator ID_ALLOCATOR = new IdAllocator(1, 64);
+   	private final int numericId = ID_ALLOCATOR.next();
 
     public final org.objectweb.asm.tree.ClassNode node;
     private final List<MethodNode> methods;
@@ -1,15 +1,19 @@
 package org.mapleir.asm;
 
 import org.mapleir.stdlib.collections.graph.FastGraphVertex;
+import org.mapleir.stdlib.util.IdAllocator;
 import org.mapleir.stdlib.util.IHasJavaDesc;
 import org.mapleir.stdlib.util.JavaDesc;
 
+
 public class FieldNode implements FastGraphVertex, IHasJavaDesc {
-    private static int ID_COUNTER = 1;
-   	private final int numericId = ID_COUNTER++;
+    private static final IdAllocator ID_ALLOCATOR = new IdAllocator(1, 64);
+   	private final int numericId = ID_ALLOCATOR.next();
 
    	public final ClassNode owner;
     public final org.objectweb.asm.tree.FieldNode node;
+    // the interned desc as of the last call, replaced once the node is renamed.
+    private volatile JavaDesc javaDesc;
 
     public FieldNode(org.objectweb.asm.tree.FieldNode node, ClassNode owner) {
         this.node = node;
@@ -48,6 +52,10 @@ public class FieldNode implements FastGraphVertex, IHasJavaDesc {
 
     @Override
     public JavaDesc getJavaDesc() {
-	    return new JavaDesc(owner.getName(), getName(), getDesc(), JavaDesc.DescType.FIELD);
+        JavaDesc jd = javaDesc;
+        if(jd == null || !jd.matches(owner.getName(), getName(), getDesc())) {
+            javaDesc = jd = JavaDesc.intern(owner.getName(), getName(), getDesc(), JavaDesc.DescType.FIELD);
+        }
+        return jd;
     }
 }
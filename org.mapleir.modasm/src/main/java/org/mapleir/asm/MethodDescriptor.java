@@ -0,0 +1,95 @@
+package org.mapleir.asm;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+import org.objectweb.asm.Type;
+
+/**
+ * A parsed method descriptor. Instances are pooled per descriptor string, so
+ * each descriptor is only parsed once no matter how many call sites and
+ * methods share it. Like the interned JavaDescs, they are only held weakly
+ * by the pool, so descriptors nothing uses any more are dropped.
+ */
+public class MethodDescriptor {
+	private static final Pool[] POOLS = new Pool[16];
+	static {
+		for(int i = 0; i < POOLS.length; i++) {
+			POOLS[i] = new Pool();
+		}
+	}
+
+	private final String desc;
+	private final Type[] argumentTypes;
+	private final Type returnType;
+
+	private MethodDescriptor(String desc) {
+		this.desc = desc;
+		argumentTypes = Type.getArgumentTypes(desc);
+		returnType = Type.getReturnType(desc);
+	}
+
+	public static MethodDescriptor of(String desc) {
+		return POOLS[(desc.hashCode() * 0x9E3779B9) >>> 28].intern(desc);
+	}
+
+	public static Type[] getArgumentTypes(String desc) {
+		return of(desc).getArgumentTypes();
+	}
+
+	public static int getArgumentCount(String desc) {
+		return of(desc).getArgumentCount();
+	}
+
+	public static Type getReturnType(String desc) {
+		return of(desc).getReturnType();
+	}
+
+	public String getDesc() {
+		return desc;
+	}
+
+	/**
+	 * @return The argument types. The array is shared and must not be
+	 * modified.
+	 */
+	public Type[] getArgumentTypes() {
+		return argumentTypes;
+	}
+
+	public int getArgumentCount() {
+		return argumentTypes.length;
+	}
+
+	public Type getArgumentType(int i) {
+		return argumentTypes[i];
+	}
+
+	public Type getReturnType() {
+		return returnType;
+	}
+
+	@Override
+	public String toString() {
+		return desc;
+	}
+
+	private static final class Pool {
+		/* keyed on the descriptor's own string, so that an entry lives for
+		 * exactly as long as its descriptor. */
+		private final WeakHashMap<String, WeakReference<MethodDescriptor>> map = new WeakHashMap<>();
+
+		synchronized MethodDescriptor intern(String desc) {
+			WeakReference<MethodDescriptor> ref = map.get(desc);
+			MethodDescriptor md = ref != null ? ref.get() : null;
+			if(md == null) {
+				md = new MethodDescriptor(desc);
+				/* put keeps an existing key, which may be a different
+				 * string to the new descriptor's. */
+				map.remove(desc);
+				map.put(md.desc, new WeakReference<>(md));
+			}
+			return md;
+		}
+	}
+}
@@ -1,16 +1,20 @@
 package org.mapleir.asm;
 
 import org.mapleir.stdlib.collections.graph.FastGraphVertex;
+import org.mapleir.stdlib.util.IdAllocator;
 import org.mapleir.stdlib.util.IHasJavaDesc;
 import org.mapleir.stdlib.util.JavaDesc;
 import org.objectweb.asm.Opcodes;
 
+
 public class MethodNode implements FastGraphVertex, IHasJavaDesc {
-    private static int ID_COUNTER = 1;
-   	private final int numericId = ID_COUNTER++;
+    private static final IdAllocator ID_ALLOCATOR = new IdAllocator(1, 64);
+   	private final int numericId = ID_ALLOCATOR.next();
 
    	public final ClassNode owner;
     public final org.objectweb.asm.tree.MethodNode node;
+    // the interned desc as of the last call, replaced once the node is renamed.
+    private volatile JavaDesc javaDesc;
 
     public MethodNode(org.objectweb.asm.tree.MethodNode node, ClassNode owner) {
         this.node = node;
@@ -54,7 +58,15 @@ public class MethodNode implements FastGraphVertex, IHasJavaDesc {
 
     @Override
     public JavaDesc getJavaDesc() {
-	    return new JavaDesc(owner.getName(), getName(), getDesc(), JavaDesc.DescType.METHOD);
+        JavaDesc jd = javaDesc;
+        if(jd == null || !jd.matches(owner.getName(), getName(), getDesc())) {
+            javaDesc = jd = JavaDesc.intern(owner.getName(), getName(), getDesc(), JavaDesc.DescType.METHOD);
+        }
+        return jd;
+    }
+
+    public MethodDescriptor getDescriptor() {
+        return MethodDescriptor.of(node.desc);
     }
 
     public boolean isStatic() {
@@ -0,0 +1,138 @@
+package org.mapleir.stdlib.collections;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A set that keeps its elements in a small array that is searched linearly
+ * and only turns into a {@link HashSet} once it holds more than
+ * {@link #INLINE_MAX} elements. Most sets in the IR, like the uses of an SSA
+ * local, have one or two elements, for which a hash set is mostly overhead.
+ */
+public class SmallSet<E> extends AbstractSet<E> {
+	public static final int INLINE_MAX = 8;
+
+	private Object[] elems;
+	private int size;
+	private Set<E> set;
+
+	public SmallSet() {
+		elems = new Object[2];
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if(set != null) {
+			return set.contains(o);
+		}
+		return indexOf(o) != -1;
+	}
+
+	@Override
+	public boolean add(E e) {
+		if(set != null) {
+			return set.add(e);
+		}
+		if(indexOf(e) != -1) {
+			return false;
+		}
+		if(size == INLINE_MAX) {
+			set = new HashSet<>(INLINE_MAX * 4);
+			for(int i = 0; i < size; i++) {
+				set.add(elementAt(i));
+			}
+			set.add(e);
+			elems = null;
+			size = 0;
+			return true;
+		}
+		if(size == elems.length) {
+			elems = Arrays.copyOf(elems, Math.min(INLINE_MAX, size * 2));
+		}
+		elems[size++] = e;
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if(set != null) {
+			return set.remove(o);
+		}
+		int i = indexOf(o);
+		if(i == -1) {
+			return false;
+		}
+		removeAt(i);
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return set != null ? set.size() : size;
+	}
+
+	@Override
+	public void clear() {
+		set = null;
+		elems = new Object[2];
+		size = 0;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		if(set != null) {
+			return set.iterator();
+		}
+		return new Iterator<E>() {
+			int next;
+			boolean canRemove;
+
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			@Override
+			public E next() {
+				if(next >= size) {
+					throw new NoSuchElementException();
+				}
+				canRemove = true;
+				return elementAt(next++);
+			}
+
+			@Override
+			public void remove() {
+				if(!canRemove) {
+					throw new IllegalStateException();
+				}
+				canRemove = false;
+				removeAt(--next);
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private E elementAt(int i) {
+		return (E) elems[i];
+	}
+
+	private int indexOf(Object o) {
+		for(int i = 0; i < size; i++) {
+			Object e = elems[i];
+			if(e == o || (o != null && o.equals(e))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void removeAt(int i) {
+		System.arraycopy(elems, i + 1, elems, i, size - i - 1);
+		elems[--size] = null;
+	}
+}
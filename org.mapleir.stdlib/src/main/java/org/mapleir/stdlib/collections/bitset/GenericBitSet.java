@@ -1,23 +1,36 @@
 package org.mapleir.stdlib.collections.bitset;
 
-import java.util.BitSet;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.Spliterator;
-
+import java.util.function.Consumer;
+
+/**
+ * A set backed by a bitset over the indices given out by a
+ * {@link BitSetIndexer}. The bits are kept in a plain array of words so that
+ * the bulk operations between two sets sharing an indexer ({@link #addAll(GenericBitSet)},
+ * {@link #unionInto(GenericBitSet)}, {@link #andNotInto(GenericBitSet, GenericBitSet)},
+ * {@link #intersects(GenericBitSet)}, {@link #isSubsetOf(GenericBitSet)}, ...)
+ * work a word at a time and allocate nothing.
+ */
 public class GenericBitSet<N> implements Set<N> {
-	private BitSet bitset;
-    private BitSetIndexer<N> indexer;
+	private static final long[] NO_WORDS = new long[0];
+
+	private long[] words;
+	private BitSetIndexer<N> indexer;
 
 	public GenericBitSet(BitSetIndexer<N> indexer) {
-		bitset = new BitSet();
+		words = NO_WORDS;
 		this.indexer = indexer;
 	}
 
 	public GenericBitSet(GenericBitSet<N> other) {
 		indexer = other.indexer;
-		bitset = (BitSet) other.bitset.clone();
+		int len = other.wordsInUse();
+		words = len == 0 ? NO_WORDS : Arrays.copyOf(other.words, len);
 	}
 
 	public GenericBitSet<N> copy() {
@@ -27,26 +40,30 @@ public class GenericBitSet<N> implements Set<N> {
 	public boolean set(N n, boolean state) {
 		if (n == null)
 			throw new IllegalArgumentException();
-        if (!state && !indexer.isIndexed(n))
-            return false;
-        int index = indexer.getIndex(n);
-        boolean ret = bitset.get(index);
-        bitset.set(index, state);
-        return ret;
-    }
+		if (!state && !indexer.isIndexed(n))
+			return false;
+		int index = indexer.getIndex(n);
+		boolean ret = get(index);
+		if (state)
+			setBit(index);
+		else
+			clearBit(index);
+		return ret;
+	}
 
 	@Override
 	public boolean add(N n) {
 		if (n == null)
 			throw new IllegalArgumentException();
-		boolean ret = !contains(n);
-		if (n != null && indexer.getIndex(n) > 100000) {
+		int index = indexer.getIndex(n);
+		if (index > 100000) {
 			System.err.println("Probable bitset memory leak");
-			System.err.println(indexer.getIndex(n) + " " + n.getClass().getName());
+			System.err.println(index + " " + n.getClass().getName());
 			System.err.println(indexer.getClass().getName());
 			new Throwable().printStackTrace();
 		}
-		bitset.set(indexer.getIndex(n));
+		boolean ret = !get(index);
+		setBit(index);
 		return ret;
 	}
 
@@ -54,14 +71,12 @@ public class GenericBitSet<N> implements Set<N> {
 	public boolean remove(Object o) {
 		if (!contains(o))
 			return false;
-		bitset.set(indexer.getIndex((N) o), false);
+		clearBit(indexer.getIndex((N) o));
 		return true;
 	}
 
 	public boolean containsAll(GenericBitSet<N> other) {
-		BitSet temp = (BitSet) other.bitset.clone(); // if contains all, set.bitset will be a subset of our bitset
-		temp.and(bitset);
-		return temp.equals(other.bitset);
+		return other.isSubsetOf(this);
 	}
 
 	@Override
@@ -73,19 +88,77 @@ public class GenericBitSet<N> implements Set<N> {
 	}
 
 	public boolean containsNone(GenericBitSet<N> other) {
-		BitSet temp = (BitSet) bitset.clone();
-		temp.and(other.bitset);
-		return temp.isEmpty();
+		return !intersects(other);
 	}
 
 	public boolean containsAny(GenericBitSet<N> other) {
-		return !containsNone(other);
+		return intersects(other);
+	}
+
+	/**
+	 * @return Whether this set and the other set have any element in common.
+	 */
+	public boolean intersects(GenericBitSet<N> other) {
+		long[] o = other.words;
+		for (int i = Math.min(words.length, o.length) - 1; i >= 0; i--)
+			if ((words[i] & o[i]) != 0)
+				return true;
+		return false;
+	}
+
+	/**
+	 * @return Whether every element of this set is in the other set.
+	 */
+	public boolean isSubsetOf(GenericBitSet<N> other) {
+		long[] o = other.words;
+		for (int i = 0; i < words.length; i++) {
+			long w = i < o.length ? words[i] & ~o[i] : words[i];
+			if (w != 0)
+				return false;
+		}
+		return true;
 	}
 
 	public void addAll(GenericBitSet<N> n) {
-		if (indexer != n.indexer)
-			throw new IllegalArgumentException("Fast addAll operands must share the same BitSetIndexer");
-		bitset.or(n.bitset);
+		n.unionInto(this);
+	}
+
+	/**
+	 * Adds every element of this set to the target set.
+	 * @return Whether the target set changed.
+	 */
+	public boolean unionInto(GenericBitSet<N> target) {
+		checkIndexer(target);
+		int len = wordsInUse();
+		target.ensureWords(len);
+		long[] t = target.words;
+		long changed = 0;
+		for (int i = 0; i < len; i++) {
+			long w = t[i] | words[i];
+			changed |= w ^ t[i];
+			t[i] = w;
+		}
+		return changed != 0;
+	}
+
+	/**
+	 * Adds every element of this set that is not in the other set to the
+	 * target set, i.e. {@code target = target U (this - other)}, without
+	 * building the relative complement.
+	 * @return Whether the target set changed.
+	 */
+	public boolean andNotInto(GenericBitSet<N> other, GenericBitSet<N> target) {
+		checkIndexer(target);
+		int len = wordsInUse();
+		target.ensureWords(len);
+		long[] o = other.words, t = target.words;
+		long changed = 0;
+		for (int i = 0; i < len; i++) {
+			long w = t[i] | (i < o.length ? words[i] & ~o[i] : words[i]);
+			changed |= w ^ t[i];
+			t[i] = w;
+		}
+		return changed != 0;
 	}
 
 	public GenericBitSet<N> union(GenericBitSet<N> other) {
@@ -103,7 +176,11 @@ public class GenericBitSet<N> implements Set<N> {
 	}
 
 	public void retainAll(GenericBitSet<N> other) {
-		bitset.and(other.bitset);
+		long[] o = other.words;
+		int common = Math.min(words.length, o.length);
+		for (int i = 0; i < common; i++)
+			words[i] &= o[i];
+		Arrays.fill(words, common, words.length, 0);
 	}
 
 	public GenericBitSet<N> intersect(GenericBitSet<N> other) {
@@ -126,7 +203,9 @@ public class GenericBitSet<N> implements Set<N> {
 	}
 
 	public void removeAll(GenericBitSet<N> other) {
-		bitset.andNot(other.bitset);
+		long[] o = other.words;
+		for (int i = Math.min(words.length, o.length) - 1; i >= 0; i--)
+			words[i] &= ~o[i];
 	}
 
 	public GenericBitSet<N> relativeComplement(GenericBitSet<N> other) {
@@ -151,25 +230,28 @@ public class GenericBitSet<N> implements Set<N> {
 
 	@Override
 	public void clear() {
-		bitset.clear();
+		Arrays.fill(words, 0);
 	}
 
 	@Override
 	public int size() {
-		return bitset.cardinality();
+		int size = 0;
+		for (long w : words)
+			size += Long.bitCount(w);
+		return size;
 	}
 
 	@Override
 	public boolean isEmpty() {
-		return bitset.isEmpty();
+		return wordsInUse() == 0;
 	}
 
-    @Override @SuppressWarnings("unchecked")
+	@Override @SuppressWarnings("unchecked")
 	public boolean contains(Object o) {
 		if (o == null)
 			throw new IllegalArgumentException();
-        return indexer.isIndexed((N) o) && bitset.get(indexer.getIndex((N) o));
-    }
+		return indexer.isIndexed((N) o) && get(indexer.getIndex((N) o));
+	}
 
 	@Override
 	public String toString() {
@@ -181,11 +263,19 @@ public class GenericBitSet<N> implements Set<N> {
 
 	@Override @SuppressWarnings("unchecked")
 	public boolean equals(Object o) {
-        if (!(o instanceof GenericBitSet))
-            return false;
-        GenericBitSet<N> gbs = (GenericBitSet<N>) o;
-        return indexer == gbs.indexer && bitset.equals(gbs.bitset);
-    }
+		if (!(o instanceof GenericBitSet))
+			return false;
+		GenericBitSet<N> gbs = (GenericBitSet<N>) o;
+		if (indexer != gbs.indexer)
+			return false;
+		int len = wordsInUse();
+		if (len != gbs.wordsInUse())
+			return false;
+		for (int i = 0; i < len; i++)
+			if (words[i] != gbs.words[i])
+				return false;
+		return true;
+	}
 
 	@Override
 	public Iterator<N> iterator() {
@@ -194,21 +284,39 @@ public class GenericBitSet<N> implements Set<N> {
 
 			@Override
 			public boolean hasNext() {
-				return bitset.nextSetBit(index + 1) != -1;
+				return nextSetBit(index + 1) != -1;
 			}
 
 			@Override
 			public N next() {
-				return indexer.get(index = bitset.nextSetBit(index + 1));
+				int next = nextSetBit(index + 1);
+				if (next == -1)
+					throw new NoSuchElementException();
+				return indexer.get(index = next);
 			}
 
 			@Override
 			public void remove() {
-				 bitset.set(index, false);
+				clearBit(index);
 			}
 		};
 	}
 
+	/**
+	 * Visits the elements a word at a time, without the repeated searches for
+	 * the next set bit the iterator does.
+	 */
+	@Override
+	public void forEach(Consumer<? super N> action) {
+		for (int i = 0; i < words.length; i++) {
+			long w = words[i];
+			while (w != 0) {
+				action.accept(indexer.get((i << 6) + Long.numberOfTrailingZeros(w)));
+				w &= w - 1;
+			}
+		}
+	}
+
 	@Override
 	public Spliterator<N> spliterator() {
 		throw new UnsupportedOperationException();
@@ -223,4 +331,55 @@ public class GenericBitSet<N> implements Set<N> {
 	public <T> T[] toArray(T[] a) {
 		throw new UnsupportedOperationException();
 	}
+
+	private void checkIndexer(GenericBitSet<N> other) {
+		if (indexer != other.indexer)
+			throw new IllegalArgumentException("Fast addAll operands must share the same BitSetIndexer");
+	}
+
+	private boolean get(int index) {
+		int w = index >>> 6;
+		return w < words.length && (words[w] & (1L << index)) != 0;
+	}
+
+	private void setBit(int index) {
+		if (index < 0)
+			throw new IndexOutOfBoundsException("index < 0: " + index);
+		int w = index >>> 6;
+		ensureWords(w + 1);
+		words[w] |= 1L << index;
+	}
+
+	private void clearBit(int index) {
+		int w = index >>> 6;
+		if (w < words.length)
+			words[w] &= ~(1L << index);
+	}
+
+	private void ensureWords(int len) {
+		if (words.length < len)
+			words = Arrays.copyOf(words, Math.max(len, words.length * 2));
+	}
+
+	/* the number of words up to and including the last non-zero one. */
+	private int wordsInUse() {
+		int len = words.length;
+		while (len > 0 && words[len - 1] == 0)
+			len--;
+		return len;
+	}
+
+	private int nextSetBit(int from) {
+		int w = from >>> 6;
+		if (w >= words.length)
+			return -1;
+		long word = words[w] & (-1L << from);
+		while (true) {
+			if (word != 0)
+				return (w << 6) + Long.numberOfTrailingZeros(word);
+			if (++w == words.length)
+				return -1;
+			word = words[w];
+		}
+	}
 }
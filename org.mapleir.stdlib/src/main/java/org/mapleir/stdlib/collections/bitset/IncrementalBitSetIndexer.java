@@ -1,39 +1,110 @@
 package org.mapleir.stdlib.collections.bitset;
 
-import java.util.HashMap;
-
-import org.mapleir.stdlib.collections.map.NullPermeableHashMap;
-import org.mapleir.stdlib.collections.map.ValueCreator;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Hands out indices 1, 2, 3, ... to elements in the order they are first
+ * seen. The indices are kept in an open addressing table of primitive ints,
+ * and the elements in a list for the reverse lookup, so looking up an element
+ * that is already indexed allocates nothing.
+ *
+ * <p> Elements are keyed on {@code equals}/{@code hashCode}, or only told
+ * apart by identity (though still hashed with {@code hashCode}) for indexers
+ * made with {@link #identity()}. The latter is for elements that are
+ * canonical anyway, like the locals of a pool, whose {@code equals} may
+ * consider distinct elements equal.
+ */
 public class IncrementalBitSetIndexer<N> implements BitSetIndexer<N> {
 
-	private final NullPermeableHashMap<N, Integer> map;
-	private final HashMap<Integer, N> reverseMap;
-	
+	private final boolean identity;
+	private Object[] keys;
+	private int[] indices;
+	private final List<N> elements;
+	private int nullIndex;
+
 	public IncrementalBitSetIndexer() {
-		map = new NullPermeableHashMap<>(new ValueCreator<Integer>() {
-			@Override
-			public Integer create() {
-				return map.size() + 1;
-			}
-		});
-		reverseMap = new HashMap<>();
+		this(false);
 	}
-	
+
+	private IncrementalBitSetIndexer(boolean identity) {
+		this.identity = identity;
+		keys = new Object[16];
+		indices = new int[16];
+		elements = new ArrayList<>();
+	}
+
+	/**
+	 * @return An indexer that tells elements apart by identity.
+	 */
+	public static <N> IncrementalBitSetIndexer<N> identity() {
+		return new IncrementalBitSetIndexer<>(true);
+	}
+
 	@Override
 	public int getIndex(N n) {
-		int index = map.getNonNull(n);
-		reverseMap.put(index, n);
-		return index;
+		if(n == null) {
+			if(nullIndex == 0) {
+				nullIndex = add(null);
+			}
+			return nullIndex;
+		}
+		int i = slot(n);
+		if(keys[i] == null) {
+			if((elements.size() + 1) * 4 > keys.length * 3) {
+				grow();
+				i = slot(n);
+			}
+			keys[i] = n;
+			indices[i] = add(n);
+		}
+		return indices[i];
 	}
-	
+
 	@Override
 	public N get(int index) {
-		return reverseMap.get(index);
+		return index > 0 && index <= elements.size() ? elements.get(index - 1) : null;
 	}
-	
+
 	@Override
 	public boolean isIndexed(N o) {
-		return map.containsKey(o);
+		if(o == null) {
+			return nullIndex != 0;
+		}
+		return keys[slot(o)] != null;
+	}
+
+	private int add(N n) {
+		elements.add(n);
+		return elements.size();
+	}
+
+	private int slot(Object o) {
+		int mask = keys.length - 1;
+		int i = mix(o.hashCode()) & mask;
+		Object k;
+		while((k = keys[i]) != null && k != o && (identity || !o.equals(k))) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private void grow() {
+		Object[] oldKeys = keys;
+		int[] oldIndices = indices;
+		keys = new Object[oldKeys.length * 2];
+		indices = new int[oldIndices.length * 2];
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] != null) {
+				int j = slot(oldKeys[i]);
+				keys[j] = oldKeys[i];
+				indices[j] = oldIndices[i];
+			}
+		}
+	}
+
+	private static int mix(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
 	}
 }
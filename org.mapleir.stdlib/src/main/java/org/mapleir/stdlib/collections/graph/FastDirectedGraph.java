@@ -164,7 +164,15 @@ public abstract class FastDirectedGraph<N extends FastGraphVertex, E extends Fas
 	public int size() {
 		return map.size();
 	}
-	
+
+	/**
+	 * Takes an immutable, array backed snapshot of the graph for read-only
+	 * analyses. See {@link FrozenDirectedGraph}.
+	 */
+	public FrozenDirectedGraph<N, E> freeze() {
+		return new FrozenDirectedGraph<>(this);
+	}
+
 	// TODO: entries
 	@Override
 	public void replace(N old, N n) {
@@ -0,0 +1,147 @@
+package org.mapleir.stdlib.collections.graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of a {@link FastDirectedGraph} in compressed sparse
+ * row form. Every vertex is given a dense id in {@code [0, size())} and the
+ * successors and predecessors of each vertex are kept as ranges of plain int
+ * arrays, so read-only analyses can walk the graph without hashing or going
+ * through the per-vertex edge sets.
+ *
+ * <p> The successors of vertex {@code v} are the ids
+ * {@code succTarget(i)} for {@code succBegin(v) <= i < succEnd(v)}, in the
+ * order the graph's edge set for {@code v} iterated in when the snapshot was
+ * taken, so an algorithm gives the same results on the snapshot as on the
+ * graph it was taken from. Predecessors work the same way. Later changes to
+ * the graph are not reflected in the snapshot.
+ */
+public final class FrozenDirectedGraph<N extends FastGraphVertex, E extends FastGraphEdge<N>> {
+
+	private final Object[] vertices;
+	private final Map<N, Integer> ids;
+
+	private final int[] succOffsets;
+	private final int[] succTargets;
+	private final Object[] succEdges;
+
+	private final int[] predOffsets;
+	private final int[] predSources;
+	private final Object[] predEdges;
+
+	public FrozenDirectedGraph(FastDirectedGraph<N, E> graph) {
+		Set<N> vs = graph.vertices();
+		int size = vs.size();
+		vertices = new Object[size];
+		ids = new HashMap<>();
+
+		int id = 0;
+		int edgeCount = 0;
+		for(N v : vs) {
+			vertices[id] = v;
+			ids.put(v, id++);
+			edgeCount += graph.getEdges(v).size();
+		}
+
+		succOffsets = new int[size + 1];
+		succTargets = new int[edgeCount];
+		succEdges = new Object[edgeCount];
+		predOffsets = new int[size + 1];
+		predSources = new int[edgeCount];
+		predEdges = new Object[edgeCount];
+
+		int s = 0, p = 0;
+		for(int v = 0; v < size; v++) {
+			@SuppressWarnings("unchecked")
+			N n = (N) vertices[v];
+
+			succOffsets[v] = s;
+			for(E e : graph.getEdges(n)) {
+				succTargets[s] = ids.get(e.dst());
+				succEdges[s++] = e;
+			}
+
+			predOffsets[v] = p;
+			for(E e : graph.getReverseEdges(n)) {
+				predSources[p] = ids.get(e.src());
+				predEdges[p++] = e;
+			}
+		}
+		succOffsets[size] = s;
+		predOffsets[size] = p;
+	}
+
+	public int size() {
+		return vertices.length;
+	}
+
+	public int edgeCount() {
+		return succTargets.length;
+	}
+
+	@SuppressWarnings("unchecked")
+	public N getVertex(int id) {
+		return (N) vertices[id];
+	}
+
+	/**
+	 * @return The dense id of the vertex, or -1 if it wasn't in the graph.
+	 */
+	public int getId(N n) {
+		Integer id = ids.get(n);
+		return id == null ? -1 : id;
+	}
+
+	public boolean containsVertex(N n) {
+		return ids.containsKey(n);
+	}
+
+	public Set<N> vertices() {
+		return Collections.unmodifiableSet(ids.keySet());
+	}
+
+	public int succBegin(int v) {
+		return succOffsets[v];
+	}
+
+	public int succEnd(int v) {
+		return succOffsets[v + 1];
+	}
+
+	public int succTarget(int i) {
+		return succTargets[i];
+	}
+
+	@SuppressWarnings("unchecked")
+	public E succEdge(int i) {
+		return (E) succEdges[i];
+	}
+
+	public int outDegree(int v) {
+		return succOffsets[v + 1] - succOffsets[v];
+	}
+
+	public int predBegin(int v) {
+		return predOffsets[v];
+	}
+
+	public int predEnd(int v) {
+		return predOffsets[v + 1];
+	}
+
+	public int predSource(int i) {
+		return predSources[i];
+	}
+
+	@SuppressWarnings("unchecked")
+	public E predEdge(int i) {
+		return (E) predEdges[i];
+	}
+
+	public int inDegree(int v) {
+		return predOffsets[v + 1] - predOffsets[v];
+	}
+}
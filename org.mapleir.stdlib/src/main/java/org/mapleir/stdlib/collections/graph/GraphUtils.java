@@ -124,17 +124,18 @@ public class GraphUtils {
 		 * if backedges != retreating edges -> irreducible loops */
 		Set<E> backEdges = new HashSet<>();
 
-		LT79Dom<N, E> dom = new LT79Dom<>(g, entry);
+		FrozenDirectedGraph<N, E> frozen = g.freeze();
+		LT79Dom<N, E> dom = new LT79Dom<>(frozen, entry);
 		for (N b : g.vertices()) {
 			for (E edge : g.getEdges(b)) {
-				if (dom.getDominates(edge.dst()).contains(b)) {
+				if (dom.dominates(edge.dst(), b)) {
 					// dst dominates src
 					backEdges.add(edge);
 				}
 			}
 		}
 		@SuppressWarnings({ "unchecked", "rawtypes" })
-		Set<E> retreatingEdges = (Set) new ExtendedDfs<>(g, ExtendedDfs.EDGES)
+		Set<E> retreatingEdges = (Set) new ExtendedDfs<>(frozen, ExtendedDfs.EDGES)
 			.run(entry).getEdges(ExtendedDfs.BACK);
 
 		retreatingEdges.removeAll(backEdges);
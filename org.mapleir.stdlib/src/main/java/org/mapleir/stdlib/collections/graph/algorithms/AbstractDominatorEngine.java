@@ -0,0 +1,400 @@
+package org.mapleir.stdlib.collections.graph.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.mapleir.stdlib.collections.graph.FastGraphEdge;
+import org.mapleir.stdlib.collections.graph.FastGraphEdgeImpl;
+import org.mapleir.stdlib.collections.graph.FastGraphVertex;
+import org.mapleir.stdlib.collections.graph.FrozenDirectedGraph;
+
+/**
+ * The parts of a {@link DominatorEngine} that don't depend on how the
+ * immediate dominators are found. The reachable vertices are numbered in dfs
+ * pre order over a snapshot of the graph and all of the state is kept in int
+ * arrays indexed by that number; subclasses fill in {@link #idom} from
+ * {@link #computeDominators()}, using the link-eval forest here if they need
+ * it. The dominator tree and the dominance frontiers are only built when they
+ * are first asked for.
+ */
+public abstract class AbstractDominatorEngine<N extends FastGraphVertex, E extends FastGraphEdge<N>> implements DominatorEngine<N> {
+
+	protected static final int NONE = -1;
+
+	protected final FrozenDirectedGraph<N, E> graph;
+	protected final N root;
+
+	/* number of vertices reachable from the root */
+	protected final int count;
+	/* number(id) = dfs pre-time of the vertex with snapshot id id, or NONE */
+	protected final int[] number;
+	/* vertex(i) = snapshot id of the vertex with dfs pre-time == i */
+	protected final int[] vertex;
+	/* postOrder = numbers in dfs post order */
+	protected final int[] postOrder;
+	/* parent(w) = parent of w in the dfs spanning tree */
+	protected final int[] parent;
+	/* semi(w)=
+	 *    (i) before semidominators are computed: w
+	 *   (ii) after semidominators are computed: the semidominator of w */
+	protected final int[] semi;
+	/* idom(w) = immediate dominator of w, NONE for the root */
+	protected final int[] idom;
+	/* the link-eval forest */
+	protected final int[] ancestor;
+	protected final int[] label;
+	/* scratch stack for compress */
+	protected final int[] path;
+
+	/* the dominator tree laid out in pre order: the descendants of w (w
+	 * included) are treeOrder[treeIndex(w) ... treeIndex(w) + treeSize(w)) */
+	private final int[] treeIndex;
+	private final int[] treeSize;
+	private final int[] treeOrder;
+
+	/* graph representation of the dominator tree. edges are of
+	 * the form(idom(n), n) */
+	private DominatorTree<N> dominatorTree;
+
+	private int[][] frontiers;
+	private int[] frontierSizes;
+	private Set<N>[] frontierSets;
+	private Set<N>[] iteratedFrontiers;
+
+	protected AbstractDominatorEngine(FrozenDirectedGraph<N, E> graph, N root) {
+		this.graph = graph;
+		this.root = root;
+
+		int size = graph.size();
+		number = new int[size];
+		Arrays.fill(number, NONE);
+		vertex = new int[size];
+		postOrder = new int[size];
+		parent = new int[size];
+
+		int rootId = graph.getId(root);
+		if(rootId == NONE) {
+			throw new IllegalArgumentException("root " + root + " is not in the graph");
+		}
+		count = dfs(rootId);
+
+		semi = new int[count];
+		idom = new int[count];
+		ancestor = new int[count];
+		label = new int[count];
+		path = new int[count];
+		for(int i=0; i < count; i++) {
+			semi[i] = i;
+			idom[i] = NONE;
+			ancestor[i] = NONE;
+			label[i] = i;
+		}
+
+		computeDominators();
+
+		treeIndex = new int[count];
+		treeSize = new int[count];
+		treeOrder = new int[count];
+		layoutTree();
+	}
+
+	/**
+	 * Fills in idom for every number but 0, the root.
+	 */
+	protected abstract void computeDominators();
+
+	@Override
+	public List<N> getPreOrder() {
+		List<N> preOrder = new ArrayList<>(count);
+		for(int i=0; i < count; i++) {
+			preOrder.add(graph.getVertex(vertex[i]));
+		}
+		return preOrder;
+	}
+
+	@Override
+	public List<N> getPostOrder() {
+		List<N> res = new ArrayList<>(count);
+		for(int i=0; i < count; i++) {
+			res.add(graph.getVertex(vertex[postOrder[i]]));
+		}
+		return res;
+	}
+
+	/* numbers the vertices in dfs pre order and records the post order,
+	 * visiting successors in the snapshot's edge order. returns the number
+	 * of vertices visited. */
+	private int dfs(int rootId) {
+		/* the explicit stack holds numbers, cursor(i) is the next edge of
+		 * vertex(i) to look at. */
+		int[] stack = new int[graph.size()];
+		int[] cursor = new int[graph.size()];
+		int n = 0, post = 0, sp = 0;
+
+		number[rootId] = n;
+		vertex[n] = rootId;
+		parent[n] = NONE;
+		cursor[n] = graph.succBegin(rootId);
+		stack[sp++] = n++;
+
+		while(sp > 0) {
+			int v = stack[sp - 1];
+			int id = vertex[v];
+			int end = graph.succEnd(id);
+			int i = cursor[v];
+			while(i < end && number[graph.succTarget(i)] != NONE) {
+				i++;
+			}
+			if(i < end) {
+				cursor[v] = i + 1;
+				int w = graph.succTarget(i);
+				number[w] = n;
+				vertex[n] = w;
+				parent[n] = v;
+				cursor[n] = graph.succBegin(w);
+				stack[sp++] = n++;
+			} else {
+				sp--;
+				postOrder[post++] = v;
+			}
+		}
+
+		return n;
+	}
+
+	/* add (v, w) to the forest */
+	protected void link(int v, int w) {
+		ancestor[w] = v;
+	}
+
+	/* if v is a root of a tree in the forest, return v. else let r be the root
+	 * of the tree in the forest which contains v. return any vertex u != r of
+	 * minimum semi(u) on the path r ->* v */
+	protected int eval(int v) {
+		if(ancestor[v] != NONE) {
+			compress(v);
+			return label[v];
+		} else {
+			return v;
+		}
+	}
+
+	/* iterative form of the recursive compress: collect the path up to the
+	 * last vertex whose ancestor isn't a root, then update it from the top
+	 * down. */
+	private void compress(int v) {
+		int sp = 0;
+		for(int u = v; ancestor[ancestor[u]] != NONE; u = ancestor[u]) {
+			path[sp++] = u;
+		}
+		while(sp > 0) {
+			int u = path[--sp];
+			int a = ancestor[u];
+			if(semi[label[a]] < semi[label[u]]) {
+				label[u] = label[a];
+			}
+			ancestor[u] = ancestor[a];
+		}
+	}
+
+	/* lays the dominator tree out in pre order. idom(w) < w, so subtree
+	 * sizes can be summed in decreasing order by number and each child given
+	 * the next free block of its parent in increasing order. */
+	private void layoutTree() {
+		Arrays.fill(treeSize, 1);
+		for(int w=count - 1; w > 0; w--) {
+			treeSize[idom[w]] += treeSize[w];
+		}
+		/* next(w) = next free slot in the subtree of w */
+		int[] next = new int[count];
+		treeIndex[0] = 0;
+		next[0] = 1;
+		for(int w=1; w < count; w++) {
+			int p = idom[w];
+			treeIndex[w] = next[p];
+			next[p] += treeSize[w];
+			next[w] = treeIndex[w] + 1;
+		}
+		for(int w=0; w < count; w++) {
+			treeOrder[treeIndex[w]] = w;
+		}
+	}
+
+	/* DF(n) = {b | n dominates a predecessor of b but does not strictly
+	 * dominate b}. for each b, walk up the dominator tree from each
+	 * predecessor until idom(b) is reached; every vertex on the way has b in
+	 * its frontier. */
+	private void dfrontiers() {
+		frontiers = new int[count][];
+		frontierSizes = new int[count];
+		int[] lastAdded = new int[count];
+		Arrays.fill(lastAdded, NONE);
+
+		for(int b=0; b < count; b++) {
+			int id = vertex[b];
+			for(int i = graph.predBegin(id), end = graph.predEnd(id); i < end; i++) {
+				int runner = number[graph.predSource(i)];
+				if(runner == NONE) {
+					continue;
+				}
+				while(runner != NONE && runner != idom[b]) {
+					if(lastAdded[runner] == b) {
+						break;
+					}
+					lastAdded[runner] = b;
+					addFrontier(runner, b);
+					runner = idom[runner];
+				}
+			}
+		}
+	}
+
+	private void addFrontier(int n, int b) {
+		int[] df = frontiers[n];
+		int size = frontierSizes[n];
+		if(df == null) {
+			df = frontiers[n] = new int[4];
+		} else if(size == df.length) {
+			df = frontiers[n] = Arrays.copyOf(df, size * 2);
+		}
+		df[size] = b;
+		frontierSizes[n] = size + 1;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Set<N> frontier(int n) {
+		if(frontiers == null) {
+			dfrontiers();
+			frontierSets = new Set[count];
+		}
+		Set<N> res = frontierSets[n];
+		if(res == null) {
+			res = new HashSet<>();
+			for(int i=0; i < frontierSizes[n]; i++) {
+				res.add(graph.getVertex(vertex[frontiers[n][i]]));
+			}
+			res = frontierSets[n] = Collections.unmodifiableSet(res);
+		}
+		return res;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Set<N> iteratedFrontier(int n) {
+		if(frontiers == null) {
+			dfrontiers();
+			frontierSets = new Set[count];
+		}
+		if(iteratedFrontiers == null) {
+			iteratedFrontiers = new Set[count];
+		}
+		Set<N> res = iteratedFrontiers[n];
+		if(res == null) {
+			/* DF+(n) is the least fixed point of DF(n ∪ DF+(n)). */
+			boolean[] in = new boolean[count];
+			int[] work = new int[count];
+			int sp = 0;
+			work[sp++] = n;
+			res = new HashSet<>();
+			while(sp > 0) {
+				int v = work[--sp];
+				int[] df = frontiers[v];
+				for(int i=0; i < frontierSizes[v]; i++) {
+					int b = df[i];
+					if(!in[b]) {
+						in[b] = true;
+						res.add(graph.getVertex(vertex[b]));
+						work[sp++] = b;
+					}
+				}
+			}
+			res = iteratedFrontiers[n] = Collections.unmodifiableSet(res);
+		}
+		return res;
+	}
+
+	private DominatorTree<N> makeDominatorTree() {
+		DominatorTree<N> tree = new DominatorTree<>();
+		tree.addVertex(root);
+		for(int i=0; i < count; i++) {
+			int v = postOrder[i];
+			if(idom[v] != NONE) {
+				N n = graph.getVertex(vertex[v]);
+				N d = graph.getVertex(vertex[idom[v]]);
+				tree.addEdge(new FastGraphEdgeImpl<>(d, n));
+			}
+		}
+		return tree;
+	}
+
+	/* the number of v, or NONE if it isn't reachable from the root. */
+	private int numberOf(N v) {
+		int id = graph.getId(v);
+		return id == NONE ? NONE : number[id];
+	}
+
+	@Override
+	public DominatorTree<N> getDominatorTree() {
+		if(dominatorTree == null) {
+			dominatorTree = makeDominatorTree();
+		}
+		return dominatorTree;
+	}
+
+	@Override
+	public boolean dominates(N a, N b) {
+		int x = numberOf(a), y = numberOf(b);
+		if(x == NONE || y == NONE) {
+			return false;
+		}
+		int d = treeIndex[y] - treeIndex[x];
+		return d >= 0 && d < treeSize[x];
+	}
+
+	@Override
+	public Set<N> getDominates(N v) {
+		int x = numberOf(v);
+		if(x == NONE) {
+			return new HashSet<>();
+		}
+		Set<N> res = new HashSet<>();
+		for(int i=treeIndex[x], end=i + treeSize[x]; i < end; i++) {
+			res.add(graph.getVertex(vertex[treeOrder[i]]));
+		}
+		return res;
+	}
+
+	@Override
+	public N getImmediateDominator(N v) {
+		int x = numberOf(v);
+		if(x == NONE || idom[x] == NONE) {
+			return null;
+		}
+		return graph.getVertex(vertex[idom[x]]);
+	}
+
+	/**
+	 * The frontiers of all vertices are computed the first time one is asked
+	 * for.
+	 * @return An unmodifiable view of the dominance frontier of v.
+	 */
+	@Override
+	public Set<N> getDominanceFrontier(N v) {
+		int x = numberOf(v);
+		return x == NONE ? Collections.emptySet() : frontier(x);
+	}
+
+	/**
+	 * The iterated frontier of a vertex is computed the first time it is
+	 * asked for and is kept for later calls.
+	 * @return An unmodifiable view of the iterated dominance frontier of v.
+	 */
+	@Override
+	public Set<N> getIteratedDominanceFrontier(N v) {
+		int x = numberOf(v);
+		return x == NONE ? Collections.emptySet() : iteratedFrontier(x);
+	}
+}
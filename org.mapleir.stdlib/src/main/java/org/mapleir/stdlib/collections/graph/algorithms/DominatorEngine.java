@@ -0,0 +1,57 @@
+package org.mapleir.stdlib.collections.graph.algorithms;
+
+import java.util.List;
+import java.util.Set;
+
+import org.mapleir.stdlib.collections.graph.FastGraphEdge;
+import org.mapleir.stdlib.collections.graph.FastGraphVertex;
+import org.mapleir.stdlib.collections.graph.FrozenDirectedGraph;
+
+/**
+ * Dominance information for the vertices of a graph reachable from a root.
+ * Use {@link #create(FrozenDirectedGraph, FastGraphVertex)} to get the
+ * engine best suited to the size of the graph; every engine gives the same
+ * answers.
+ */
+public interface DominatorEngine<N extends FastGraphVertex> {
+
+	/* graphs with at most this many vertices go to SemiNCADom, larger ones
+	 * to LT79Dom. Semi-NCA tends to be the faster of the two on graphs the
+	 * size of real CFGs (see Georgiadis, Tarjan and Werneck, "Finding
+	 * dominators in practice"), but its idom walk is quadratic in the worst
+	 * case, so really big graphs keep LT79's bound. the cut-off hasn't been
+	 * measured on this code base; DominatorBenchmark in
+	 * org.mapleir.benchmarks compares the engines by graph size. */
+	int SEMI_NCA_MAX_VERTICES = 1024;
+
+	static <N extends FastGraphVertex, E extends FastGraphEdge<N>> DominatorEngine<N> create(FrozenDirectedGraph<N, E> graph, N root) {
+		if(graph.size() <= SEMI_NCA_MAX_VERTICES) {
+			return new SemiNCADom<>(graph, root);
+		} else {
+			return new LT79Dom<>(graph, root);
+		}
+	}
+
+	List<N> getPreOrder();
+
+	List<N> getPostOrder();
+
+	DominatorTree<N> getDominatorTree();
+
+	/**
+	 * @return Whether a dominates b (every vertex dominates itself). Unlike
+	 * {@link #getDominates(FastGraphVertex)}, this doesn't build a set.
+	 */
+	boolean dominates(N a, N b);
+
+	/**
+	 * @return The vertices dominated by v, v included.
+	 */
+	Set<N> getDominates(N v);
+
+	N getImmediateDominator(N v);
+
+	Set<N> getDominanceFrontier(N v);
+
+	Set<N> getIteratedDominanceFrontier(N v);
+}
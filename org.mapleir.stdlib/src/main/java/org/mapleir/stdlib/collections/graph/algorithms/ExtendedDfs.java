@@ -3,6 +3,7 @@ package org.mapleir.stdlib.collections.graph.algorithms;
 import org.mapleir.stdlib.collections.graph.FastDirectedGraph;
 import org.mapleir.stdlib.collections.graph.FastGraphEdge;
 import org.mapleir.stdlib.collections.graph.FastGraphVertex;
+import org.mapleir.stdlib.collections.graph.FrozenDirectedGraph;
 import org.mapleir.stdlib.collections.map.NullPermeableHashMap;
 
 import java.util.*;
@@ -17,7 +18,10 @@ public class ExtendedDfs<N extends FastGraphVertex> implements DepthFirstSearch<
 	private final int opt;
 	private Collection<N> mask;
 	private final FastDirectedGraph<N, ? extends FastGraphEdge<N>> graph;
+	private final FrozenDirectedGraph<N, ? extends FastGraphEdge<N>> frozen;
 	private final NullPermeableHashMap<N, Integer> colours;
+	/* colours by vertex id when running on a snapshot, -1 if not seen yet. */
+	private final int[] frozenColours;
 	private final Map<Integer, Set<FastGraphEdge<N>>> edges;
 	private final Map<N, N> parents;
 	private final List<N> preorder;
@@ -25,12 +29,33 @@ public class ExtendedDfs<N extends FastGraphVertex> implements DepthFirstSearch<
 	private List<N> topoorder;
 
 	public ExtendedDfs(FastDirectedGraph<N, ? extends FastGraphEdge<N>> graph, int opt) {
+		this(graph, null, opt);
+	}
+	
+	/**
+	 * Searches a snapshot of a graph, keeping the colours in an array indexed
+	 * by vertex id. Edges are visited in the snapshot's order, so
+	 * {@link #order(Set)} is not consulted.
+	 */
+	public ExtendedDfs(FrozenDirectedGraph<N, ? extends FastGraphEdge<N>> graph, int opt) {
+		this(null, graph, opt);
+	}
+	
+	private ExtendedDfs(FastDirectedGraph<N, ? extends FastGraphEdge<N>> graph, FrozenDirectedGraph<N, ? extends FastGraphEdge<N>> frozen, int opt) {
 		this.opt = opt;
 		this.graph = graph;
-		colours = new NullPermeableHashMap<>(k -> {
-			if(opt(COLOUR_VISITOR)) coloured(k, WHITE);
-			return WHITE;
-		});
+		this.frozen = frozen;
+		if(frozen != null) {
+			colours = null;
+			frozenColours = new int[frozen.size()];
+			Arrays.fill(frozenColours, -1);
+		} else {
+			colours = new NullPermeableHashMap<>(k -> {
+				if(opt(COLOUR_VISITOR)) coloured(k, WHITE);
+				return WHITE;
+			});
+			frozenColours = null;
+		}
 		
 		parents = opt(PARENTS) ? new HashMap<>() : null;
 		preorder = opt(PRE) ? new ArrayList<>() : null;
@@ -48,7 +73,11 @@ public class ExtendedDfs<N extends FastGraphVertex> implements DepthFirstSearch<
 	}
 	
 	public ExtendedDfs<N> run(N entry) {
-		dfs(null, entry);
+		if(frozen != null) {
+			dfs(frozen.getId(entry));
+		} else {
+			dfs(null, entry);
+		}
 		if (opt(TOPO)) {
 			// no need to copy if postorder wasn't requested.
 			topoorder = opt(POST) ? new ArrayList<>(postorder) : postorder;
@@ -73,6 +102,10 @@ public class ExtendedDfs<N extends FastGraphVertex> implements DepthFirstSearch<
 	}
 	
 	public int getColour(N b) {
+		if(frozen != null) {
+			int id = frozen.getId(b);
+			return id == -1 ? WHITE : Math.max(frozenColours[id], WHITE);
+		}
 		return colours.get(b);
 	}
 	
@@ -121,6 +154,44 @@ public class ExtendedDfs<N extends FastGraphVertex> implements DepthFirstSearch<
 		if(cvisit) coloured(b, BLACK);
 	}
 	
+	private void dfs(int b) {
+		boolean cvisit = opt(COLOUR_VISITOR);
+		boolean reverse = opt(REVERSE);
+		N bv = frozen.getVertex(b);
+		
+		if(opt(PRE)) preorder.add(bv);
+		
+		frozenColours[b] = GREY;
+		if(cvisit) coloured(bv, GREY);
+		
+		int i = reverse ? frozen.predBegin(b) : frozen.succBegin(b);
+		int end = reverse ? frozen.predEnd(b) : frozen.succEnd(b);
+		for(; i < end; i++) {
+			int s = reverse ? frozen.predSource(i) : frozen.succTarget(i);
+			N sv = frozen.getVertex(s);
+			if (mask == null || mask.contains(sv)) {
+				if (frozenColours[s] == -1) {
+					frozenColours[s] = WHITE;
+					if(cvisit) coloured(sv, WHITE);
+				}
+				
+				if (opt(EDGES))
+					edges.get(frozenColours[s]).add(reverse ? frozen.predEdge(i) : frozen.succEdge(i));
+				
+				if (frozenColours[s] == WHITE) {
+					if (opt(PARENTS))
+						parents.put(sv, bv);
+					dfs(s);
+				}
+			}
+		}
+		
+		if(opt(POST) || opt(TOPO)) postorder.add(bv);
+
+		frozenColours[b] = BLACK;
+		if(cvisit) coloured(bv, BLACK);
+	}
+	
 	protected void coloured(N n, int c) {
 	}
 	
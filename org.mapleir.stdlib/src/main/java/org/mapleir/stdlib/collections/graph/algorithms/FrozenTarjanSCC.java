@@ -0,0 +1,94 @@
+package org.mapleir.stdlib.collections.graph.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.mapleir.stdlib.collections.graph.FastGraphEdge;
+import org.mapleir.stdlib.collections.graph.FastGraphVertex;
+import org.mapleir.stdlib.collections.graph.FrozenDirectedGraph;
+
+/**
+ * {@link TarjanSCC} over a snapshot of a graph, with the search state kept in
+ * arrays indexed by vertex id. The edges are visited in the snapshot's order,
+ * so the components come out the same as TarjanSCC's on the graph the
+ * snapshot was taken from.
+ */
+public class FrozenTarjanSCC<N extends FastGraphVertex> {
+
+	private final FrozenDirectedGraph<N, ? extends FastGraphEdge<N>> graph;
+	/* index and low by vertex id, -1 if not visited yet */
+	private final int[] index;
+	private final int[] low;
+	private final int[] stack;
+	private final boolean[] onStack;
+	private final List<List<N>> comps;
+	private int stackSize;
+	private int cur;
+
+	public FrozenTarjanSCC(FrozenDirectedGraph<N, ? extends FastGraphEdge<N>> graph) {
+		this.graph = graph;
+
+		int size = graph.size();
+		index = new int[size];
+		low = new int[size];
+		stack = new int[size];
+		onStack = new boolean[size];
+		comps = new ArrayList<>();
+		Arrays.fill(index, -1);
+		Arrays.fill(low, -1);
+	}
+
+	public int low(N n) {
+		int id = graph.getId(n);
+		return id == -1 ? -1 : low[id];
+	}
+
+	public int index(N n) {
+		int id = graph.getId(n);
+		return id == -1 ? -1 : index[id];
+	}
+
+	public List<List<N>> getComponents() {
+		return comps;
+	}
+
+	public void search(N n) {
+		search(graph.getId(n));
+	}
+
+	private void search(int n) {
+		index[n] = low[n] = cur++;
+
+		stack[stackSize++] = n;
+		onStack[n] = true;
+
+		for(int i = graph.succBegin(n), end = graph.succEnd(n); i < end; i++) {
+			int s = graph.succTarget(i);
+			if(low[s] != -1) {
+				if(index[s] < index[n] && onStack[s]) {
+					low[n] = Math.min(low[n], index[s]);
+				}
+			} else {
+				search(s);
+				low[n] = Math.min(low[n], low[s]);
+			}
+		}
+
+		if(low[n] == index[n]) {
+			Set<N> c = new HashSet<>();
+
+			int w;
+			do {
+				w = stack[--stackSize];
+				onStack[w] = false;
+				c.add(graph.getVertex(w));
+			} while (w != n);
+
+			N found = graph.getVertex(n);
+			comps.add(0, new ExtendedDfs<>(graph, ExtendedDfs.TOPO).setMask(c).run(found).getTopoOrder());
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package org.mapleir.stdlib.collections.graph.algorithms;
+
+import org.mapleir.stdlib.collections.graph.FastDirectedGraph;
+import org.mapleir.stdlib.collections.graph.FastGraphEdge;
+import org.mapleir.stdlib.collections.graph.FastGraphVertex;
+import org.mapleir.stdlib.collections.graph.FrozenDirectedGraph;
+
+/**
+ * Implementation of the Semi-NCA algorithm from Finding Dominators in
+ * Practice by Georgiadis, Tarjan and Werneck, 2006.
+ *
+ * <p> The semidominators are computed as in {@link LT79Dom}, but instead of
+ * the buckets, the immediate dominator of each vertex is then found as the
+ * nearest common ancestor of its dfs parent and its semidominator in the
+ * partially built dominator tree. This is quadratic in the worst case but
+ * does less work per vertex, which pays off on the small graphs most methods
+ * have.
+ */
+public class SemiNCADom<N extends FastGraphVertex, E extends FastGraphEdge<N>> extends AbstractDominatorEngine<N, E> {
+
+	public SemiNCADom(FastDirectedGraph<N, E> graph, N root) {
+		this(graph.freeze(), root);
+	}
+
+	public SemiNCADom(FrozenDirectedGraph<N, E> graph, N root) {
+		super(graph, root);
+	}
+
+	@Override
+	protected void computeDominators() {
+		/* sdom(w) for all w != r, in decreasing order by number. */
+		for(int w=count - 1; w > 0; w--) {
+			int id = vertex[w];
+			for(int i = graph.predBegin(id), end = graph.predEnd(id); i < end; i++) {
+				int v = number[graph.predSource(i)];
+				/* unreachable predecessors don't take part */
+				if(v == NONE) {
+					continue;
+				}
+				int u = eval(v);
+				if(semi[u] < semi[w]) {
+					semi[w] = semi[u];
+				}
+			}
+			link(parent[w], w);
+		}
+
+		/* idom(w) = nca(parent(w), sdom(w)) in the tree built so far. since
+		 * sdom(w) is an ancestor of w in the dfs tree and every vertex numbered
+		 * below w is already in the tree, this is the first vertex on the
+		 * tree path up from parent(w) whose number is not above sdom(w). */
+		for(int w=1; w < count; w++) {
+			int d = parent[w];
+			while(d > semi[w]) {
+				d = idom[d];
+			}
+			idom[w] = d;
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package org.mapleir.stdlib.collections.map;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An open addressing hash map from primitive longs to non-null values, for
+ * lookups on hot paths where boxing or building a key object would dominate
+ * the cost of the lookup itself. Entries can't be removed.
+ */
+public class LongKeyedMap<V> {
+
+	private long[] keys;
+	private Object[] vals;
+	private int size;
+
+	public LongKeyedMap() {
+		this(16);
+	}
+
+	public LongKeyedMap(int expectedSize) {
+		int cap = Integer.highestOneBit(Math.max(4, expectedSize * 4 / 3) - 1) << 1;
+		keys = new long[cap];
+		vals = new Object[cap];
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		return (V) vals[slot(key)];
+	}
+
+	public boolean containsKey(long key) {
+		return vals[slot(key)] != null;
+	}
+
+	/**
+	 * @return The previous value for the key, or null if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V val) {
+		if(val == null) {
+			throw new NullPointerException();
+		}
+		int i = slot(key);
+		Object prev = vals[i];
+		if(prev == null) {
+			if((size + 1) * 4 > keys.length * 3) {
+				grow();
+				i = slot(key);
+			}
+			keys[i] = key;
+			size++;
+		}
+		vals[i] = val;
+		return (V) prev;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		Arrays.fill(vals, null);
+		size = 0;
+	}
+
+	/**
+	 * @return A view of the values, in no particular order.
+	 */
+	public Collection<V> values() {
+		return new AbstractCollection<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					int next = advance(0);
+
+					private int advance(int i) {
+						while(i < vals.length && vals[i] == null) {
+							i++;
+						}
+						return i;
+					}
+
+					@Override
+					public boolean hasNext() {
+						return next < vals.length;
+					}
+
+					@SuppressWarnings("unchecked")
+					@Override
+					public V next() {
+						if(next >= vals.length) {
+							throw new NoSuchElementException();
+						}
+						V v = (V) vals[next];
+						next = advance(next + 1);
+						return v;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private int slot(long key) {
+		int mask = keys.length - 1;
+		int i = mix(key) & mask;
+		while(vals[i] != null && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		Object[] oldVals = vals;
+		keys = new long[oldKeys.length * 2];
+		vals = new Object[oldVals.length * 2];
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldVals[i] != null) {
+				int j = slot(oldKeys[i]);
+				keys[j] = oldKeys[i];
+				vals[j] = oldVals[i];
+			}
+		}
+	}
+
+	private static int mix(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -6,8 +6,7 @@ public interface IHasJavaDesc {
     String getDesc();
     JavaDesc.DescType getDescType();
 
-    //todo: cache
     default JavaDesc getJavaDesc() {
-        return new JavaDesc(getOwner(), getName(), getDesc(), getDescType());
+        return JavaDesc.intern(getOwner(), getName(), getDesc(), getDescType());
     }
 }
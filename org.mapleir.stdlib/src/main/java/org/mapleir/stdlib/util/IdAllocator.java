@@ -0,0 +1,49 @@
+package org.mapleir.stdlib.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out unique int ids to any number of threads. Each thread leases a
+ * block of consecutive ids from a shared counter and then hands them out
+ * without any synchronisation, so the shared counter is only touched once
+ * per block.
+ *
+ * <p> Ids given out by a single thread are increasing, but ids are not dense
+ * when more than one thread allocates them, as each thread may leave part of
+ * its last block unused.
+ */
+public class IdAllocator {
+
+	private final AtomicLong next;
+	private final int blockSize;
+	private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+	/**
+	 * @param first The first id to hand out.
+	 * @param blockSize The number of ids a thread leases at a time. ( &gt;= 1)
+	 */
+	public IdAllocator(int first, int blockSize) {
+		if(blockSize < 1) {
+			throw new IllegalArgumentException("block size " + blockSize);
+		}
+		next = new AtomicLong(first);
+		this.blockSize = blockSize;
+	}
+
+	public int next() {
+		Block b = blocks.get();
+		if(b.next == b.end) {
+			long start = next.getAndAdd(blockSize);
+			if(start + blockSize > Integer.MAX_VALUE) {
+				throw new IllegalStateException("Ran out of ids");
+			}
+			b.next = (int) start;
+			b.end = (int) (start + blockSize);
+		}
+		return b.next++;
+	}
+
+	private static final class Block {
+		int next, end;
+	}
+}
@@ -1,8 +1,22 @@
 package org.mapleir.stdlib.util;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+
 public class JavaDesc  {
+    // canonical instances handed out by intern(), shared by all threads. the
+    // pool only holds them weakly, so descs nobody uses any more are dropped.
+    private static final Pool[] POOLS = new Pool[16];
+    static {
+        for (int i = 0; i < POOLS.length; i++) {
+            POOLS[i] = new Pool();
+        }
+    }
+
     public final String owner, name, desc;
     public final DescType descType; // FIELD or METHOD -- METHOD=argument flow or return value flow
+    private final int hash;
 
     public JavaDesc(String owner, String name, String desc, DescType descType) {
         this.owner = owner;
@@ -12,6 +26,35 @@ public class JavaDesc  {
 
         if (descType == DescType.CLASS)
             assert(name.isEmpty() && desc.isEmpty());
+
+        hash = hash(owner, name, desc, descType);
+    }
+
+    private static int hash(String owner, String name, String desc, DescType descType) {
+        int result = owner != null ? owner.hashCode() : 0;
+        result = 31 * result + (name != null ? name.hashCode() : 0);
+        result = 31 * result + (desc != null ? desc.hashCode() : 0);
+        result = 31 * result + (descType != null ? descType.hashCode() : 0);
+        return result;
+    }
+
+    /**
+     * Returns the canonical instance for the given triple, creating it the
+     * first time it is asked for. Interned descs can be compared by identity
+     * for as long as they are referenced.
+     */
+    public static JavaDesc intern(String owner, String name, String desc, DescType descType) {
+        int hash = hash(owner, name, desc, descType);
+        // the pool is picked with the high bits, the bucket with the low ones.
+        return POOLS[(hash * 0x9E3779B9) >>> 28].intern(owner, name, desc, descType, hash);
+    }
+
+    /**
+     * @return Whether this desc was created from the given owner, name and
+     * descriptor.
+     */
+    public boolean matches(String owner, String name, String desc) {
+        return Objects.equals(this.name, name) && Objects.equals(this.desc, desc) && Objects.equals(this.owner, owner);
     }
 
     @Override
@@ -26,6 +69,7 @@ public class JavaDesc  {
 
         JavaDesc javaDesc = (JavaDesc) o;
 
+        if (hash != javaDesc.hash) return false;
         if (owner != null ? !owner.equals(javaDesc.owner) : javaDesc.owner != null) return false;
         if (name != null ? !name.equals(javaDesc.name) : javaDesc.name != null) return false;
         if (desc != null ? !desc.equals(javaDesc.desc) : javaDesc.desc != null) return false;
@@ -35,11 +79,81 @@ public class JavaDesc  {
 
     @Override
     public int hashCode() {
-        int result = owner != null ? owner.hashCode() : 0;
-        result = 31 * result + (name != null ? name.hashCode() : 0);
-        result = 31 * result + (desc != null ? desc.hashCode() : 0);
-        result = 31 * result + (descType != null ? descType.hashCode() : 0);
-        return result;
+        return hash;
+    }
+
+    /**
+     * A hash set of weakly held descs that is searched by the parts of a desc,
+     * so that a hit doesn't allocate anything.
+     */
+    private static final class Pool {
+        private final ReferenceQueue<JavaDesc> queue = new ReferenceQueue<>();
+        private Entry[] table = new Entry[64];
+        private int size;
+
+        synchronized JavaDesc intern(String owner, String name, String desc, DescType descType, int hash) {
+            expunge();
+            int i = index(hash, table.length);
+            for (Entry e = table[i]; e != null; e = e.next) {
+                JavaDesc jd;
+                if (e.hash == hash && (jd = e.get()) != null && jd.descType == descType && jd.matches(owner, name, desc)) {
+                    return jd;
+                }
+            }
+            JavaDesc jd = new JavaDesc(owner, name, desc, descType);
+            table[i] = new Entry(jd, queue, table[i]);
+            if (++size > table.length * 3 / 4) {
+                resize();
+            }
+            return jd;
+        }
+
+        private void expunge() {
+            Object ref;
+            while ((ref = queue.poll()) != null) {
+                Entry dead = (Entry) ref;
+                int i = index(dead.hash, table.length);
+                for (Entry e = table[i], prev = null; e != null; prev = e, e = e.next) {
+                    if (e == dead) {
+                        if (prev == null) {
+                            table[i] = e.next;
+                        } else {
+                            prev.next = e.next;
+                        }
+                        size--;
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void resize() {
+            Entry[] old = table;
+            table = new Entry[old.length * 2];
+            for (Entry head : old) {
+                for (Entry e = head, next; e != null; e = next) {
+                    next = e.next;
+                    int i = index(e.hash, table.length);
+                    e.next = table[i];
+                    table[i] = e;
+                }
+            }
+        }
+
+        private static int index(int hash, int length) {
+            return (hash ^ (hash >>> 16)) & (length - 1);
+        }
+    }
+
+    private static final class Entry extends WeakReference<JavaDesc> {
+        final int hash;
+        Entry next;
+
+        Entry(JavaDesc jd, ReferenceQueue<JavaDesc> queue, Entry next) {
+            super(jd, queue);
+            hash = jd.hash;
+            this.next = next;
+        }
     }
 
     public enum DescType {
@@ -0,0 +1,110 @@
+package org.mapleir.stdlib.collections;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class SmallSetTest extends TestCase {
+
+	private static SmallSet<Integer> filled(int n) {
+		SmallSet<Integer> set = new SmallSet<>();
+		for(int i = 0; i < n; i++) {
+			assertTrue(set.add(i));
+		}
+		return set;
+	}
+
+	public void testAddAndRemoveInline() {
+		SmallSet<Integer> set = filled(3);
+		assertFalse(set.add(1));
+		assertEquals(3, set.size());
+		assertTrue(set.contains(2));
+		assertFalse(set.contains(3));
+		assertTrue(set.remove(1));
+		assertFalse(set.remove(1));
+		assertEquals(2, set.size());
+		assertEquals(new HashSet<>(Arrays.asList(0, 2)), set);
+	}
+
+	public void testPromotionAtInlineMax() {
+		SmallSet<Integer> set = filled(SmallSet.INLINE_MAX);
+		assertEquals(SmallSet.INLINE_MAX, set.size());
+		// a duplicate doesn't promote the set.
+		assertFalse(set.add(0));
+		assertEquals(SmallSet.INLINE_MAX, set.size());
+
+		assertTrue(set.add(SmallSet.INLINE_MAX));
+		assertEquals(SmallSet.INLINE_MAX + 1, set.size());
+		for(int i = 0; i <= SmallSet.INLINE_MAX; i++) {
+			assertTrue(set.contains(i));
+		}
+		assertFalse(set.add(3));
+		assertTrue(set.remove(3));
+		assertFalse(set.contains(3));
+		assertEquals(SmallSet.INLINE_MAX, set.size());
+
+		set.clear();
+		assertTrue(set.isEmpty());
+		assertTrue(set.add(7));
+		assertEquals(1, set.size());
+	}
+
+	public void testIteratorRemoveInline() {
+		SmallSet<Integer> set = filled(SmallSet.INLINE_MAX);
+		Set<Integer> seen = new HashSet<>();
+		for(Iterator<Integer> it = set.iterator(); it.hasNext(); ) {
+			Integer i = it.next();
+			assertTrue(seen.add(i));
+			if(i % 2 == 0) {
+				it.remove();
+			}
+		}
+		assertEquals(SmallSet.INLINE_MAX, seen.size());
+		assertEquals(SmallSet.INLINE_MAX / 2, set.size());
+		for(int i = 0; i < SmallSet.INLINE_MAX; i++) {
+			assertEquals(i % 2 != 0, set.contains(i));
+		}
+	}
+
+	public void testIteratorRemoveAll() {
+		for(int n : new int[] { 1, SmallSet.INLINE_MAX, SmallSet.INLINE_MAX + 5 }) {
+			SmallSet<Integer> set = filled(n);
+			int count = 0;
+			for(Iterator<Integer> it = set.iterator(); it.hasNext(); ) {
+				it.next();
+				it.remove();
+				count++;
+			}
+			assertEquals(n, count);
+			assertTrue(set.isEmpty());
+		}
+	}
+
+	public void testIteratorRemoveState() {
+		SmallSet<Integer> set = filled(2);
+		Iterator<Integer> it = set.iterator();
+		try {
+			it.remove();
+			fail();
+		} catch(IllegalStateException e) {
+		}
+		it.next();
+		it.remove();
+		try {
+			it.remove();
+			fail();
+		} catch(IllegalStateException e) {
+		}
+		it.next();
+		assertFalse(it.hasNext());
+		try {
+			it.next();
+			fail();
+		} catch(NoSuchElementException e) {
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package org.mapleir.stdlib.collections.bitset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class GenericBitSetTest extends TestCase {
+
+	private final IncrementalBitSetIndexer<Integer> indexer = new IncrementalBitSetIndexer<>();
+
+	private GenericBitSet<Integer> of(Integer... elems) {
+		GenericBitSet<Integer> set = new GenericBitSet<>(indexer);
+		set.addAll(Arrays.asList(elems));
+		return set;
+	}
+
+	@Override
+	protected void setUp() {
+		// spread the indices over a few words.
+		for(int i = 0; i < 200; i++) {
+			indexer.getIndex(i);
+		}
+	}
+
+	public void testUnionInto() {
+		GenericBitSet<Integer> a = of(1, 70, 150);
+		GenericBitSet<Integer> b = of(2, 70);
+		assertTrue(a.unionInto(b));
+		assertEquals(of(1, 2, 70, 150), b);
+		assertFalse(a.unionInto(b));
+	}
+
+	public void testAndNotInto() {
+		GenericBitSet<Integer> out = of(1, 70, 150, 199);
+		GenericBitSet<Integer> def = of(70, 199);
+		GenericBitSet<Integer> in = of(3);
+		assertTrue(out.andNotInto(def, in));
+		assertEquals(of(1, 3, 150), in);
+		assertFalse(out.andNotInto(def, in));
+	}
+
+	public void testIntersectsAndSubset() {
+		GenericBitSet<Integer> a = of(5, 130);
+		assertTrue(a.intersects(of(130)));
+		assertFalse(a.intersects(of(6, 131)));
+		assertFalse(a.intersects(of()));
+		assertTrue(a.isSubsetOf(of(5, 6, 130)));
+		assertFalse(a.isSubsetOf(of(5)));
+		assertTrue(of().isSubsetOf(a));
+		assertTrue(of(5, 6, 130).containsAll(a));
+		assertTrue(a.containsNone(of(1)));
+	}
+
+	public void testEqualsIgnoresCapacity() {
+		GenericBitSet<Integer> a = of(1, 190);
+		a.remove(190);
+		assertEquals(of(1), a);
+		assertEquals(of(1), a.copy());
+		assertFalse(of(1).equals(of(1, 2)));
+	}
+
+	public void testForEachMatchesIterator() {
+		GenericBitSet<Integer> a = of(0, 63, 64, 127, 128, 199);
+		List<Integer> viaForEach = new ArrayList<>();
+		a.forEach(viaForEach::add);
+		List<Integer> viaIterator = new ArrayList<>();
+		for(Integer i : a) {
+			viaIterator.add(i);
+		}
+		assertEquals(viaIterator, viaForEach);
+		assertEquals(6, a.size());
+	}
+}
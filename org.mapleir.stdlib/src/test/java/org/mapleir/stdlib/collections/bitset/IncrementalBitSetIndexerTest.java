@@ -0,0 +1,64 @@
+package org.mapleir.stdlib.collections.bitset;
+
+import junit.framework.TestCase;
+
+public class IncrementalBitSetIndexerTest extends TestCase {
+
+	public void testIndicesAreStable() {
+		IncrementalBitSetIndexer<String> indexer = new IncrementalBitSetIndexer<>();
+		for(int i = 0; i < 100; i++) {
+			assertEquals(i + 1, indexer.getIndex("e" + i));
+		}
+		for(int i = 0; i < 100; i++) {
+			String e = "e" + i;
+			assertTrue(indexer.isIndexed(e));
+			assertEquals(i + 1, indexer.getIndex(e));
+			assertEquals(e, indexer.get(i + 1));
+		}
+		assertFalse(indexer.isIndexed("e100"));
+		assertNull(indexer.get(0));
+		assertNull(indexer.get(101));
+	}
+
+	public void testBitSetOps() {
+		IncrementalBitSetIndexer<Integer> indexer = new IncrementalBitSetIndexer<>();
+		GenericBitSet<Integer> set = new GenericBitSet<>(indexer);
+		set.add(1000);
+		set.add(-5);
+		assertTrue(set.contains(1000));
+		assertFalse(set.contains(7));
+		assertEquals(2, set.size());
+	}
+
+	public void testEqualKeysShareAnIndex() {
+		IncrementalBitSetIndexer<String> indexer = new IncrementalBitSetIndexer<>();
+		int i = indexer.getIndex(new String("a"));
+		assertEquals(i, indexer.getIndex(new String("a")));
+		assertTrue(indexer.isIndexed(new String("a")));
+	}
+
+	public void testIdentityKeys() {
+		IncrementalBitSetIndexer<String> indexer = IncrementalBitSetIndexer.identity();
+		String a1 = new String("a"), a2 = new String("a");
+		int i1 = indexer.getIndex(a1);
+		int i2 = indexer.getIndex(a2);
+		assertTrue(i1 != i2);
+		assertSame(a1, indexer.get(i1));
+		assertSame(a2, indexer.get(i2));
+		assertFalse(indexer.isIndexed(new String("a")));
+		for(int i = 0; i < 1000; i++) {
+			indexer.getIndex("e" + i);
+		}
+		assertEquals(i1, indexer.getIndex(a1));
+		assertEquals(i2, indexer.getIndex(a2));
+	}
+
+	public void testNull() {
+		IncrementalBitSetIndexer<String> indexer = new IncrementalBitSetIndexer<>();
+		assertFalse(indexer.isIndexed(null));
+		int i = indexer.getIndex(null);
+		assertEquals(i, indexer.getIndex(null));
+		assertTrue(indexer.isIndexed(null));
+		assertNull(indexer.get(i));
+	}
+}
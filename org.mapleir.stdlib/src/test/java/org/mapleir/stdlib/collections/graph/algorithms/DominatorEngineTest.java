@@ -0,0 +1,94 @@
+package org.mapleir.stdlib.collections.graph.algorithms;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.mapleir.stdlib.collections.graph.AbstractFastGraphTest;
+import org.mapleir.stdlib.collections.graph.directed.FakeFastDirectedGraph;
+import org.mapleir.stdlib.collections.graph.util.FakeFastEdge;
+import org.mapleir.stdlib.collections.graph.util.FakeFastVertex;
+
+public class DominatorEngineTest extends AbstractFastGraphTest {
+
+	public DominatorEngineTest() {
+		super(true);
+	}
+
+	public void testRandomGraphs() {
+		Random r = new Random(79);
+		for(int i = 0; i < 200; i++) {
+			nodes.clear();
+			int n = 1 + r.nextInt(20);
+			FakeFastDirectedGraph g = new FakeFastDirectedGraph();
+			for(int v = 1; v <= n; v++) {
+				g.addVertex(node(v));
+			}
+			int edges = r.nextInt(n * 3);
+			for(int e = 0; e < edges; e++) {
+				g.addEdge(edge(1 + r.nextInt(n), 1 + r.nextInt(n)));
+			}
+			check(g, node(1), new LT79Dom<>(g, node(1)));
+			check(g, node(1), new SemiNCADom<>(g, node(1)));
+		}
+	}
+
+	private void check(FakeFastDirectedGraph g, FakeFastVertex root, DominatorEngine<FakeFastVertex> dom) {
+		Set<FakeFastVertex> reachable = reachable(g, root, null);
+		for(FakeFastVertex a : g.vertices()) {
+			/* a dominates b iff b can't be reached from the root without a */
+			Set<FakeFastVertex> dominated = new HashSet<>();
+			if(reachable.contains(a)) {
+				Set<FakeFastVertex> avoiding = a == root ? new HashSet<>() : reachable(g, root, a);
+				for(FakeFastVertex b : reachable) {
+					if(!avoiding.contains(b)) {
+						dominated.add(b);
+					}
+				}
+			}
+			assertEquals(dominated, dom.getDominates(a));
+			for(FakeFastVertex b : g.vertices()) {
+				assertEquals(dominated.contains(b), dom.dominates(a, b));
+			}
+
+			/* b ∈ DF(a) iff a dominates a predecessor of b but not strictly b */
+			Set<FakeFastVertex> frontier = new HashSet<>();
+			for(FakeFastVertex b : reachable) {
+				for(FakeFastEdge e : g.getReverseEdges(b)) {
+					if(dominated.contains(e.src()) && (a == b || !dominated.contains(b))) {
+						frontier.add(b);
+					}
+				}
+			}
+			assertEquals(frontier, dom.getDominanceFrontier(a));
+
+			if(a != root && reachable.contains(a)) {
+				FakeFastVertex idom = dom.getImmediateDominator(a);
+				assertTrue(dom.dominates(idom, a));
+				for(FakeFastVertex d : g.vertices()) {
+					/* every other strict dominator of a dominates idom(a) */
+					if(d != a && dom.dominates(d, a)) {
+						assertTrue(dom.dominates(d, idom));
+					}
+				}
+			}
+		}
+	}
+
+	private Set<FakeFastVertex> reachable(FakeFastDirectedGraph g, FakeFastVertex root, FakeFastVertex avoid) {
+		Set<FakeFastVertex> seen = new HashSet<>();
+		Deque<FakeFastVertex> work = new ArrayDeque<>();
+		seen.add(root);
+		work.add(root);
+		while(!work.isEmpty()) {
+			for(FakeFastEdge e : g.getEdges(work.pop())) {
+				if(e.dst() != avoid && seen.add(e.dst())) {
+					work.add(e.dst());
+				}
+			}
+		}
+		return seen;
+	}
+}
@@ -0,0 +1,80 @@
+package org.mapleir.stdlib.collections.graph.algorithms;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.mapleir.stdlib.collections.graph.FrozenDirectedGraph;
+import org.mapleir.stdlib.collections.graph.util.GraphConverter;
+import org.mapleir.stdlib.collections.graph.util.OrderedNode;
+import org.mapleir.stdlib.collections.graph.util.OrderedNode.ODirectedGraph;
+import org.mapleir.stdlib.collections.graph.util.OrderedNode.ONEdge;
+
+import junit.framework.TestCase;
+
+public class FrozenGraphTest extends TestCase {
+
+	ODirectedGraph g;
+	FrozenDirectedGraph<OrderedNode, ONEdge> frozen;
+	OrderedNode entry;
+
+	@Override
+	public void setUp() throws IOException {
+		g = (ODirectedGraph) GraphConverter.fromFile("/dfs.gv");
+		frozen = g.freeze();
+		entry = DfsTest.getNode(g, 1);
+	}
+
+	public void testAdjacency() {
+		assertEquals(g.size(), frozen.size());
+		for(OrderedNode n : g.vertices()) {
+			int id = frozen.getId(n);
+			assertSame(n, frozen.getVertex(id));
+
+			Set<ONEdge> succs = new HashSet<>();
+			for(int i = frozen.succBegin(id); i < frozen.succEnd(id); i++) {
+				ONEdge e = frozen.succEdge(i);
+				assertSame(e.dst(), frozen.getVertex(frozen.succTarget(i)));
+				succs.add(e);
+			}
+			assertEquals(g.getEdges(n), succs);
+
+			Set<ONEdge> preds = new HashSet<>();
+			for(int i = frozen.predBegin(id); i < frozen.predEnd(id); i++) {
+				ONEdge e = frozen.predEdge(i);
+				assertSame(e.src(), frozen.getVertex(frozen.predSource(i)));
+				preds.add(e);
+			}
+			assertEquals(g.getReverseEdges(n), preds);
+		}
+	}
+
+	public void testExtendedDfs() {
+		int opt = ExtendedDfs.PRE | ExtendedDfs.POST | ExtendedDfs.TOPO | ExtendedDfs.EDGES | ExtendedDfs.PARENTS;
+		ExtendedDfs<OrderedNode> expected = new ExtendedDfs<>(g, opt).run(entry);
+		ExtendedDfs<OrderedNode> actual = new ExtendedDfs<>(frozen, opt).run(entry);
+		assertEquals(expected.getPreOrder(), actual.getPreOrder());
+		assertEquals(expected.getPostOrder(), actual.getPostOrder());
+		assertEquals(expected.getTopoOrder(), actual.getTopoOrder());
+		assertEquals(expected.getParents(), actual.getParents());
+		assertEquals(expected.getEdges(ExtendedDfs.BACK), actual.getEdges(ExtendedDfs.BACK));
+	}
+
+	public void testTarjanSCC() throws IOException {
+		assertSameComponents(g, entry);
+		ODirectedGraph irreducible = (ODirectedGraph) GraphConverter.fromFile("/irreducible.gv");
+		assertSameComponents(irreducible, DfsTest.getNode(irreducible, 1));
+	}
+
+	private void assertSameComponents(ODirectedGraph graph, OrderedNode root) {
+		TarjanSCC<OrderedNode> expected = new TarjanSCC<>(graph);
+		FrozenTarjanSCC<OrderedNode> actual = new FrozenTarjanSCC<>(graph.freeze());
+		expected.search(root);
+		actual.search(root);
+		assertEquals(expected.getComponents(), actual.getComponents());
+		for(OrderedNode n : graph.vertices()) {
+			assertEquals(expected.low(n), actual.low(n));
+			assertEquals(expected.index(n), actual.index(n));
+		}
+	}
+}
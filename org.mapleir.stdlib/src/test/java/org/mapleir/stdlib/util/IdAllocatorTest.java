@@ -0,0 +1,39 @@
+package org.mapleir.stdlib.util;
+
+import java.util.BitSet;
+
+import junit.framework.TestCase;
+
+public class IdAllocatorTest extends TestCase {
+
+	public void testSingleThreadIsSequential() {
+		IdAllocator alloc = new IdAllocator(1, 4);
+		for(int i = 1; i <= 10; i++) {
+			assertEquals(i, alloc.next());
+		}
+	}
+
+	public void testUniqueAcrossThreads() throws InterruptedException {
+		IdAllocator alloc = new IdAllocator(0, 16);
+		int threads = 4, perThread = 10000;
+		int[][] ids = new int[threads][perThread];
+		Thread[] ts = new Thread[threads];
+		for(int t = 0; t < threads; t++) {
+			int[] out = ids[t];
+			ts[t] = new Thread(() -> {
+				for(int i = 0; i < perThread; i++) {
+					out[i] = alloc.next();
+				}
+			});
+			ts[t].start();
+		}
+		BitSet seen = new BitSet();
+		for(int t = 0; t < threads; t++) {
+			ts[t].join();
+			for(int id : ids[t]) {
+				assertFalse("duplicate id " + id, seen.get(id));
+				seen.set(id);
+			}
+		}
+	}
+}
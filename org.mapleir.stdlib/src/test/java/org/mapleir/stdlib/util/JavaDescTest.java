@@ -0,0 +1,70 @@
+package org.mapleir.stdlib.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.mapleir.stdlib.util.JavaDesc.DescType;
+
+import junit.framework.TestCase;
+
+public class JavaDescTest extends TestCase {
+
+	public void testInternIsCanonical() {
+		JavaDesc a = JavaDesc.intern("a/B", "foo", "()V", DescType.METHOD);
+		JavaDesc b = JavaDesc.intern(new String("a/B"), new String("foo"), new String("()V"), DescType.METHOD);
+		assertSame(a, b);
+		assertEquals(new JavaDesc("a/B", "foo", "()V", DescType.METHOD), a);
+		assertNotSame(a, JavaDesc.intern("a/B", "foo", "()V", DescType.FIELD));
+		assertNotSame(a, JavaDesc.intern("a/B", "foo", "()I", DescType.METHOD));
+		assertSame(JavaDesc.intern("a/B", "", "", DescType.CLASS), JavaDesc.intern("a/B", "", "", DescType.CLASS));
+	}
+
+	public void testManyDescs() {
+		JavaDesc[] descs = new JavaDesc[5000];
+		for(int i = 0; i < descs.length; i++) {
+			descs[i] = JavaDesc.intern("a/B" + (i % 7), "m" + i, "()V", DescType.METHOD);
+		}
+		for(int i = 0; i < descs.length; i++) {
+			assertSame(descs[i], JavaDesc.intern("a/B" + (i % 7), "m" + i, "()V", DescType.METHOD));
+		}
+	}
+
+	public void testUnusedDescsAreDropped() throws InterruptedException {
+		WeakReference<JavaDesc> ref = new WeakReference<>(JavaDesc.intern("a/Dropped", "foo", "()V", DescType.METHOD));
+		for(int i = 0; i < 50 && ref.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(ref.get());
+		// and it can be interned again afterwards.
+		JavaDesc jd = JavaDesc.intern("a/Dropped", "foo", "()V", DescType.METHOD);
+		assertSame(jd, JavaDesc.intern("a/Dropped", "foo", "()V", DescType.METHOD));
+	}
+
+	public void testInternAcrossThreads() throws InterruptedException {
+		Set<JavaDesc> seen = ConcurrentHashMap.newKeySet();
+		int threads = 4;
+		JavaDesc[][] got = new JavaDesc[threads][1000];
+		Thread[] ts = new Thread[threads];
+		for(int t = 0; t < threads; t++) {
+			JavaDesc[] out = got[t];
+			ts[t] = new Thread(() -> {
+				for(int i = 0; i < out.length; i++) {
+					out[i] = JavaDesc.intern("a/Shared", "f" + i, "I", DescType.FIELD);
+					seen.add(out[i]);
+				}
+			});
+			ts[t].start();
+		}
+		for(Thread t : ts) {
+			t.join();
+		}
+		assertEquals(1000, seen.size());
+		for(int t = 1; t < threads; t++) {
+			for(int i = 0; i < 1000; i++) {
+				assertSame(got[0][i], got[t][i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,284 @@
+package org.topdank.byteio.in;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.mapleir.asm.ClassNode;
+import org.topdank.byteengineer.commons.asm.ASMFactory;
+import org.topdank.byteengineer.commons.data.JarInfo;
+import org.topdank.byteengineer.commons.data.JarResource;
+import org.topdank.byteengineer.commons.data.JarType;
+import org.topdank.byteengineer.commons.data.LocateableJarContents;
+
+/**
+ * Reads a local jar by memory mapping it and walking the zip central
+ * directory directly. Entries are inflated and classes are parsed through
+ * the {@link ASMFactory} concurrently, then added to the contents in
+ * central directory order, so the result is the same as that of a
+ * {@link SingleJarDownloader} on the same file. Two entries that parse to
+ * classes of the same name are an error, as they are there.
+ *
+ * <p> The factory must be safe to call from several threads at once.
+ */
+public class MappedJarDownloader<C extends ClassNode> extends AbstractJarDownloader<C> {
+
+	private static final int LOC_SIG = 0x04034b50;
+	private static final int CEN_SIG = 0x02014b50;
+	private static final int END_SIG = 0x06054b50;
+	private static final int ZIP64_LOC_SIG = 0x07064b50;
+	private static final int ZIP64_END_SIG = 0x06064b50;
+
+	private static final int LOC_HDR = 30;
+	private static final int CEN_HDR = 46;
+	private static final int END_HDR = 22;
+	private static final int ZIP64_LOC_HDR = 20;
+
+	private static final int STORED = 0;
+	private static final int DEFLATED = 8;
+
+	protected final JarInfo jarInfo;
+	protected final int parallelism;
+
+	public MappedJarDownloader(JarInfo jarInfo) {
+		this(jarInfo, Runtime.getRuntime().availableProcessors());
+	}
+
+	public MappedJarDownloader(JarInfo jarInfo, int parallelism) {
+		super();
+		this.jarInfo = jarInfo;
+		this.parallelism = parallelism;
+	}
+
+	public MappedJarDownloader(ASMFactory<C> factory, JarInfo jarInfo, int parallelism) {
+		super(factory);
+		this.jarInfo = jarInfo;
+		this.parallelism = parallelism;
+	}
+
+	@Override
+	public void download() throws IOException {
+		if (jarInfo.getType() != JarType.FILE) {
+			throw new IOException("Can only map local jars: " + jarInfo.getPath());
+		}
+
+		File file = new File(jarInfo.getPath());
+		contents = new LocateableJarContents<>(new URL(jarInfo.formattedURL()));
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Jar too large to map: " + file);
+			}
+			MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buf.order(ByteOrder.LITTLE_ENDIAN);
+
+			List<Entry> entries = readCentralDirectory(buf);
+			Object[] results = new Object[entries.size()];
+
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.submit(() -> IntStream.range(0, entries.size()).parallel().forEach(i -> {
+					results[i] = load(buf, entries.get(i));
+				})).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while reading " + file, e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof UncheckedIOException) {
+					throw ((UncheckedIOException) cause).getCause();
+				}
+				throw new IOException("Failed to read " + file, cause);
+			} finally {
+				pool.shutdown();
+			}
+
+			Set<String> names = new HashSet<>();
+			for (Object o : results) {
+				if (o instanceof JarResource) {
+					contents.getResourceContents().add((JarResource) o);
+				} else {
+					@SuppressWarnings("unchecked")
+					C cn = (C) o;
+					if (names.add(cn.getName())) {
+						contents.getClassContents().add(cn);
+					} else {
+						throw new IllegalStateException("duplicate: " + cn.getName());
+					}
+				}
+			}
+		}
+	}
+
+	private Object load(ByteBuffer buf, Entry entry) {
+		try {
+			byte[] bytes = read(buf, entry);
+			if (entry.name.endsWith(".class")) {
+				return factory.create(bytes, entry.name);
+			} else {
+				return new JarResource(entry.name, bytes);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static byte[] read(ByteBuffer buf, Entry entry) throws IOException {
+		int loc = toInt(entry.localOffset);
+		if (buf.getInt(loc) != LOC_SIG) {
+			throw new ZipException("Bad local header for " + entry.name);
+		}
+		int dataStart = loc + LOC_HDR + (buf.getShort(loc + 26) & 0xFFFF) + (buf.getShort(loc + 28) & 0xFFFF);
+
+		ByteBuffer data = buf.duplicate();
+		data.position(dataStart);
+		data.limit(dataStart + toInt(entry.compressedSize));
+
+		byte[] out = new byte[toInt(entry.size)];
+		if (entry.method == STORED) {
+			data.get(out);
+		} else if (entry.method == DEFLATED) {
+			Inflater inflater = new Inflater(true);
+			try {
+				inflater.setInput(data);
+				int off = 0;
+				while (off < out.length) {
+					int n = inflater.inflate(out, off, out.length - off);
+					if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+						break;
+					}
+					off += n;
+				}
+				if (off != out.length) {
+					throw new ZipException("Truncated entry " + entry.name);
+				}
+			} catch (DataFormatException e) {
+				throw new ZipException("Corrupt entry " + entry.name + ": " + e.getMessage());
+			} finally {
+				inflater.end();
+			}
+		} else {
+			throw new ZipException("Unsupported compression method " + entry.method + " for " + entry.name);
+		}
+		return out;
+	}
+
+	private static List<Entry> readCentralDirectory(ByteBuffer buf) throws IOException {
+		int end = findEnd(buf);
+		long count = buf.getShort(end + 10) & 0xFFFF;
+		long cenOffset = buf.getInt(end + 16) & 0xFFFFFFFFL;
+
+		/* zip64 archives store the real values in a separate record. */
+		int loc64 = end - ZIP64_LOC_HDR;
+		if (loc64 >= 0 && buf.getInt(loc64) == ZIP64_LOC_SIG) {
+			int end64 = toInt(buf.getLong(loc64 + 8));
+			if (buf.getInt(end64) != ZIP64_END_SIG) {
+				throw new ZipException("Bad zip64 end header");
+			}
+			count = buf.getLong(end64 + 32);
+			cenOffset = buf.getLong(end64 + 48);
+		}
+
+		List<Entry> entries = new ArrayList<>(toInt(count));
+		int pos = toInt(cenOffset);
+		for (long i = 0; i < count; i++) {
+			if (buf.getInt(pos) != CEN_SIG) {
+				throw new ZipException("Bad central directory header");
+			}
+			int method = buf.getShort(pos + 10) & 0xFFFF;
+			long compressedSize = buf.getInt(pos + 20) & 0xFFFFFFFFL;
+			long size = buf.getInt(pos + 24) & 0xFFFFFFFFL;
+			int nameLen = buf.getShort(pos + 28) & 0xFFFF;
+			int extraLen = buf.getShort(pos + 30) & 0xFFFF;
+			int commentLen = buf.getShort(pos + 32) & 0xFFFF;
+			long localOffset = buf.getInt(pos + 42) & 0xFFFFFFFFL;
+
+			byte[] nameBytes = new byte[nameLen];
+			ByteBuffer nb = buf.duplicate();
+			nb.position(pos + CEN_HDR);
+			nb.get(nameBytes);
+			String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+			/* sizes and offsets that do not fit are moved into the zip64
+			 * extra field, in this order. */
+			int extra = pos + CEN_HDR + nameLen;
+			int extraEnd = extra + extraLen;
+			while (extra + 4 <= extraEnd) {
+				int tag = buf.getShort(extra) & 0xFFFF;
+				int len = buf.getShort(extra + 2) & 0xFFFF;
+				if (tag == 0x0001) {
+					int p = extra + 4;
+					if (size == 0xFFFFFFFFL) {
+						size = buf.getLong(p);
+						p += 8;
+					}
+					if (compressedSize == 0xFFFFFFFFL) {
+						compressedSize = buf.getLong(p);
+						p += 8;
+					}
+					if (localOffset == 0xFFFFFFFFL) {
+						localOffset = buf.getLong(p);
+					}
+					break;
+				}
+				extra += 4 + len;
+			}
+
+			entries.add(new Entry(name, method, compressedSize, size, localOffset));
+			pos += CEN_HDR + nameLen + extraLen + commentLen;
+		}
+		return entries;
+	}
+
+	private static int findEnd(ByteBuffer buf) throws ZipException {
+		/* the end record is followed by a comment of at most 0xFFFF bytes,
+		 * which may itself contain the signature. */
+		int min = Math.max(0, buf.limit() - END_HDR - 0xFFFF);
+		for (int i = buf.limit() - END_HDR; i >= min; i--) {
+			if (buf.getInt(i) == END_SIG && i + END_HDR + (buf.getShort(i + 20) & 0xFFFF) == buf.limit()) {
+				return i;
+			}
+		}
+		throw new ZipException("Missing end of central directory");
+	}
+
+	private static int toInt(long l) throws ZipException {
+		if (l < 0 || l > Integer.MAX_VALUE) {
+			throw new ZipException("Value out of range: " + l);
+		}
+		return (int) l;
+	}
+
+	private static class Entry {
+		final String name;
+		final int method;
+		final long compressedSize;
+		final long size;
+		final long localOffset;
+
+		Entry(String name, int method, long compressedSize, long size, long localOffset) {
+			this.name = name;
+			this.method = method;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.localOffset = localOffset;
+		}
+	}
+}
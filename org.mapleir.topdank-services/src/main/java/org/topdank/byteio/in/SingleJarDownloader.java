@@ -48,6 +48,7 @@ public class SingleJarDownloader<C extends ClassNode> extends AbstractJarDownloa
 			if (entry.getName().endsWith(".class")) {
 				C cn = factory.create(bytes, entry.getName());
 				if(!map.containsKey(cn.getName())) {
+					map.put(cn.getName(), cn);
 					contents.getClassContents().add(cn);
 				} else {
 					throw new IllegalStateException("duplicate: " + cn.getName());